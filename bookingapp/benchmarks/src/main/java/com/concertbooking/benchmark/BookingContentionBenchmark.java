@@ -0,0 +1,80 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.service.BookingBatcher;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent {@code bookTickets} calls, all on one hot concert or spread over several,
+ * either directly or through the batched pipeline. The service is rebuilt every
+ * iteration so booking history does not pile up; concerts are sized never to sell out.
+ * Use {@code -t} to change the thread count.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(8)
+@State(Scope.Benchmark)
+public class BookingContentionBenchmark {
+
+    private static final int SEATS_PER_CONCERT = Integer.MAX_VALUE / 2;
+
+    @Param({"1", "16"})
+    int hotConcerts;
+
+    @Param({"false", "true"})
+    boolean pipeline;
+
+    BookingService service;
+    BookingBatcher batcher;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        BookingMetrics metrics = BookingMetrics.noop();
+        service = Fixtures.newService(metrics);
+        Fixtures.addConcerts(service, hotConcerts, SEATS_PER_CONCERT);
+        batcher = new BookingBatcher(service, metrics, pipeline, 64, 500, 2, 10000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        batcher.shutdown();
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+        String concertId;
+        String email;
+
+        @Setup(Level.Trial)
+        public void setUp(BookingContentionBenchmark benchmark, ThreadParams threads) {
+            concertId = Fixtures.concertId(threads.getThreadIndex() % benchmark.hotConcerts);
+            email = Fixtures.customerEmail(threads.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public Booking bookTickets(Customer customer) {
+        return batcher.bookTickets(customer.concertId, "Customer", customer.email, 2, null);
+    }
+}
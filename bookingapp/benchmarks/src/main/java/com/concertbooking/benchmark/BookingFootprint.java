@@ -0,0 +1,60 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.service.BookingService;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+
+/**
+ * Measures retained heap per booking, which JMH does not report. Books the given number
+ * of tickets over 100 concerts and a pool of repeat customers, and prints the heap
+ * growth divided by the booking count. Run with a fixed heap and a single GC thread for
+ * stable numbers:
+ * <pre>
+ * java -Xms2g -Xmx2g -XX:+UseSerialGC -cp benchmarks/target/benchmarks.jar \
+ *     com.concertbooking.benchmark.BookingFootprint 1000000 100000
+ * </pre>
+ */
+public final class BookingFootprint {
+
+    private static final int CONCERTS = 100;
+
+    private BookingFootprint() {
+    }
+
+    public static void main(String[] args) {
+        int bookings = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int customers = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+
+        BookingService service = Fixtures.newService();
+        Fixtures.addConcerts(service, CONCERTS, (bookings / CONCERTS + 1) * 4);
+        String[] names = new String[customers];
+        String[] emails = new String[customers];
+        for (int i = 0; i < customers; i++) {
+            names[i] = "Customer " + i;
+            emails[i] = Fixtures.customerEmail(i);
+        }
+        long before = usedHeap();
+
+        for (int i = 0; i < bookings; i++) {
+            int customer = i % customers;
+            // Fresh strings, as each request parses its own copy of the customer's details
+            service.bookTickets(Fixtures.concertId(i % CONCERTS), new String(names[customer].toCharArray()),
+                    new String(emails[customer].toCharArray()), 1 + i % 4);
+        }
+        long after = usedHeap();
+
+        System.out.printf("%d bookings, %d customers: %.1f MB retained, %.1f bytes per booking%n",
+                bookings, customers, (after - before) / 1e6, (double) (after - before) / bookings);
+        // Keep everything reachable until after the measurement
+        System.out.println(service.getAllConcerts().size() + " concerts");
+    }
+
+    private static long usedHeap() {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+}
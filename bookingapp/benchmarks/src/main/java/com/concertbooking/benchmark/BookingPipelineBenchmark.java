@@ -0,0 +1,95 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.persistence.BookingJournal;
+import com.concertbooking.service.BookingBatcher;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * An on-sale spike on one concert with the journal on, booked directly or through the
+ * batched pipeline: throughput, and in sample mode the per-request latency percentiles
+ * (p99 included). With {@code fsync} each direct booking waits for its own share of a
+ * group commit, which is what batching is meant to amortize. The journal lives in a
+ * fresh temporary directory every iteration.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(64)
+@State(Scope.Benchmark)
+public class BookingPipelineBenchmark {
+
+    private static final String CONCERT_ID = "ON-SALE";
+
+    @Param({"false", "true"})
+    boolean pipeline;
+
+    @Param({"true", "false"})
+    boolean fsync;
+
+    Path directory;
+    BookingJournal journal;
+    BookingBatcher batcher;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("booking-pipeline");
+        journal = new BookingJournal(true, directory.toString(), 64, fsync, 0);
+        BookingMetrics metrics = BookingMetrics.noop();
+        BookingService service = Fixtures.newService(journal, metrics);
+        service.init();
+        service.addConcert(new Concert(CONCERT_ID, "On Sale", "Headliner", Fixtures.START, "Arena", 50.0,
+                Integer.MAX_VALUE / 2));
+        batcher = new BookingBatcher(service, metrics, pipeline, 64, 500, 2, 10000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        batcher.shutdown();
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+        String email;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            email = Fixtures.customerEmail(threads.getThreadIndex());
+        }
+    }
+
+    @Benchmark
+    public Booking bookTickets(Customer customer) {
+        return batcher.bookTickets(CONCERT_ID, "Customer", customer.email, 2, null);
+    }
+}
@@ -0,0 +1,139 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.bulk.BookingExporter;
+import com.concertbooking.bulk.BulkFormat;
+import com.concertbooking.bulk.BulkImporter;
+import com.concertbooking.bulk.ImportResult;
+import com.concertbooking.cluster.ClusterService;
+import com.concertbooking.cluster.LocalClusterTransport;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.service.BookingBatcher;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.IdempotentBookings;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bulk import and export in records per second. Export streams a million bookings to
+ * a discarding stream; import parses and books a million CSV lines into an empty
+ * service, on as many threads as there are processors.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BulkBenchmark {
+
+    static final int CONCERTS = 100;
+    static final int RECORDS = 1_000_000;
+
+    @State(Scope.Benchmark)
+    public static class Export {
+        BookingExporter exporter;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            Import source = new Import();
+            source.setUp();
+            source.importer.importBookings(new ByteArrayInputStream(source.csv), BulkFormat.CSV);
+            source.importer.shutdown();
+            exporter = new BookingExporter(source.repository);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Import {
+        byte[] csv;
+        BookingRepository repository;
+        BulkImporter importer;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            if (csv == null) {
+                csv = bookingsCsv();
+            }
+            repository = new BookingRepository();
+            BookingService service = Fixtures.newService(repository);
+            Fixtures.addConcerts(service, CONCERTS, RECORDS / CONCERTS);
+            BookingBatcher batcher = new BookingBatcher(service, BookingMetrics.noop(), false, 64, 500, 1, 10000);
+            ClusterService clusterService = new ClusterService(service, batcher, IdempotentBookings.disabled(),
+                    new LocalClusterTransport(), false, "", "", 128, 0);
+            importer = new BulkImporter(service, clusterService, new ObjectMapper(), 0, 2048);
+        }
+
+        @TearDown(Level.Invocation)
+        public void tearDown() {
+            importer.shutdown();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long exportCsv(Export state) throws IOException {
+        return state.exporter.export(new DiscardingStream(), BulkFormat.CSV, null, null, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long exportJsonLines(Export state) throws IOException {
+        return state.exporter.export(new DiscardingStream(), BulkFormat.JSON_LINES, null, null, null);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public long exportOneConcert(Export state) throws IOException {
+        // One concert holds a hundredth of the bookings; scale to records scanned
+        long exported = 0;
+        for (int i = 0; i < CONCERTS; i++) {
+            exported += state.exporter.export(new DiscardingStream(), BulkFormat.CSV, Fixtures.concertId(i), null, null);
+        }
+        return exported;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public ImportResult importCsv(Import state) throws IOException {
+        return state.importer.importBookings(new ByteArrayInputStream(state.csv), BulkFormat.CSV);
+    }
+
+    static byte[] bookingsCsv() {
+        StringBuilder csv = new StringBuilder(RECORDS * 64);
+        csv.append("concertId,customerName,customerEmail,numberOfSeats,bookingTime\n");
+        for (int i = 0; i < RECORDS; i++) {
+            csv.append(Fixtures.concertId(i % CONCERTS)).append(",\"Customer ").append(i).append(", Jr\",")
+                    .append(Fixtures.customerEmail(i)).append(",1,")
+                    .append(Fixtures.START.minusDays(30).plusSeconds(i)).append('\n');
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    static final class DiscardingStream extends OutputStream {
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Booking;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code bookTickets} through random entry nodes of an in-process scale-out cluster, so
+ * most calls are forwarded to the concert's owner. All nodes share this JVM's cores, so
+ * this measures the routing overhead rather than scale-out; run separate JVMs with
+ * {@code scripts/run-local-cluster.sh} for that.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(8)
+@State(Scope.Benchmark)
+public class ClusterBenchmark {
+
+    private static final int SEATS_PER_CONCERT = Integer.MAX_VALUE / 2;
+
+    @Param({"1", "2", "4"})
+    int nodes;
+
+    @Param({"64"})
+    int concerts;
+
+    InProcessCluster cluster;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        cluster = new InProcessCluster(nodes, true, concerts, SEATS_PER_CONCERT);
+    }
+
+    @Benchmark
+    public Booking bookTickets() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int customer = random.nextInt(1_000_000);
+        return cluster.nodes.get(random.nextInt(nodes)).bookTickets(Fixtures.concertId(random.nextInt(concerts)),
+                "Customer " + customer, Fixtures.customerEmail(customer), 1, null);
+    }
+}
@@ -0,0 +1,71 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.controller.EventController;
+import com.concertbooking.model.Concert;
+import com.concertbooking.search.ConcertSearchIndex;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.ConcertListingCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.ui.ExtendedModelMap;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code EventController.listEvents} up to, but not including, template rendering. With
+ * {@code catalogChanged} every call regroups the concerts by date, as after a concert is
+ * added; otherwise the cached grouping is served, as on most requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EventListingBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    int concerts;
+
+    @Param({"false", "true"})
+    boolean catalogChanged;
+
+    ConcertListingCache listingCache;
+    EventController controller;
+    Concert anyConcert;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BookingService service = Fixtures.newService();
+        Fixtures.addConcerts(service, concerts, 500);
+        listingCache = new ConcertListingCache(service);
+        controller = new EventController(service, listingCache, new ConcertSearchIndex(service));
+        anyConcert = service.getConcertById(Fixtures.concertId(0)).get();
+    }
+
+    @Benchmark
+    public void listEvents(Blackhole blackhole) {
+        if (catalogChanged) {
+            listingCache.concertAdded(anyConcert);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExtendedModelMap model = new ExtendedModelMap();
+        blackhole.consume(controller.listEvents(model,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/events"), response), response));
+        blackhole.consume(model);
+    }
+}
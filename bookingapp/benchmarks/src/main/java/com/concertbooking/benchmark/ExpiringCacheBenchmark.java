@@ -0,0 +1,72 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.util.ExpiringCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The idempotency key cache at capacity, with every call adding a new key and evicting
+ * the oldest, against an unbounded {@link ConcurrentHashMap} as the floor.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(8)
+@State(Scope.Benchmark)
+public class ExpiringCacheBenchmark {
+
+    private static final int KEYS_PER_THREAD = 1 << 16;
+
+    ExpiringCache<String, Object> cache;
+    ConcurrentMap<String, Object> map;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        cache = new ExpiringCache<>(100_000, 600, TimeUnit.SECONDS, Runtime.getRuntime().availableProcessors() * 4);
+        map = new ConcurrentHashMap<>();
+    }
+
+    @State(Scope.Thread)
+    public static class Keys {
+        final String[] keys = new String[KEYS_PER_THREAD];
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = threads.getThreadIndex() + "-" + i + "-" + Long.toHexString(Double.doubleToLongBits(Math.random()));
+            }
+        }
+
+        String next() {
+            return keys[next++ & (KEYS_PER_THREAD - 1)];
+        }
+    }
+
+    @Benchmark
+    public Object expiringCache(Keys keys) {
+        return cache.putIfAbsent(keys.next(), Boolean.TRUE);
+    }
+
+    @Benchmark
+    public Object concurrentHashMap(Keys keys) {
+        return map.putIfAbsent(keys.next(), Boolean.TRUE);
+    }
+}
@@ -0,0 +1,82 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Concert;
+import com.concertbooking.persistence.BookingJournal;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.repository.ConcertRepository;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.PurchaseLimits;
+import com.concertbooking.service.SeatHoldService;
+import com.concertbooking.service.SeatInventory;
+import com.concertbooking.service.WaitlistService;
+
+import java.time.LocalDateTime;
+
+/**
+ * Builds in-memory booking services for the benchmarks: no journal, no holds and no
+ * sample data, so only the code under measurement runs.
+ */
+final class Fixtures {
+
+    static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 20, 0);
+
+    private Fixtures() {
+    }
+
+    static BookingService newService(BookingMetrics metrics) {
+        SeatInventory seatInventory = new SeatInventory();
+        return newService(seatInventory, metrics, WaitlistService.disabled(seatInventory));
+    }
+
+    static BookingService newService(SeatInventory seatInventory, BookingMetrics metrics, WaitlistService waitlist) {
+        return newService(seatInventory, new BookingRepository(), metrics, waitlist);
+    }
+
+    static BookingService newService(BookingRepository bookingRepository) {
+        SeatInventory seatInventory = new SeatInventory();
+        return newService(seatInventory, bookingRepository, BookingMetrics.noop(), WaitlistService.disabled(seatInventory));
+    }
+
+    /** A service recording to {@code journal}, which {@link BookingService#init} opens. */
+    static BookingService newService(BookingJournal journal, BookingMetrics metrics) {
+        SeatInventory seatInventory = new SeatInventory();
+        return newService(seatInventory, new BookingRepository(), journal, metrics,
+                WaitlistService.disabled(seatInventory));
+    }
+
+    private static BookingService newService(SeatInventory seatInventory, BookingRepository bookingRepository,
+                                             BookingMetrics metrics, WaitlistService waitlist) {
+        return newService(seatInventory, bookingRepository, BookingJournal.disabled(), metrics, waitlist);
+    }
+
+    private static BookingService newService(SeatInventory seatInventory, BookingRepository bookingRepository,
+                                             BookingJournal journal, BookingMetrics metrics,
+                                             WaitlistService waitlist) {
+        return new BookingService(seatInventory, new ConcertRepository(), bookingRepository, journal,
+                SeatHoldService.disabled(seatInventory), metrics, waitlist, PurchaseLimits.none());
+    }
+
+    static BookingService newService() {
+        return newService(BookingMetrics.noop());
+    }
+
+    static String concertId(int index) {
+        return "C" + index;
+    }
+
+    /**
+     * Adds concerts spread over a year, a few per evening, so calendar grouping sees
+     * realistic date buckets.
+     */
+    static void addConcerts(BookingService service, int count, int seatsPerConcert) {
+        for (int i = 0; i < count; i++) {
+            service.addConcert(new Concert(concertId(i), "Concert " + i, "Artist " + (i % 97),
+                    START.plusDays(i % 365).plusHours(i % 3), "Venue " + (i % 13), 50.0, seatsPerConcert));
+        }
+    }
+
+    static String customerEmail(int index) {
+        return "customer" + index + "@example.com";
+    }
+}
@@ -0,0 +1,51 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.cluster.ClusterService;
+import com.concertbooking.cluster.LocalClusterTransport;
+import com.concertbooking.service.BookingBatcher;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.IdempotentBookings;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scale-out nodes in one JVM, each with its own booking service and inventory, wired
+ * together by a {@link LocalClusterTransport}. Every node gets the same catalog.
+ * With {@code partitioned} false the nodes are independent replicas that all book
+ * locally, as separate replicas did before scale-out mode.
+ */
+final class InProcessCluster {
+
+    final List<BookingService> services = new ArrayList<>();
+    final List<ClusterService> nodes = new ArrayList<>();
+
+    InProcessCluster(int nodeCount, boolean partitioned, int concerts, int seatsPerConcert) {
+        StringBuilder nodeList = new StringBuilder();
+        for (int i = 0; i < nodeCount; i++) {
+            nodeList.append(i == 0 ? "" : ",").append(nodeId(i)).append("=local:").append(i);
+        }
+        LocalClusterTransport transport = new LocalClusterTransport();
+        for (int i = 0; i < nodeCount; i++) {
+            BookingMetrics metrics = BookingMetrics.noop();
+            BookingService service = Fixtures.newService(metrics);
+            Fixtures.addConcerts(service, concerts, seatsPerConcert);
+            BookingBatcher batcher = new BookingBatcher(service, metrics, false, 64, 500, 1, 10000);
+            // Replication is driven by the caller, so no timer
+            ClusterService node = new ClusterService(service, batcher, IdempotentBookings.disabled(), transport,
+                    partitioned, nodeId(i), nodeList.toString(), 128, 0);
+            transport.register(node);
+            services.add(service);
+            nodes.add(node);
+        }
+    }
+
+    static String nodeId(int index) {
+        return "node-" + index;
+    }
+
+    void replicate() {
+        nodes.forEach(ClusterService::replicate);
+    }
+}
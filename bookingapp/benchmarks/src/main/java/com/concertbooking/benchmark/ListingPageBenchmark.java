@@ -0,0 +1,115 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.ConcertBookingApplication;
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.ConcertListingCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full HTTP requests for {@code /concerts} and {@code /events} against the application
+ * started in this JVM, template rendering included. {@code uncached} is the page as it
+ * was before the listing cache: the listing rebuilt on every request and the template
+ * cache off. {@code cached} serves the cached listing through cached templates, and
+ * {@code revalidated} is a repeat client sending the current ETag and getting 304.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class ListingPageBenchmark {
+
+    @Param({"/concerts", "/events"})
+    String page;
+
+    @Param({"uncached", "cached", "revalidated"})
+    String mode;
+
+    @Param({"100", "1000"})
+    int concerts;
+
+    ConfigurableApplicationContext context;
+    ConcertListingCache listingCache;
+    Concert anyConcert;
+    String baseUrl;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SpringApplication.run(ConcertBookingApplication.class,
+                "--server.port=0",
+                "--management.server.port=-1",
+                "--booking.rate-limit.enabled=false",
+                "--booking.journal.enabled=false",
+                "--spring.thymeleaf.cache=" + !"uncached".equals(mode),
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        BookingService service = context.getBean(BookingService.class);
+        // The sample concerts are C1 to C5, so number these past them
+        for (int i = 0; i < concerts; i++) {
+            service.addConcert(new Concert("BENCH" + i, "Concert " + i, "Artist " + (i % 97),
+                    Fixtures.START.plusDays(i % 365), "Venue " + (i % 13), 50.0, 500));
+        }
+        listingCache = context.getBean(ConcertListingCache.class);
+        anyConcert = service.getConcertById("BENCH0").get();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int request() throws IOException {
+        String etag = null;
+        if ("uncached".equals(mode)) {
+            listingCache.concertAdded(anyConcert);
+        } else if ("revalidated".equals(mode)) {
+            etag = listingCache.getETag();
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + page).openConnection();
+        if (etag != null) {
+            connection.setRequestProperty("If-None-Match", etag);
+        }
+        int status = connection.getResponseCode();
+        if (status != 200 && status != 304) {
+            throw new IOException(page + " returned HTTP " + status);
+        }
+        // Drain the body so the keep-alive connection is reused
+        int bytes = 0;
+        if (status == 200) {
+            byte[] buffer = new byte[8192];
+            try (InputStream in = connection.getInputStream()) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    bytes += read;
+                }
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,98 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.repository.Page;
+import com.concertbooking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Read paths over a populated service: concert lookups and a customer with a long
+ * booking history. {@code bookings} are spread over {@code concerts} and one thousand
+ * regular customers; the heavy customer's {@code customerHistory} comes on top.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+    private static final int REGULAR_CUSTOMERS = 1000;
+    private static final String HEAVY_CUSTOMER = "frequent.fan@example.com";
+
+    @Param({"100", "10000"})
+    int concerts;
+
+    @Param({"10000", "500000"})
+    int bookings;
+
+    @Param({"100", "10000"})
+    int customerHistory;
+
+    BookingService service;
+    String[] concertIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = Fixtures.newService();
+        int seatsPerConcert = (bookings + customerHistory) / concerts + 10;
+        Fixtures.addConcerts(service, concerts, seatsPerConcert);
+        concertIds = new String[concerts];
+        for (int i = 0; i < concerts; i++) {
+            concertIds[i] = Fixtures.concertId(i);
+        }
+        for (int i = 0; i < bookings; i++) {
+            service.bookTickets(concertIds[i % concerts], "Customer", Fixtures.customerEmail(i % REGULAR_CUSTOMERS), 1);
+        }
+        for (int i = 0; i < customerHistory; i++) {
+            service.bookTickets(concertIds[i % concerts], "Frequent Fan", HEAVY_CUSTOMER, 1);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        String nextConcertId(String[] concertIds) {
+            return concertIds[random.nextInt(concertIds.length)];
+        }
+    }
+
+    @Benchmark
+    public Optional<Concert> getConcertById(Cursor cursor) {
+        return service.getConcertById(cursor.nextConcertId(concertIds));
+    }
+
+    @Benchmark
+    public boolean isConcertSoldOut(Cursor cursor) {
+        return service.isConcertSoldOut(cursor.nextConcertId(concertIds));
+    }
+
+    @Benchmark
+    public List<Booking> getBookingsByCustomerEmail() {
+        return service.getBookingsByCustomerEmail(HEAVY_CUSTOMER);
+    }
+
+    @Benchmark
+    public Page<Booking> getBookingsByCustomerEmailFirstPage() {
+        return service.getBookingsByCustomerEmail(HEAVY_CUSTOMER, 0, 50);
+    }
+}
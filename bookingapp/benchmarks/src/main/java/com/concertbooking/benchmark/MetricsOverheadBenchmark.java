@@ -0,0 +1,101 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingBatcher;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.SeatInventory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the booking metrics. {@code none} records into a registry without backends,
+ * the baseline; {@code prometheus} is what production scrapes. Compare the full
+ * booking path across registries, and the individual recordings on their own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(4)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    @Param({"none", "simple", "prometheus"})
+    String registry;
+
+    MeterRegistry meterRegistry;
+    BookingMetrics metrics;
+    BookingService service;
+    BookingBatcher batcher;
+    Concert concert;
+    Booking booking;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        meterRegistry = newRegistry(registry);
+        metrics = new BookingMetrics(meterRegistry);
+        service = Fixtures.newService(metrics);
+        Fixtures.addConcerts(service, 1, Integer.MAX_VALUE / 2);
+        batcher = new BookingBatcher(service, metrics, false, 64, 500, 2, 10000);
+        concert = service.getConcertById(Fixtures.concertId(0)).get();
+        booking = new Booking(concert.getId(), "Customer", Fixtures.customerEmail(0), 2, concert.getPrice());
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        meterRegistry.close();
+    }
+
+    @Benchmark
+    public Booking bookTickets() {
+        return batcher.bookTickets(concert.getId(), "Customer", Fixtures.customerEmail(0), 2, null);
+    }
+
+    @Benchmark
+    public void recordBookingLatency() {
+        metrics.recordBooking(BookingMetrics.Outcome.SUCCESS, 25_000);
+    }
+
+    @Benchmark
+    public void countBookingCreated() {
+        metrics.bookingCreated(concert, booking);
+    }
+
+    @Benchmark
+    public void countRejection() {
+        metrics.bookingRejected(concert.getId(), SeatInventory.Reservation.SOLD_OUT);
+    }
+
+    private static MeterRegistry newRegistry(String type) {
+        switch (type) {
+            case "simple":
+                return new SimpleMeterRegistry();
+            case "prometheus":
+                return new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+            default:
+                return new CompositeMeterRegistry();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.notification.LocalNotificationSink;
+import com.concertbooking.notification.NotificationOutbox;
+import com.concertbooking.persistence.BookingJournal;
+import com.concertbooking.service.BookingService;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Booking latency percentiles with the notification outbox in front of sinks of
+ * different speeds. {@code none} has no outbox; the other values are the sink's delay
+ * per batch in milliseconds. The percentiles should not move with the sink's delay.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class NotificationBenchmark {
+
+    private static final int CONCERTS = 10;
+
+    @Param({"none", "0", "50"})
+    String sinkDelayMillis;
+
+    BookingService service;
+    NotificationOutbox outbox;
+    final AtomicLong customers = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        service = Fixtures.newService();
+        Fixtures.addConcerts(service, CONCERTS, 100_000_000);
+        if (!sinkDelayMillis.equals("none")) {
+            outbox = new NotificationOutbox(service, BookingJournal.disabled(),
+                    new LocalNotificationSink(Long.parseLong(sinkDelayMillis), 0), new CompositeMeterRegistry(), true,
+                    100_000, 2, 100, 6, 500, 60_000, 0);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (outbox != null) {
+            outbox.shutdown();
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object bookTickets() {
+        long customer = customers.incrementAndGet();
+        return service.bookTickets(Fixtures.concertId((int) (customer % CONCERTS)), "Customer",
+                Fixtures.customerEmail((int) customer), 1);
+    }
+}
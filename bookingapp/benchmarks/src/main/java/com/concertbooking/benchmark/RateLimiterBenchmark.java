@@ -0,0 +1,81 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.exception.RateLimitedException;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.RateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the rate limits cost per request. {@code hotClient} is a scalper hammering from
+ * one address, turned away on nearly every call; {@code distinctClients} is a crowd
+ * where every call comes from an address the limiter has not seen, so each one adds a
+ * bucket and, at capacity, evicts the oldest.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int ADDRESSES_PER_THREAD = 1 << 16;
+
+    RateLimiter rateLimiter;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        rateLimiter = new RateLimiter(BookingMetrics.noop(), true, 60, 20, 10, 5, 100_000, 600);
+    }
+
+    @State(Scope.Thread)
+    public static class Addresses {
+        final String[] addresses = new String[ADDRESSES_PER_THREAD];
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threads) {
+            for (int i = 0; i < addresses.length; i++) {
+                addresses[i] = "10." + threads.getThreadIndex() + "." + (i >>> 8) + "." + (i & 0xff);
+            }
+        }
+
+        String next() {
+            return addresses[next++ & (ADDRESSES_PER_THREAD - 1)];
+        }
+    }
+
+    @Benchmark
+    public boolean hotClient() {
+        return check("203.0.113.7");
+    }
+
+    @Benchmark
+    public boolean distinctClients(Addresses addresses) {
+        return check(addresses.next());
+    }
+
+    private boolean check(String address) {
+        try {
+            rateLimiter.checkAddress(address);
+            return true;
+        } catch (RateLimitedException e) {
+            return false;
+        }
+    }
+}
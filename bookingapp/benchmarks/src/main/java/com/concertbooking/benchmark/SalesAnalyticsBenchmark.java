@@ -0,0 +1,72 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.SalesAnalytics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Cost of the sales analytics: recording a booking from 8 threads spread over
+ * {@code concerts}, and building the dashboard with every concert selling, as a
+ * poller sees it once a second (with the refresh interval at zero, every call builds).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SalesAnalyticsBenchmark {
+
+    @Param({"10", "10000"})
+    int concerts;
+
+    SalesAnalytics analytics;
+    Concert[] concertList;
+    Booking booking;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BookingService service = Fixtures.newService();
+        Fixtures.addConcerts(service, concerts, 1_000_000);
+        analytics = new SalesAnalytics(service, 300, 60, 10, 0);
+        concertList = new Concert[concerts];
+        for (int i = 0; i < concerts; i++) {
+            concertList[i] = service.getConcertById(Fixtures.concertId(i)).get();
+        }
+        booking = new Booking("b", Fixtures.concertId(0), "Customer", Fixtures.customerEmail(0), 2,
+                LocalDateTime.now(), 100.0, Collections.<String>emptyList(), Booking.newCancelCode());
+        for (Concert concert : concertList) {
+            analytics.bookingCreated(concert, booking);
+        }
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void recordBooking() {
+        analytics.bookingCreated(concertList[ThreadLocalRandom.current().nextInt(concertList.length)], booking);
+    }
+
+    @Benchmark
+    public SalesAnalytics.Dashboard buildDashboard() {
+        return analytics.getDashboard();
+    }
+}
@@ -0,0 +1,81 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Concert;
+import com.concertbooking.search.ConcertSearchIndex;
+import com.concertbooking.service.BookingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code ConcertSearchIndex.search} for one page of 20 over a catalog spread over a
+ * year: free text, a selective artist and genre filter, a month's date range with a
+ * venue, and a late page of everything.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchBenchmark {
+
+    private static final String[] BANDS = {" Rock Band", " Jazz Trio", " Pop Group", " Ensemble"};
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000", "10000"})
+    int concerts;
+
+    ConcertSearchIndex index;
+    ConcertSearchIndex.Query text;
+    ConcertSearchIndex.Query artistAndGenre;
+    ConcertSearchIndex.Query monthAtVenue;
+    ConcertSearchIndex.Query everything;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BookingService service = Fixtures.newService();
+        for (int i = 0; i < concerts; i++) {
+            service.addConcert(new Concert(Fixtures.concertId(i), "Concert " + i, "Artist " + (i % 97) + BANDS[i % 4],
+                    Fixtures.START.plusDays(i % 365).plusHours(i % 3), "Venue " + (i % 13), 50.0, 500));
+        }
+        index = new ConcertSearchIndex(service);
+        LocalDateTime month = Fixtures.START.plusMonths(3).toLocalDate().atStartOfDay();
+        text = new ConcertSearchIndex.Query("artist 4", null, null, null, null, null);
+        artistAndGenre = new ConcertSearchIndex.Query(null, "artist 42", null, "Rock", null, null);
+        monthAtVenue = new ConcertSearchIndex.Query(null, null, "venue 7", null, month, month.plusMonths(1));
+        everything = new ConcertSearchIndex.Query(null, null, null, null, null, null);
+    }
+
+    @Benchmark
+    public ConcertSearchIndex.Result text() {
+        return index.search(text, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ConcertSearchIndex.Result artistAndGenre() {
+        return index.search(artistAndGenre, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ConcertSearchIndex.Result monthAtVenue() {
+        return index.search(monthAtVenue, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public ConcertSearchIndex.Result latePage() {
+        return index.search(everything, concerts / 2, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,101 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.service.SeatInventory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reserve-and-release on the lock-free {@link SeatInventory} against the single global
+ * lock the booking path used to take, with every thread on one concert or on its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class SeatInventoryBenchmark {
+
+    private static final int SEATS = 1_000_000;
+
+    @Param({"1", "64"})
+    int concerts;
+
+    SeatInventory inventory;
+    LockedInventory lockedInventory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        inventory = new SeatInventory();
+        lockedInventory = new LockedInventory();
+        for (int i = 0; i < concerts; i++) {
+            inventory.register(Fixtures.concertId(i), SEATS);
+            lockedInventory.register(Fixtures.concertId(i), SEATS);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Customer {
+        String concertId;
+
+        @Setup(Level.Trial)
+        public void setUp(SeatInventoryBenchmark benchmark, ThreadParams threads) {
+            concertId = Fixtures.concertId(threads.getThreadIndex() % benchmark.concerts);
+        }
+    }
+
+    @Benchmark
+    public SeatInventory.Reservation compareAndSet(Customer customer) {
+        SeatInventory.Reservation reservation = inventory.tryReserve(customer.concertId, 2);
+        inventory.release(customer.concertId, 2);
+        return reservation;
+    }
+
+    @Benchmark
+    public boolean globalLock(Customer customer) {
+        boolean reserved = lockedInventory.tryReserve(customer.concertId, 2);
+        lockedInventory.release(customer.concertId, 2);
+        return reserved;
+    }
+
+    /**
+     * The previous scheme: one monitor guarding every concert's counter.
+     */
+    static final class LockedInventory {
+        private final Map<String, Integer> remainingSeats = new HashMap<>();
+
+        synchronized void register(String concertId, int seats) {
+            remainingSeats.put(concertId, seats);
+        }
+
+        synchronized boolean tryReserve(String concertId, int seats) {
+            Integer remaining = remainingSeats.get(concertId);
+            if (remaining == null || remaining < seats) {
+                return false;
+            }
+            remainingSeats.put(concertId, remaining - seats);
+            return true;
+        }
+
+        synchronized void release(String concertId, int seats) {
+            remainingSeats.merge(concertId, seats, Integer::sum);
+        }
+    }
+}
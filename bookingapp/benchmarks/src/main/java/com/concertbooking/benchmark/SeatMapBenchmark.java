@@ -0,0 +1,65 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.SeatMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Best-available allocation on an 80,000-seat stadium at increasing fill. Seats are
+ * taken at random so free seats are scattered, the hard case for finding adjacent
+ * blocks. Each allocation is released again to keep the fill level constant.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SeatMapBenchmark {
+
+    private static final String[] SECTIONS = {"A", "B", "C", "D", "E", "F", "G", "H"};
+    private static final int ROWS_PER_SECTION = 40;
+    private static final int SEATS_PER_ROW = 250;
+
+    @Param({"0", "50", "90", "99"})
+    int fillPercent;
+
+    @Param({"2", "8"})
+    int seats;
+
+    SeatMap seatMap;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        seatMap = SeatMap.uniform(SECTIONS, ROWS_PER_SECTION, SEATS_PER_ROW);
+        SplittableRandom random = new SplittableRandom(42);
+        int toTake = (int) ((long) seatMap.getCapacity() * fillPercent / 100);
+        while (seatMap.getCapacity() - seatMap.getFreeSeats() < toTake) {
+            String seatId = SECTIONS[random.nextInt(SECTIONS.length)] + "-" + (random.nextInt(ROWS_PER_SECTION) + 1)
+                    + "-" + (random.nextInt(SEATS_PER_ROW) + 1);
+            seatMap.reserve(Collections.singletonList(seatId));
+        }
+    }
+
+    @Benchmark
+    public List<String> allocateBestAvailable() {
+        List<String> allocated = seatMap.allocateBestAvailable(seats);
+        seatMap.release(allocated);
+        return allocated;
+    }
+}
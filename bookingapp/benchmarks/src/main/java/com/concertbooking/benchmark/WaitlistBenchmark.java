@@ -0,0 +1,84 @@
+package com.concertbooking.benchmark;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.PurchaseLimits;
+import com.concertbooking.service.SeatInventory;
+import com.concertbooking.service.WaitlistService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A refund wave on a sold-out concert: every booking is cancelled and each freed seat
+ * goes to the next customer on the waitlist. Measures the time from the first
+ * cancellation until the whole waitlist is booked, at different allocation batch sizes.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Thread)
+public class WaitlistBenchmark {
+
+    private static final String CONCERT_ID = "W";
+
+    @Param({"10000"})
+    int seats;
+
+    @Param({"1", "256"})
+    int batchSize;
+
+    BookingService service;
+    WaitlistService waitlist;
+    List<Booking> bookings;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        SeatInventory seatInventory = new SeatInventory();
+        waitlist = new WaitlistService(seatInventory, PurchaseLimits.none(), true, batchSize, seats, 1, 3600);
+        service = Fixtures.newService(seatInventory, BookingMetrics.noop(), waitlist);
+        service.addConcert(new Concert(CONCERT_ID, "Sold Out", "Artist", Fixtures.START, "Venue", 50.0, seats));
+        bookings = new ArrayList<>(seats);
+        for (int i = 0; i < seats; i++) {
+            bookings.add(service.bookTickets(CONCERT_ID, "Customer " + i, Fixtures.customerEmail(i), 1));
+        }
+        for (int i = 0; i < seats; i++) {
+            waitlist.join(CONCERT_ID, "Waiting " + i, Fixtures.customerEmail(seats + i), 1);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        waitlist.shutdown();
+    }
+
+    @Benchmark
+    public int cancelAndReallocate() throws InterruptedException {
+        for (Booking booking : bookings) {
+            service.cancelBooking(booking.getId(), booking.getCancelCode());
+        }
+        while (waitlist.getWaitingCount(CONCERT_ID) > 0
+                || service.getConcertById(CONCERT_ID).get().getBookedSeats() < seats) {
+            Thread.sleep(0, 100_000);
+        }
+        return waitlist.getWaitingCount(CONCERT_ID);
+    }
+}
@@ -0,0 +1,57 @@
+package com.concertbooking.loadtest;
+
+import com.concertbooking.ConcertBookingApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The application started in this JVM on a free port. Properties are passed as command
+ * line arguments, so they override application.properties. The load threads share the
+ * machine with the server; use {@code --target} against a separate process to keep
+ * them apart.
+ */
+final class EmbeddedApp implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedApp(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    /**
+     * Starts with the rate limits, which would throttle one machine's load to a trickle,
+     * the journal and the management port off; {@code overrides} win over these.
+     */
+    static EmbeddedApp start(String bulkToken, Map<String, String> overrides) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("management.server.port", "-1");
+        properties.put("booking.rate-limit.enabled", "false");
+        properties.put("booking.journal.enabled", "false");
+        properties.put("booking.bulk.token", bulkToken);
+        properties.put("spring.main.banner-mode", "off");
+        // Debug logging of every request would be measured along with it
+        properties.put("logging.level.com.concertbooking", "INFO");
+        properties.put("logging.level.org.thymeleaf", "WARN");
+        properties.putAll(overrides);
+        List<String> args = new ArrayList<>();
+        for (Map.Entry<String, String> property : properties.entrySet()) {
+            args.add("--" + property.getKey() + "=" + property.getValue());
+        }
+        return new EmbeddedApp(SpringApplication.run(ConcertBookingApplication.class, args.toArray(new String[0])));
+    }
+
+    String getBaseUrl() {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
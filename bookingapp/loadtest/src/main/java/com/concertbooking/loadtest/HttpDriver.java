@@ -0,0 +1,115 @@
+package com.concertbooking.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Blocking HTTP calls against the application with {@link HttpURLConnection}, which keeps
+ * connections alive and reuses them as long as every response body is read to the end.
+ * Raise {@code http.maxConnections} to the number of load threads before the first call,
+ * or connections beyond the default 5 per host are closed after each request.
+ */
+class HttpDriver {
+
+    private static final int TIMEOUT_MILLIS = 10_000;
+
+    private final String baseUrl;
+
+    HttpDriver(String baseUrl) {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+    }
+
+    String getBaseUrl() {
+        return baseUrl;
+    }
+
+    Response get(String path) throws IOException {
+        HttpURLConnection connection = open(path, "GET");
+        return read(connection);
+    }
+
+    Response postForm(String path, Map<String, String> form) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (Map.Entry<String, String> field : form.entrySet()) {
+            if (body.length() > 0) {
+                body.append('&');
+            }
+            body.append(URLEncoder.encode(field.getKey(), "UTF-8")).append('=')
+                    .append(URLEncoder.encode(field.getValue(), "UTF-8"));
+        }
+        return post(path, "application/x-www-form-urlencoded", body.toString().getBytes(StandardCharsets.UTF_8),
+                null, null);
+    }
+
+    Response post(String path, String contentType, byte[] body, String header, String headerValue)
+            throws IOException {
+        HttpURLConnection connection = open(path, "POST");
+        connection.setDoOutput(true);
+        connection.setRequestProperty("Content-Type", contentType);
+        if (header != null) {
+            connection.setRequestProperty(header, headerValue);
+        }
+        connection.setFixedLengthStreamingMode(body.length);
+        try (OutputStream out = connection.getOutputStream()) {
+            out.write(body);
+        }
+        return read(connection);
+    }
+
+    private HttpURLConnection open(String path, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setConnectTimeout(TIMEOUT_MILLIS);
+        connection.setReadTimeout(TIMEOUT_MILLIS);
+        return connection;
+    }
+
+    private static Response read(HttpURLConnection connection) throws IOException {
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in == null) {
+            return new Response(status, "");
+        }
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        try {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    static final class Response {
+
+        private final int status;
+        private final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+
+        int getStatus() {
+            return status;
+        }
+
+        String getBody() {
+            return body;
+        }
+
+        boolean isOk() {
+            return status >= 200 && status < 400;
+        }
+    }
+}
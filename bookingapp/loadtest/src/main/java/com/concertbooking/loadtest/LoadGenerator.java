@@ -0,0 +1,215 @@
+package com.concertbooking.loadtest;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Drives a {@link Scenario} with a fixed number of threads, each acting as a stream of
+ * visitors: a warm-up that is not measured, then the measured run, closing a
+ * {@link Recorder.Interval} every few seconds. During the warm-up a flash sale books a
+ * separate concert, so the one going on sale opens with all its seats.
+ */
+class LoadGenerator {
+
+    private final HttpDriver driver;
+    private final Scenario scenario;
+    private final Catalog catalog;
+    private final int threads;
+    private final double ratePerSecond;
+    private final String runId;
+    private final Recorder recorder = new Recorder();
+    private final AtomicLong customers = new AtomicLong();
+    private final AtomicReference<String> firstError = new AtomicReference<>();
+
+    private volatile boolean stopped;
+    private volatile long measuredFrom = Long.MAX_VALUE;
+    private volatile String saleConcertId;
+    private long measuredNanos;
+
+    LoadGenerator(HttpDriver driver, Scenario scenario, Catalog catalog, int threads, double ratePerSecond,
+                  String runId) {
+        this.driver = driver;
+        this.scenario = scenario;
+        this.catalog = catalog;
+        this.threads = threads;
+        this.ratePerSecond = ratePerSecond;
+        this.runId = runId;
+        this.saleConcertId = catalog.getWarmupConcertId();
+    }
+
+    Recorder run(int warmupSeconds, int durationSeconds, int reportIntervalSeconds,
+                 Consumer<Recorder.Interval> onInterval) throws InterruptedException {
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int index = i;
+            workers[i] = new Thread(() -> work(index), "load-" + (i + 1));
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        TimeUnit.SECONDS.sleep(warmupSeconds);
+
+        saleConcertId = catalog.getSaleConcertId();
+        long start = System.nanoTime();
+        measuredFrom = start;
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(Math.max(reportIntervalSeconds, 1));
+        long intervalStart = start;
+        while (intervalStart + intervalNanos < end) {
+            sleepUntil(intervalStart + intervalNanos);
+            onInterval.accept(recorder.closeInterval(intervalStart + intervalNanos - start, intervalNanos));
+            intervalStart += intervalNanos;
+        }
+        sleepUntil(end);
+        stopped = true;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        // Requests in flight at the end are counted in the last interval
+        onInterval.accept(recorder.closeInterval(end - start, end - intervalStart));
+        measuredNanos = end - start;
+        return recorder;
+    }
+
+    long getMeasuredNanos() {
+        return measuredNanos;
+    }
+
+    /** The first failed request's error, to tell a broken setup from an overloaded server. */
+    String getFirstError() {
+        return firstError.get();
+    }
+
+    private void work(int index) {
+        Random random = ThreadLocalRandom.current();
+        // Open-loop: each thread sends its share of the rate, staggered so they do not fire together
+        long period = ratePerSecond > 0 ? (long) (threads * 1e9 / ratePerSecond) : 0;
+        long due = System.nanoTime() + period * index / threads;
+        while (!stopped) {
+            long start;
+            if (period > 0) {
+                sleepUntil(due);
+                if (stopped) {
+                    break;
+                }
+                start = due;
+                due += period;
+            } else {
+                start = System.nanoTime();
+            }
+            Operation operation = scenario.nextOperation(random);
+            String concertId = pickConcert(random);
+            int seats = 1 + random.nextInt(scenario.isSingleConcert() ? 4 : 2);
+            Recorder.Outcome outcome = execute(operation, concertId, seats);
+            long elapsed = System.nanoTime() - start;
+            if (operation == Operation.BOOK) {
+                recorder.recordSeats(concertId, outcome, seats);
+            }
+            if (start >= measuredFrom) {
+                recorder.record(operation, elapsed, outcome, seats);
+            }
+        }
+    }
+
+    private String pickConcert(Random random) {
+        if (scenario.isSingleConcert()) {
+            return saleConcertId;
+        }
+        List<String> ids = catalog.getConcertIds();
+        // Most visitors go for the few headline concerts
+        int headliners = Math.max(ids.size() / 10, 1);
+        return ids.get(random.nextInt(100) < 80 ? random.nextInt(headliners) : random.nextInt(ids.size()));
+    }
+
+    private Recorder.Outcome execute(Operation operation, String concertId, int seats) {
+        try {
+            if (operation != Operation.BOOK) {
+                HttpDriver.Response response = driver.get(operation.path(concertId));
+                if (!response.isOk()) {
+                    firstError.compareAndSet(null, operation.getLabel() + " returned HTTP " + response.getStatus());
+                    return Recorder.Outcome.ERROR;
+                }
+                return Recorder.Outcome.OK;
+            }
+            Map<String, String> form = new LinkedHashMap<>();
+            form.put("customerName", "Load Test");
+            form.put("customerEmail", "load-" + runId + "-" + customers.incrementAndGet() + "@example.com");
+            form.put("numberOfSeats", Integer.toString(seats));
+            // As the rendered booking form does, one key per submission
+            form.put("idempotencyKey", UUID.randomUUID().toString());
+            HttpDriver.Response response = driver.postForm(operation.path(concertId), form);
+            Recorder.Outcome outcome = bookingOutcome(response);
+            if (outcome == Recorder.Outcome.ERROR) {
+                firstError.compareAndSet(null, operation.getLabel() + " returned HTTP " + response.getStatus());
+            }
+            return outcome;
+        } catch (IOException e) {
+            firstError.compareAndSet(null, operation.getLabel() + " failed: " + e);
+            return Recorder.Outcome.ERROR;
+        }
+    }
+
+    // The booking pages answer 200 whether or not the booking went through
+    static Recorder.Outcome bookingOutcome(HttpDriver.Response response) {
+        if (response.getStatus() == 429) {
+            return Recorder.Outcome.RATE_LIMITED;
+        }
+        if (!response.isOk()) {
+            return Recorder.Outcome.ERROR;
+        }
+        String body = response.getBody();
+        if (body.contains("Booking Successful")) {
+            return Recorder.Outcome.BOOKED;
+        }
+        if (body.contains("sold out")) {
+            return Recorder.Outcome.SOLD_OUT;
+        }
+        return Recorder.Outcome.REJECTED;
+    }
+
+    private static void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    /**
+     * The concerts a run books: a catalog for browsing, the concert going on sale and
+     * one to book during the warm-up. Ids are unique per run, so runs against a shared
+     * target do not see each other's bookings.
+     */
+    static final class Catalog {
+
+        private final List<String> concertIds;
+        private final String saleConcertId;
+        private final String warmupConcertId;
+
+        Catalog(List<String> concertIds, String saleConcertId, String warmupConcertId) {
+            this.concertIds = concertIds;
+            this.saleConcertId = saleConcertId;
+            this.warmupConcertId = warmupConcertId;
+        }
+
+        List<String> getConcertIds() {
+            return concertIds;
+        }
+
+        String getSaleConcertId() {
+            return saleConcertId;
+        }
+
+        String getWarmupConcertId() {
+            return warmupConcertId;
+        }
+    }
+}
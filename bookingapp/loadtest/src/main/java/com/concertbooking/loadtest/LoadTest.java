@@ -0,0 +1,235 @@
+package com.concertbooking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Runs one {@link Scenario} over HTTP against the application, started in this JVM unless
+ * {@code --target} names a running one, then checks the run: seats, error rate, soak drift
+ * and, when a baseline exists, throughput and latency against it. Writes the results as
+ * JSON and exits with status 1 if any check fails.
+ * <p>
+ * Usage: {@code LoadTest <browse|flash-sale|mixed|soak|slow-clients> [--option=value...]} with options
+ * <ul>
+ * <li>{@code --threads}, {@code --duration} (seconds), {@code --rate} (requests per second,
+ * 0 for closed-loop), {@code --slow-clients}: default per scenario</li>
+ * <li>{@code --warmup}: seconds before measuring, default 10</li>
+ * <li>{@code --concerts}: catalog size, default 200; {@code --seats}: seats of the concert
+ * going on sale, default 5000</li>
+ * <li>{@code --target}: base URL of a running instance, with its {@code --bulk-token} for
+ * creating the concerts</li>
+ * <li>{@code --label}: names the results file, default a timestamp; {@code --results}:
+ * directory, default loadtest/results</li>
+ * <li>{@code --baseline}: default loadtest/baselines/&lt;scenario&gt;.json;
+ * {@code --update-baseline} records this run as the baseline if its checks pass</li>
+ * <li>{@code --threshold}: percent a metric may get worse, default 10;
+ * {@code --max-error-rate}: percent of requests that may fail, default 1</li>
+ * </ul>
+ * Options with a dot, such as {@code --booking.pipeline.enabled=true}, are passed to the
+ * embedded application.
+ */
+public final class LoadTest {
+
+    private static final int CATALOG_SEATS = 100_000;
+    private static final int WARMUP_SEATS = 1_000_000;
+    private static final Set<String> OPTIONS = new HashSet<>(Arrays.asList("threads", "duration", "rate", "warmup",
+            "concerts", "seats", "target", "bulk-token", "label", "results", "baseline", "update-baseline",
+            "threshold", "max-error-rate", "slow-clients"));
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || args[0].startsWith("-")) {
+            System.err.println("Usage: LoadTest <browse|flash-sale|mixed|soak|slow-clients> [--option=value...]");
+            System.exit(2);
+        }
+        Scenario scenario = Scenario.of(args[0]);
+        Map<String, String> options = new LinkedHashMap<>();
+        Map<String, String> appProperties = new LinkedHashMap<>();
+        for (String arg : Arrays.asList(args).subList(1, args.length)) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument " + arg);
+            }
+            int equals = arg.indexOf('=');
+            String key = equals < 0 ? arg.substring(2) : arg.substring(2, equals);
+            String value = equals < 0 ? "true" : arg.substring(equals + 1);
+            if (key.contains(".")) {
+                appProperties.put(key, value);
+            } else if (OPTIONS.contains(key)) {
+                options.put(key, value);
+            } else {
+                throw new IllegalArgumentException("Unknown option --" + key);
+            }
+        }
+
+        int threads = Integer.parseInt(options.getOrDefault("threads", Integer.toString(scenario.getThreads())));
+        int duration = Integer.parseInt(options.getOrDefault("duration",
+                Integer.toString(scenario.getDurationSeconds())));
+        double rate = Double.parseDouble(options.getOrDefault("rate", Integer.toString(scenario.getRatePerSecond())));
+        int slowClients = Integer.parseInt(options.getOrDefault("slow-clients",
+                Integer.toString(scenario.getSlowClients())));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "10"));
+        int concerts = Integer.parseInt(options.getOrDefault("concerts", "200"));
+        int seats = Integer.parseInt(options.getOrDefault("seats", "5000"));
+        double threshold = Double.parseDouble(options.getOrDefault("threshold", "10"));
+        double maxErrorRate = Double.parseDouble(options.getOrDefault("max-error-rate", "1"));
+        String label = options.getOrDefault("label",
+                LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss")));
+        Path resultsDir = Paths.get(options.getOrDefault("results", "loadtest/results"));
+        Path baseline = Paths.get(options.getOrDefault("baseline",
+                "loadtest/baselines/" + scenario.getName() + ".json"));
+        String target = options.get("target");
+        String bulkToken = options.get("bulk-token");
+        if (target != null && bulkToken == null) {
+            throw new IllegalArgumentException("--target needs the instance's --bulk-token to create concerts");
+        }
+
+        // Otherwise only 5 idle connections are kept per host and the rest reconnect every request
+        System.setProperty("http.maxConnections", Integer.toString(threads));
+        ObjectMapper objectMapper = new ObjectMapper();
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        EmbeddedApp app = null;
+        int exitCode;
+        try {
+            if (target == null) {
+                bulkToken = UUID.randomUUID().toString();
+                app = EmbeddedApp.start(bulkToken, appProperties);
+            } else if (!appProperties.isEmpty()) {
+                System.out.println("Ignoring application properties " + appProperties.keySet() + " with --target");
+            }
+            HttpDriver driver = new HttpDriver(app != null ? app.getBaseUrl() : target);
+            LoadGenerator.Catalog catalog = createConcerts(driver, bulkToken, objectMapper, runId, concerts, seats);
+
+            System.out.printf("%s against %s: %d threads, %s, %d s warm-up, %d s measured%n", scenario.getName(),
+                    driver.getBaseUrl(), threads, rate > 0 ? rate + " req/s" : "closed loop", warmup, duration);
+            SlowClients slow = new SlowClients(driver.getBaseUrl(), catalog.getWarmupConcertId(), slowClients);
+            if (slowClients > 0) {
+                System.out.printf("%d slow clients trickling in booking forms%n", slowClients);
+            }
+            slow.start();
+            LoadGenerator generator = new LoadGenerator(driver, scenario, catalog, threads, rate, runId);
+            Recorder recorder;
+            try {
+                recorder = generator.run(warmup, duration, scenario.getReportIntervalSeconds(),
+                        LoadTest::printInterval);
+            } finally {
+                slow.stop();
+            }
+            if (generator.getFirstError() != null) {
+                System.out.println("First error: " + generator.getFirstError());
+            }
+            if (slow.getFirstError() != null) {
+                System.out.println("First slow client error: " + slow.getFirstError());
+            }
+            SeatCheck seatCheck = SeatCheck.run(driver, catalog, recorder, objectMapper);
+
+            Report report = Report.of(scenario, label, target != null ? target : "embedded", threads, rate,
+                    concerts, seats, generator, recorder, seatCheck, slow);
+            report.print(System.out);
+            Files.createDirectories(resultsDir);
+            Path resultFile = resultsDir.resolve(scenario.getName() + "-" + label + ".json");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(resultFile.toFile(), report.getValues());
+            System.out.println("Results written to " + resultFile);
+            exitCode = check(report, baseline, options.containsKey("update-baseline"), threshold, maxErrorRate,
+                    objectMapper);
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private static LoadGenerator.Catalog createConcerts(HttpDriver driver, String bulkToken,
+                                                        ObjectMapper objectMapper, String runId, int concerts,
+                                                        int saleSeats) throws IOException {
+        StringBuilder csv = new StringBuilder("id,name,artist,dateTime,venue,price,totalSeats\n");
+        LocalDate today = LocalDate.now();
+        List<String> concertIds = new ArrayList<>(concerts);
+        for (int i = 0; i < concerts; i++) {
+            String id = "LT-" + runId + "-" + i;
+            concertIds.add(id);
+            appendConcert(csv, id, "Load Test Concert " + i, "Artist " + (i % 97), today.plusDays(30 + i % 180),
+                    "Venue " + (i % 13), CATALOG_SEATS);
+        }
+        String saleConcertId = "LT-" + runId + "-SALE";
+        appendConcert(csv, saleConcertId, "Load Test On-Sale", "Headliner", today.plusDays(60), "Central Stadium",
+                saleSeats);
+        String warmupConcertId = "LT-" + runId + "-WARMUP";
+        appendConcert(csv, warmupConcertId, "Load Test Warm-Up", "Opening Act", today.plusDays(60), "Central Stadium",
+                WARMUP_SEATS);
+
+        HttpDriver.Response response = driver.post("/api/v1/bulk/concerts?format=csv", "text/csv",
+                csv.toString().getBytes(StandardCharsets.UTF_8), "X-Bulk-Token", bulkToken);
+        if (response.getStatus() != 200) {
+            throw new IllegalStateException("Creating the load-test concerts returned HTTP " + response.getStatus()
+                    + "; is the bulk token right?");
+        }
+        Map<?, ?> result = objectMapper.readValue(response.getBody(), Map.class);
+        if (((Number) result.get("imported")).intValue() != concerts + 2) {
+            throw new IllegalStateException("Not all load-test concerts were created: " + response.getBody());
+        }
+        return new LoadGenerator.Catalog(concertIds, saleConcertId, warmupConcertId);
+    }
+
+    private static void appendConcert(StringBuilder csv, String id, String name, String artist, LocalDate date,
+                                      String venue, int seats) {
+        csv.append(id).append(',').append(name).append(',').append(artist).append(',')
+                .append(date.atTime(20, 0)).append(',').append(venue).append(",50.0,").append(seats).append('\n');
+    }
+
+    private static int check(Report report, Path baseline, boolean updateBaseline, double threshold,
+                             double maxErrorRate, ObjectMapper objectMapper) throws IOException {
+        List<String> failures = new ArrayList<>(report.problems(maxErrorRate, threshold));
+        if (updateBaseline) {
+            if (failures.isEmpty()) {
+                Files.createDirectories(baseline.toAbsolutePath().getParent());
+                objectMapper.writerWithDefaultPrettyPrinter().writeValue(baseline.toFile(), report.getValues());
+                System.out.println("Baseline written to " + baseline);
+            } else {
+                System.out.println("Not recording a failing run as the baseline");
+            }
+        } else if (Files.exists(baseline)) {
+            failures.addAll(report.regressions(readReport(baseline, objectMapper), threshold, System.out));
+        } else {
+            System.out.println("No baseline at " + baseline + "; record one with --update-baseline");
+        }
+        if (failures.isEmpty()) {
+            System.out.println("\nPASSED");
+            return 0;
+        }
+        System.out.println("\nFAILED");
+        for (String failure : failures) {
+            System.out.println("  " + failure);
+        }
+        return 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Report readReport(Path path, ObjectMapper objectMapper) throws IOException {
+        return new Report(objectMapper.readValue(path.toFile(), Map.class));
+    }
+
+    private static void printInterval(Recorder.Interval interval) {
+        System.out.printf("%6d s %10.1f req/s   p50 %8.2f ms   p99 %8.2f ms   max %8.2f ms   %d errors%n",
+                interval.getElapsedSeconds(), interval.getThroughput(), interval.getP50Millis(),
+                interval.getP99Millis(), interval.getMaxMillis(), interval.getErrors());
+    }
+}
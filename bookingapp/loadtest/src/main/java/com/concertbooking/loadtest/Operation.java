@@ -0,0 +1,34 @@
+package com.concertbooking.loadtest;
+
+/**
+ * The requests a simulated visitor makes, in the order they appear in reports.
+ */
+enum Operation {
+    LIST_CONCERTS("GET /concerts"),
+    EVENT_DETAILS("GET /events/{id}"),
+    CONCERT_DETAILS("GET /concerts/{id}"),
+    BOOK("POST /concerts/book/{id}");
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    String getLabel() {
+        return label;
+    }
+
+    String path(String concertId) {
+        switch (this) {
+            case LIST_CONCERTS:
+                return "/concerts";
+            case EVENT_DETAILS:
+                return "/events/" + concertId;
+            case CONCERT_DETAILS:
+                return "/concerts/" + concertId;
+            default:
+                return "/concerts/book/" + concertId;
+        }
+    }
+}
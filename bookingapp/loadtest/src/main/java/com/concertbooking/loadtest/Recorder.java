@@ -0,0 +1,175 @@
+package com.concertbooking.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes of the measured requests, per {@link Operation}, and the seats
+ * visitors were told they got on each concert. Load threads record concurrently; the
+ * reporting thread closes an interval every few seconds, folding it into the totals.
+ */
+class Recorder {
+
+    enum Outcome {
+        OK, BOOKED, SOLD_OUT, REJECTED, RATE_LIMITED, ERROR
+    }
+
+    private final OperationStats[] operations = new OperationStats[Operation.values().length];
+    private final LongAdder[] bookingOutcomes = new LongAdder[Outcome.values().length];
+    private final LongAdder bookedSeats = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> confirmedSeats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> uncertainSeats = new ConcurrentHashMap<>();
+    private final List<Interval> intervals = new ArrayList<>();
+
+    Recorder() {
+        for (int i = 0; i < operations.length; i++) {
+            operations[i] = new OperationStats();
+        }
+        for (int i = 0; i < bookingOutcomes.length; i++) {
+            bookingOutcomes[i] = new LongAdder();
+        }
+    }
+
+    void record(Operation operation, long nanos, Outcome outcome, int seats) {
+        OperationStats stats = operations[operation.ordinal()];
+        stats.interval.record(nanos);
+        if (outcome == Outcome.ERROR) {
+            stats.intervalErrors.increment();
+        }
+        if (operation == Operation.BOOK) {
+            bookingOutcomes[outcome.ordinal()].increment();
+            if (outcome == Outcome.BOOKED) {
+                bookedSeats.add(seats);
+            }
+        }
+    }
+
+    /**
+     * Tracks the seats of every booking attempt, warm-up included, for checking against
+     * what the server sold: confirmed ones were on a success page, uncertain ones failed
+     * with an error or timeout and may or may not have gone through.
+     */
+    void recordSeats(String concertId, Outcome outcome, int seats) {
+        if (outcome == Outcome.BOOKED) {
+            confirmedSeats.computeIfAbsent(concertId, id -> new LongAdder()).add(seats);
+        } else if (outcome == Outcome.ERROR) {
+            uncertainSeats.computeIfAbsent(concertId, id -> new LongAdder()).add(seats);
+        }
+    }
+
+    /** Folds what was recorded since the last call into the totals and summarizes it. */
+    Interval closeInterval(long elapsedNanos, long lengthNanos) {
+        LatencyHistogram all = new LatencyHistogram();
+        long errors = 0;
+        for (OperationStats stats : operations) {
+            LatencyHistogram interval = new LatencyHistogram();
+            stats.interval.drainTo(interval);
+            interval.addTo(stats.total);
+            interval.addTo(all);
+            long intervalErrors = stats.intervalErrors.sumThenReset();
+            stats.errors += intervalErrors;
+            errors += intervalErrors;
+        }
+        Interval interval = new Interval(TimeUnit.NANOSECONDS.toSeconds(elapsedNanos), all.getCount(),
+                perSecond(all.getCount(), lengthNanos), errors, all.percentileMillis(50), all.percentileMillis(99),
+                all.maxMillis());
+        intervals.add(interval);
+        return interval;
+    }
+
+    LatencyHistogram getLatencies(Operation operation) {
+        return operations[operation.ordinal()].total;
+    }
+
+    long getErrors(Operation operation) {
+        return operations[operation.ordinal()].errors;
+    }
+
+    long getBookingOutcomes(Outcome outcome) {
+        return bookingOutcomes[outcome.ordinal()].sum();
+    }
+
+    long getBookedSeats() {
+        return bookedSeats.sum();
+    }
+
+    long getConfirmedSeats(String concertId) {
+        LongAdder seats = confirmedSeats.get(concertId);
+        return seats == null ? 0 : seats.sum();
+    }
+
+    long getUncertainSeats(String concertId) {
+        LongAdder seats = uncertainSeats.get(concertId);
+        return seats == null ? 0 : seats.sum();
+    }
+
+    List<Interval> getIntervals() {
+        return intervals;
+    }
+
+    static double perSecond(long count, long nanos) {
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+
+    private static final class OperationStats {
+        final LatencyHistogram interval = new LatencyHistogram();
+        final LatencyHistogram total = new LatencyHistogram();
+        final LongAdder intervalErrors = new LongAdder();
+        // Only touched by the reporting thread
+        long errors;
+    }
+
+    static final class Interval {
+
+        private final long elapsedSeconds;
+        private final long requests;
+        private final double throughput;
+        private final long errors;
+        private final double p50Millis;
+        private final double p99Millis;
+        private final double maxMillis;
+
+        Interval(long elapsedSeconds, long requests, double throughput, long errors, double p50Millis,
+                 double p99Millis, double maxMillis) {
+            this.elapsedSeconds = elapsedSeconds;
+            this.requests = requests;
+            this.throughput = throughput;
+            this.errors = errors;
+            this.p50Millis = p50Millis;
+            this.p99Millis = p99Millis;
+            this.maxMillis = maxMillis;
+        }
+
+        long getElapsedSeconds() {
+            return elapsedSeconds;
+        }
+
+        long getRequests() {
+            return requests;
+        }
+
+        double getThroughput() {
+            return throughput;
+        }
+
+        long getErrors() {
+            return errors;
+        }
+
+        double getP50Millis() {
+            return p50Millis;
+        }
+
+        double getP99Millis() {
+            return p99Millis;
+        }
+
+        double getMaxMillis() {
+            return maxMillis;
+        }
+    }
+}
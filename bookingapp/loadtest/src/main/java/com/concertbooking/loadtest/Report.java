@@ -0,0 +1,254 @@
+package com.concertbooking.loadtest;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The outcome of a run as nested maps, written as JSON to the results directory and
+ * read back as a baseline. Besides comparing with a baseline, every run is checked on
+ * its own: no seat may be oversold, lost or sold unconfirmed, errors must stay under a
+ * rate, and a soak's latency must not drift up between its first and last interval.
+ */
+final class Report {
+
+    // Latency changes smaller than this are noise on a shared machine, whatever the percentage
+    private static final double NOISE_FLOOR_MILLIS = 1.0;
+
+    private final Map<String, Object> values;
+
+    Report(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    static Report of(Scenario scenario, String label, String target, int threads, double ratePerSecond,
+                     int concerts, int saleSeats, LoadGenerator generator, Recorder recorder, SeatCheck seats,
+                     SlowClients slowClients) {
+        double seconds = generator.getMeasuredNanos() / 1e9;
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("scenario", scenario.getName());
+        values.put("label", label);
+        values.put("target", target);
+        values.put("threads", threads);
+        values.put("ratePerSecond", ratePerSecond);
+        values.put("concerts", concerts);
+        values.put("saleSeats", saleSeats);
+        values.put("slowClients", slowClients.getClients());
+        values.put("durationSeconds", round(seconds));
+
+        long requests = 0;
+        long errors = 0;
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram latencies = recorder.getLatencies(operation);
+            long count = latencies.getCount();
+            if (count == 0) {
+                continue;
+            }
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", count);
+            stats.put("errors", recorder.getErrors(operation));
+            stats.put("throughput", round(count / seconds));
+            stats.put("p50Ms", latencies.percentileMillis(50));
+            stats.put("p90Ms", latencies.percentileMillis(90));
+            stats.put("p99Ms", latencies.percentileMillis(99));
+            stats.put("p999Ms", latencies.percentileMillis(99.9));
+            stats.put("maxMs", latencies.maxMillis());
+            operations.put(operation.getLabel(), stats);
+            requests += count;
+            errors += recorder.getErrors(operation);
+        }
+        values.put("requests", requests);
+        values.put("errors", errors);
+        values.put("throughput", round(requests / seconds));
+        values.put("operations", operations);
+
+        Map<String, Object> bookings = new LinkedHashMap<>();
+        bookings.put("booked", recorder.getBookingOutcomes(Recorder.Outcome.BOOKED));
+        bookings.put("bookedSeats", recorder.getBookedSeats());
+        bookings.put("soldOut", recorder.getBookingOutcomes(Recorder.Outcome.SOLD_OUT));
+        bookings.put("rejected", recorder.getBookingOutcomes(Recorder.Outcome.REJECTED));
+        bookings.put("rateLimited", recorder.getBookingOutcomes(Recorder.Outcome.RATE_LIMITED));
+        bookings.put("errors", recorder.getBookingOutcomes(Recorder.Outcome.ERROR));
+        values.put("bookings", bookings);
+
+        Map<String, Object> seatCheck = new LinkedHashMap<>();
+        seatCheck.put("concertsChecked", seats.getConcertsChecked());
+        seatCheck.put("oversoldSeats", seats.getOversoldSeats());
+        seatCheck.put("lostSeats", seats.getLostSeats());
+        seatCheck.put("unconfirmedSeats", seats.getUnconfirmedSeats());
+        values.put("seats", seatCheck);
+
+        if (slowClients.getClients() > 0) {
+            Map<String, Object> slow = new LinkedHashMap<>();
+            slow.put("maxHeld", slowClients.getMaxHeld());
+            slow.put("completed", slowClients.getCompleted());
+            slow.put("errors", slowClients.getErrors());
+            values.put("slow", slow);
+        }
+
+        List<Map<String, Object>> intervals = new ArrayList<>();
+        for (Recorder.Interval interval : recorder.getIntervals()) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("elapsedSeconds", interval.getElapsedSeconds());
+            summary.put("requests", interval.getRequests());
+            summary.put("throughput", round(interval.getThroughput()));
+            summary.put("errors", interval.getErrors());
+            summary.put("p50Ms", interval.getP50Millis());
+            summary.put("p99Ms", interval.getP99Millis());
+            summary.put("maxMs", interval.getMaxMillis());
+            intervals.add(summary);
+        }
+        values.put("intervals", intervals);
+        return new Report(values);
+    }
+
+    Map<String, Object> getValues() {
+        return values;
+    }
+
+    void print(PrintStream out) {
+        out.printf("%n%s: %d requests in %.1f s, %.1f req/s, %d errors%n", values.get("scenario"),
+                number(values, "requests").longValue(), number(values, "durationSeconds").doubleValue(),
+                number(values, "throughput").doubleValue(), number(values, "errors").longValue());
+        out.printf("%-26s %10s %8s %10s %9s %9s %9s %9s %9s%n", "operation", "requests", "errors", "req/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Map<String, Object>> entry : operations(values).entrySet()) {
+            Map<String, Object> stats = entry.getValue();
+            out.printf("%-26s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", entry.getKey(),
+                    number(stats, "requests").longValue(), number(stats, "errors").longValue(),
+                    number(stats, "throughput").doubleValue(), number(stats, "p50Ms").doubleValue(),
+                    number(stats, "p90Ms").doubleValue(), number(stats, "p99Ms").doubleValue(),
+                    number(stats, "p999Ms").doubleValue(), number(stats, "maxMs").doubleValue());
+        }
+        Map<String, Object> bookings = section(values, "bookings");
+        out.printf("bookings: %d booked (%d seats), %d sold out, %d rejected, %d rate limited, %d errors%n",
+                number(bookings, "booked").longValue(), number(bookings, "bookedSeats").longValue(),
+                number(bookings, "soldOut").longValue(), number(bookings, "rejected").longValue(),
+                number(bookings, "rateLimited").longValue(), number(bookings, "errors").longValue());
+        Map<String, Object> seats = section(values, "seats");
+        out.printf("seats: %d concerts checked, %d oversold, %d lost, %d unconfirmed%n",
+                number(seats, "concertsChecked").longValue(), number(seats, "oversoldSeats").longValue(),
+                number(seats, "lostSeats").longValue(), number(seats, "unconfirmedSeats").longValue());
+        if (values.containsKey("slow")) {
+            Map<String, Object> slow = section(values, "slow");
+            out.printf("slow clients: %d, at most %d in progress, %d forms completed, %d errors%n",
+                    number(values, "slowClients").longValue(), number(slow, "maxHeld").longValue(),
+                    number(slow, "completed").longValue(), number(slow, "errors").longValue());
+        }
+    }
+
+    /** What is wrong with this run regardless of any baseline. */
+    List<String> problems(double maxErrorPercent, double thresholdPercent) {
+        List<String> problems = new ArrayList<>();
+        Map<String, Object> seats = section(values, "seats");
+        for (String key : new String[]{"oversoldSeats", "lostSeats", "unconfirmedSeats"}) {
+            long count = number(seats, key).longValue();
+            if (count > 0) {
+                problems.add(key + " is " + count);
+            }
+        }
+        long requests = number(values, "requests").longValue();
+        if (requests == 0) {
+            problems.add("no requests completed");
+        } else {
+            double errorPercent = number(values, "errors").doubleValue() * 100 / requests;
+            if (errorPercent > maxErrorPercent) {
+                problems.add(String.format("%.2f%% of requests failed, more than %.2f%%", errorPercent,
+                        maxErrorPercent));
+            }
+        }
+        List<Map<String, Object>> intervals = intervals(values);
+        if (Scenario.SOAK.getName().equals(values.get("scenario")) && intervals.size() >= 3) {
+            double first = number(intervals.get(0), "p99Ms").doubleValue();
+            // The last interval may be short and include requests cut off by the end of the run
+            double last = number(intervals.get(intervals.size() - 2), "p99Ms").doubleValue();
+            if (worse(first, last, thresholdPercent)) {
+                problems.add(String.format("p99 drifted from %.2f ms to %.2f ms over the soak", first, last));
+            }
+        }
+        return problems;
+    }
+
+    /**
+     * Prints this run next to {@code baseline} and returns the metrics that got worse by
+     * more than the threshold: throughput, and each operation's median and p99. Runs with
+     * a different scenario, thread count, rate, catalog, sale size or number of slow
+     * clients are not comparable and yield nothing.
+     */
+    List<String> regressions(Report baseline, double thresholdPercent, PrintStream out) {
+        List<String> regressions = new ArrayList<>();
+        Map<String, Object> base = baseline.values;
+        for (String setting : new String[]{"scenario", "threads", "ratePerSecond", "concerts", "saleSeats",
+                "slowClients"}) {
+            if (!Objects.equals(String.valueOf(base.get(setting)), String.valueOf(values.get(setting)))) {
+                out.printf("%nBaseline %s was run with %s=%s rather than %s; not comparing%n", base.get("label"),
+                        setting, base.get(setting), values.get(setting));
+                return regressions;
+            }
+        }
+        out.printf("%n%-36s %12s %12s %9s%n", "compared with " + base.get("label"), "baseline", "candidate",
+                "change");
+        compare("throughput req/s", number(base, "throughput").doubleValue(),
+                number(values, "throughput").doubleValue(), true, thresholdPercent, regressions, out);
+        Map<String, Map<String, Object>> baseOperations = operations(base);
+        for (Map.Entry<String, Map<String, Object>> entry : operations(values).entrySet()) {
+            Map<String, Object> baseStats = baseOperations.get(entry.getKey());
+            if (baseStats == null) {
+                continue;
+            }
+            for (String key : new String[]{"p50Ms", "p99Ms"}) {
+                compare(entry.getKey() + " " + key, number(baseStats, key).doubleValue(),
+                        number(entry.getValue(), key).doubleValue(), false, thresholdPercent, regressions, out);
+            }
+        }
+        return regressions;
+    }
+
+    private static void compare(String name, double base, double candidate, boolean higherIsBetter,
+                                double thresholdPercent, List<String> regressions, PrintStream out) {
+        boolean regressed = higherIsBetter
+                ? base > 0 && (base - candidate) / base * 100 > thresholdPercent
+                : worse(base, candidate, thresholdPercent);
+        double change = base == 0 ? 0 : (candidate - base) / base * 100;
+        out.printf("%-36s %12.2f %12.2f %+8.1f%%%s%n", name, base, candidate, change, regressed ? "  REGRESSION" : "");
+        if (regressed) {
+            regressions.add(String.format("%s went from %.2f to %.2f", name, base, candidate));
+        }
+    }
+
+    private static boolean worse(double baseMillis, double candidateMillis, double thresholdPercent) {
+        return candidateMillis - baseMillis > NOISE_FLOOR_MILLIS
+                && (baseMillis == 0 || (candidateMillis - baseMillis) / baseMillis * 100 > thresholdPercent);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+
+    private static Number number(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? (Number) value : 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> section(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Map ? (Map<String, Object>) value : new LinkedHashMap<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Map<String, Object>> operations(Map<String, Object> map) {
+        Object value = map.get("operations");
+        return value instanceof Map ? (Map<String, Map<String, Object>>) value : new LinkedHashMap<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> intervals(Map<String, Object> map) {
+        Object value = map.get("intervals");
+        return value instanceof List ? (List<Map<String, Object>>) value : new ArrayList<>();
+    }
+}
@@ -0,0 +1,103 @@
+package com.concertbooking.loadtest;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Scripted traffic shapes. Each has a mix of {@link Operation}s by weight, default thread
+ * count, duration and rate, and whether it targets a single concert going on sale or the
+ * whole catalog. A rate of 0 runs closed-loop: every thread sends its next request as soon
+ * as the previous one completes, which finds the maximum throughput. A fixed rate runs
+ * open-loop, and latency is measured from when a request was due rather than when it was
+ * sent, so a stalled server shows up as the queueing delay visitors would see. Slow
+ * clients, if any, run alongside the mix and tie up request threads without being measured.
+ */
+enum Scenario {
+    /** Visitors browsing listings and details ahead of an on-sale, without buying. */
+    BROWSE("browse", 64, 60, 0, 10, false, 0, 40, 40, 20, 0),
+    /** Everyone on one concert, refreshing its page and booking until it sells out and after. */
+    FLASH_SALE("flash-sale", 64, 30, 0, 5, true, 0, 0, 30, 0, 70),
+    /** Browsing with a share of bookings spread over the catalog. */
+    MIXED("mixed", 32, 60, 0, 10, false, 0, 25, 30, 25, 20),
+    /** The mixed traffic at a steady rate for half an hour, to show drift and leaks. */
+    SOAK("soak", 16, 1800, 200, 60, false, 0, 25, 30, 25, 20),
+    /**
+     * Browsing at a steady rate while more clients than Tomcat has worker threads trickle
+     * in booking forms, to compare the platform thread pool with virtual threads.
+     */
+    SLOW_CLIENTS("slow-clients", 32, 60, 200, 10, false, 400, 40, 40, 20, 0);
+
+    private final String name;
+    private final int threads;
+    private final int durationSeconds;
+    private final int ratePerSecond;
+    private final int reportIntervalSeconds;
+    private final boolean singleConcert;
+    private final int slowClients;
+    private final int[] cumulativeWeights;
+
+    Scenario(String name, int threads, int durationSeconds, int ratePerSecond, int reportIntervalSeconds,
+             boolean singleConcert, int slowClients, int... weights) {
+        this.name = name;
+        this.threads = threads;
+        this.durationSeconds = durationSeconds;
+        this.ratePerSecond = ratePerSecond;
+        this.reportIntervalSeconds = reportIntervalSeconds;
+        this.singleConcert = singleConcert;
+        this.slowClients = slowClients;
+        this.cumulativeWeights = new int[weights.length];
+        int total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getThreads() {
+        return threads;
+    }
+
+    int getDurationSeconds() {
+        return durationSeconds;
+    }
+
+    int getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    int getReportIntervalSeconds() {
+        return reportIntervalSeconds;
+    }
+
+    boolean isSingleConcert() {
+        return singleConcert;
+    }
+
+    int getSlowClients() {
+        return slowClients;
+    }
+
+    Operation nextOperation(Random random) {
+        int pick = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return Operation.values()[i];
+            }
+        }
+        throw new IllegalStateException("Weights do not cover " + pick);
+    }
+
+    static Scenario of(String name) {
+        for (Scenario scenario : values()) {
+            if (scenario.name.equals(name.toLowerCase(Locale.ROOT))) {
+                return scenario;
+            }
+        }
+        throw new IllegalArgumentException("Unknown scenario " + name + "; "
+                + "expected browse, flash-sale, mixed, soak or slow-clients");
+    }
+}
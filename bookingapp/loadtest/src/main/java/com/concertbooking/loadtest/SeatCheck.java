@@ -0,0 +1,71 @@
+package com.concertbooking.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the seats each concert of the run sold, by its availability, with what the
+ * visitors were told. Oversold seats were confirmed beyond a concert's capacity; lost
+ * seats were confirmed but are not counted as sold; unconfirmed seats are counted as sold
+ * though no visitor saw a success page, beyond the attempts that ended in an error.
+ */
+final class SeatCheck {
+
+    private final int concertsChecked;
+    private final long oversoldSeats;
+    private final long lostSeats;
+    private final long unconfirmedSeats;
+
+    private SeatCheck(int concertsChecked, long oversoldSeats, long lostSeats, long unconfirmedSeats) {
+        this.concertsChecked = concertsChecked;
+        this.oversoldSeats = oversoldSeats;
+        this.lostSeats = lostSeats;
+        this.unconfirmedSeats = unconfirmedSeats;
+    }
+
+    static SeatCheck run(HttpDriver driver, LoadGenerator.Catalog catalog, Recorder recorder,
+                         ObjectMapper objectMapper) throws IOException {
+        List<String> concertIds = new ArrayList<>(catalog.getConcertIds());
+        concertIds.add(catalog.getSaleConcertId());
+        concertIds.add(catalog.getWarmupConcertId());
+        long oversold = 0;
+        long lost = 0;
+        long unconfirmed = 0;
+        for (String concertId : concertIds) {
+            HttpDriver.Response response = driver.get("/api/v1/concerts/" + concertId + "/availability");
+            if (response.getStatus() != 200) {
+                throw new IOException("Availability of " + concertId + " returned HTTP " + response.getStatus());
+            }
+            Map<?, ?> availability = objectMapper.readValue(response.getBody(), Map.class);
+            long total = ((Number) availability.get("totalSeats")).longValue();
+            long remaining = ((Number) availability.get("remainingSeats")).longValue();
+            long sold = total - remaining;
+            long confirmed = recorder.getConfirmedSeats(concertId);
+            long uncertain = recorder.getUncertainSeats(concertId);
+            oversold += Math.max(Math.max(confirmed - total, -remaining), 0);
+            lost += Math.max(confirmed - sold, 0);
+            unconfirmed += Math.max(sold - confirmed - uncertain, 0);
+        }
+        return new SeatCheck(concertIds.size(), oversold, lost, unconfirmed);
+    }
+
+    int getConcertsChecked() {
+        return concertsChecked;
+    }
+
+    long getOversoldSeats() {
+        return oversoldSeats;
+    }
+
+    long getLostSeats() {
+        return lostSeats;
+    }
+
+    long getUnconfirmedSeats() {
+        return unconfirmedSeats;
+    }
+}
@@ -0,0 +1,161 @@
+package com.concertbooking.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Clients on bad connections: each posts a booking form whose body arrives a byte at a
+ * time, so the server holds a request thread for every one of them while it reads the
+ * form. The form asks for no seats, so the booking is rejected and nothing is sold.
+ * With Tomcat's platform thread pool, more slow clients than worker threads leave
+ * ordinary visitors queueing; on virtual threads they cost little more than a socket.
+ */
+class SlowClients {
+
+    private static final int TIMEOUT_MILLIS = 60_000;
+    // About 15 seconds for the whole form
+    private static final long BYTE_INTERVAL_MILLIS = 200;
+    private static final byte[] BODY = "customerName=Slow+Client&customerEmail=slow%40example.com&numberOfSeats=0"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private final URI baseUri;
+    private final String path;
+    private final int clients;
+    private final AtomicInteger held = new AtomicInteger();
+    private final AtomicInteger maxHeld = new AtomicInteger();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicReference<String> firstError = new AtomicReference<>();
+    private Thread[] threads = new Thread[0];
+
+    private volatile boolean stopped;
+
+    SlowClients(String baseUrl, String concertId, int clients) {
+        this.baseUri = URI.create(baseUrl);
+        this.path = "/concerts/book/" + concertId;
+        this.clients = clients;
+    }
+
+    void start() {
+        threads = new Thread[clients];
+        for (int i = 0; i < clients; i++) {
+            threads[i] = new Thread(this::run, "slow-" + (i + 1));
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    void stop() throws InterruptedException {
+        stopped = true;
+        for (Thread thread : threads) {
+            thread.join(TimeUnit.SECONDS.toMillis(5));
+        }
+    }
+
+    int getClients() {
+        return clients;
+    }
+
+    /** The most slow requests in progress at once. */
+    int getMaxHeld() {
+        return maxHeld.get();
+    }
+
+    long getCompleted() {
+        return completed.get();
+    }
+
+    long getErrors() {
+        return errors.get();
+    }
+
+    String getFirstError() {
+        return firstError.get();
+    }
+
+    private void run() {
+        while (!stopped) {
+            try {
+                int status = postSlowly();
+                if (stopped) {
+                    return;
+                }
+                if (status == 200) {
+                    completed.incrementAndGet();
+                } else {
+                    fail("slow booking returned HTTP " + status);
+                }
+            } catch (IOException e) {
+                if (!stopped) {
+                    fail("slow booking failed: " + e);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private int postSlowly() throws IOException, InterruptedException {
+        try (Socket socket = new Socket()) {
+            int port = baseUri.getPort() > 0 ? baseUri.getPort() : 80;
+            socket.connect(new InetSocketAddress(baseUri.getHost(), port), TIMEOUT_MILLIS);
+            socket.setSoTimeout(TIMEOUT_MILLIS);
+            OutputStream out = socket.getOutputStream();
+            String headers = "POST " + path + " HTTP/1.1\r\n"
+                    + "Host: " + baseUri.getHost() + ":" + port + "\r\n"
+                    + "Content-Type: application/x-www-form-urlencoded\r\n"
+                    + "Content-Length: " + BODY.length + "\r\n"
+                    + "Connection: close\r\n\r\n";
+            out.write(headers.getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            int now = held.incrementAndGet();
+            maxHeld.accumulateAndGet(now, Math::max);
+            try {
+                for (byte b : BODY) {
+                    if (stopped) {
+                        return 0;
+                    }
+                    TimeUnit.MILLISECONDS.sleep(BYTE_INTERVAL_MILLIS);
+                    out.write(b);
+                    out.flush();
+                }
+                return readStatus(socket.getInputStream());
+            } finally {
+                held.decrementAndGet();
+            }
+        }
+    }
+
+    // Reads the status line, then drains the response until the server closes the connection
+    private static int readStatus(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) >= 0 && c != '\n') {
+            line.append((char) c);
+        }
+        byte[] buffer = new byte[8192];
+        while (in.read(buffer) >= 0) {
+            // discard
+        }
+        String[] parts = line.toString().split(" ");
+        try {
+            return Integer.parseInt(parts[1]);
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IOException("Not an HTTP status line: " + line);
+        }
+    }
+
+    private void fail(String error) {
+        errors.incrementAndGet();
+        firstError.compareAndSet(null, error);
+    }
+}
@@ -0,0 +1,61 @@
+#!/bin/bash
+# Compares two JMH JSON result files benchmark by benchmark and exits non-zero when any
+# score got worse by more than the threshold (default 10%) beyond both runs' error.
+#
+# Usage: scripts/compare-benchmarks.sh [-t percent] baseline.json candidate.json
+# Example:
+#   LABEL=before scripts/run-benchmarks.sh LookupBenchmark
+#   ...change the code...
+#   LABEL=after scripts/run-benchmarks.sh LookupBenchmark
+#   scripts/compare-benchmarks.sh benchmarks/results/before.json benchmarks/results/after.json
+set -euo pipefail
+
+THRESHOLD=10
+
+while getopts "t:" opt; do
+    case $opt in
+        t) THRESHOLD=$OPTARG ;;
+        *) echo "Usage: $0 [-t percent] baseline.json candidate.json" >&2; exit 1 ;;
+    esac
+done
+shift $((OPTIND - 1))
+if [ $# -ne 2 ]; then
+    echo "Usage: $0 [-t percent] baseline.json candidate.json" >&2
+    exit 1
+fi
+
+# One line per benchmark: key (name plus parameters and threads), mode, score, error, unit
+flatten() {
+    jq -r '.[] | [
+        (.benchmark | sub("^com\\.concertbooking\\.benchmark\\."; ""))
+            + ((.params // {}) | to_entries | sort_by(.key) | map("," + .key + "=" + .value) | join(""))
+            + ",t=" + (.threads | tostring),
+        .mode,
+        .primaryMetric.score,
+        (.primaryMetric.scoreError | if . == "NaN" then 0 else . end),
+        .primaryMetric.scoreUnit
+    ] | @tsv' "$1" | sort
+}
+
+join -t $'\t' <(flatten "$1") <(flatten "$2") | awk -F '\t' -v threshold="$THRESHOLD" '
+    BEGIN {
+        printf "%-70s %14s %14s %9s  %s\n", "benchmark", "baseline", "candidate", "change", "unit"
+    }
+    {
+        key = $1; mode = $2; base = $3; baseError = $4; cand = $7; candError = $8; unit = $9
+        change = base == 0 ? 0 : (cand - base) / base * 100
+        # Throughput is better when higher; every other mode reports time, better when lower
+        worse = mode == "thrpt" ? base - cand : cand - base
+        flag = ""
+        if (worse > baseError + candError && base != 0 && worse / base * 100 > threshold) {
+            flag = "  REGRESSION"
+            regressions++
+        }
+        printf "%-70s %14.3f %14.3f %+8.1f%%  %s%s\n", key, base, cand, change, unit, flag
+    }
+    END {
+        if (regressions > 0) {
+            printf "\n%d benchmark(s) regressed by more than %s%%\n", regressions, threshold
+            exit 1
+        }
+    }'
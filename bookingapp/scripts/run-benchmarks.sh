@@ -0,0 +1,19 @@
+#!/bin/bash
+# Builds the JMH benchmark module and runs it, writing JSON results for later comparison
+# with scripts/compare-benchmarks.sh. Extra arguments go to JMH.
+#
+# Usage: scripts/run-benchmarks.sh [jmh args...]
+# Examples:
+#   scripts/run-benchmarks.sh                                  # everything
+#   scripts/run-benchmarks.sh LookupBenchmark -p concerts=100  # one benchmark, one parameter value
+#   scripts/run-benchmarks.sh -lp                              # list benchmarks and parameters
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+RESULTS_DIR=${RESULTS_DIR:-benchmarks/results}
+LABEL=${LABEL:-$(git rev-parse --short HEAD 2>/dev/null || date +%Y%m%d%H%M%S)}
+
+mvn -B -q -f benchmarks/pom.xml package -DskipTests
+mkdir -p "$RESULTS_DIR"
+java -jar benchmarks/target/benchmarks.jar -rf json -rff "$RESULTS_DIR/$LABEL.json" "$@"
+echo "Results written to $RESULTS_DIR/$LABEL.json"
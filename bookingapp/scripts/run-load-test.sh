@@ -0,0 +1,27 @@
+#!/bin/bash
+# Builds the load-test module and runs one scenario over HTTP, against an instance started in
+# the same JVM unless --target is given. Results go to loadtest/results/<scenario>-<commit>.json
+# and are compared with loadtest/baselines/<scenario>.json; exits non-zero when seats were
+# oversold or lost, too many requests failed, or throughput or latency regressed by more than
+# the threshold (10% by default). Extra arguments go to the load test.
+#
+# Usage: scripts/run-load-test.sh <browse|flash-sale|mixed|soak|slow-clients> [--option=value...]
+# Examples:
+#   scripts/run-load-test.sh flash-sale --update-baseline           # record the baseline
+#   scripts/run-load-test.sh flash-sale                             # compare with it
+#   scripts/run-load-test.sh mixed --booking.pipeline.enabled=true  # with an application property
+#   scripts/run-load-test.sh soak --target=http://staging:8080 --bulk-token="$BOOKING_BULK_TOKEN"
+set -euo pipefail
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <browse|flash-sale|mixed|soak|slow-clients> [--option=value...]" >&2
+    exit 1
+fi
+SCENARIO=$1
+shift
+
+cd "$(dirname "$0")/.."
+LABEL=${LABEL:-$(git rev-parse --short HEAD 2>/dev/null || date +%Y%m%d%H%M%S)}
+
+mvn -B -q -f loadtest/pom.xml package -DskipTests
+java ${LOADTEST_JAVA_OPTS:--Xms2g -Xmx2g} -jar loadtest/target/loadtest.jar "$SCENARIO" --label="$LABEL" "$@"
@@ -0,0 +1,44 @@
+#!/bin/bash
+# Starts a scale-out cluster of local JVMs, one per node, on consecutive ports.
+# Node i serves http://localhost:$((BASE_PORT + i)) with metrics on $((BASE_PORT + 1000 + i)).
+# Stops all nodes on Ctrl-C.
+#
+# Usage: scripts/run-local-cluster.sh [nodes]
+# Example:
+#   mvn -B package -DskipTests
+#   scripts/run-local-cluster.sh 3
+set -euo pipefail
+
+NODES=${1:-3}
+BASE_PORT=${BASE_PORT:-8080}
+JAR=${JAR:-target/concert-booking-app-1.0-SNAPSHOT.jar}
+SECRET=${BOOKING_CLUSTER_SECRET:-local-cluster-secret}
+LOG_DIR=${LOG_DIR:-target/cluster}
+
+cd "$(dirname "$0")/.."
+if [ ! -f "$JAR" ]; then
+    echo "$JAR not found; build it with: mvn -B package -DskipTests" >&2
+    exit 1
+fi
+mkdir -p "$LOG_DIR"
+
+node_list=""
+for ((i = 0; i < NODES; i++)); do
+    node_list+="${node_list:+,}node-$i=http://localhost:$((BASE_PORT + i))"
+done
+
+pids=()
+trap 'kill "${pids[@]}" 2>/dev/null; wait' EXIT INT TERM
+for ((i = 0; i < NODES; i++)); do
+    SERVER_PORT=$((BASE_PORT + i)) \
+    MANAGEMENT_PORT=$((BASE_PORT + 1000 + i)) \
+    BOOKING_CLUSTER_ENABLED=true \
+    BOOKING_CLUSTER_NODE_ID="node-$i" \
+    BOOKING_CLUSTER_NODES="$node_list" \
+    BOOKING_CLUSTER_SECRET="$SECRET" \
+    BOOKING_JOURNAL_DIR="$LOG_DIR/node-$i/journal" \
+        java -jar "$JAR" > "$LOG_DIR/node-$i.log" 2>&1 &
+    pids+=($!)
+    echo "node-$i: http://localhost:$((BASE_PORT + i)) (log $LOG_DIR/node-$i.log)"
+done
+wait
@@ -0,0 +1,65 @@
+#!/bin/bash
+# Measures time from container start to the first successful /concerts response.
+#
+# Usage: scripts/startup-benchmark.sh [-n runs] image [image...]
+# Example:
+#   docker build -t concert-booking-app .
+#   docker build -f Dockerfile.java21 -t concert-booking-app:java21 .
+#   docker build -f Dockerfile.cds -t concert-booking-app:cds .
+#   scripts/startup-benchmark.sh -n 5 concert-booking-app concert-booking-app:java21 concert-booking-app:cds
+set -euo pipefail
+
+RUNS=5
+PORT=${PORT:-18080}
+TIMEOUT_SECONDS=${TIMEOUT_SECONDS:-120}
+# Match the Container Apps sizing so results reflect production cold starts
+CPUS=${CPUS:-0.5}
+MEMORY=${MEMORY:-1g}
+
+while getopts "n:" opt; do
+    case $opt in
+        n) RUNS=$OPTARG ;;
+        *) echo "Usage: $0 [-n runs] image [image...]" >&2; exit 1 ;;
+    esac
+done
+shift $((OPTIND - 1))
+if [ $# -eq 0 ]; then
+    echo "Usage: $0 [-n runs] image [image...]" >&2
+    exit 1
+fi
+
+now_ms() {
+    echo $(($(date +%s%N) / 1000000))
+}
+
+measure() {
+    local image=$1
+    local name="startup-benchmark-$$"
+    local start
+    start=$(now_ms)
+    docker run -d --rm --name "$name" --cpus "$CPUS" --memory "$MEMORY" -p "$PORT:8080" "$image" > /dev/null
+    local deadline=$((start + TIMEOUT_SECONDS * 1000))
+    while true; do
+        if curl -fs -o /dev/null "http://localhost:$PORT/concerts"; then
+            echo $(($(now_ms) - start))
+            break
+        fi
+        if [ "$(now_ms)" -gt "$deadline" ]; then
+            echo "timeout"
+            break
+        fi
+        sleep 0.05
+    done
+    docker stop "$name" > /dev/null
+}
+
+printf "%-40s %s\n" "image" "time to first /concerts (ms), $RUNS runs, $CPUS CPU / $MEMORY"
+for image in "$@"; do
+    results=()
+    for ((i = 0; i < RUNS; i++)); do
+        results+=("$(measure "$image")")
+    done
+    sorted=$(printf "%s\n" "${results[@]}" | sort -n | tr '\n' ' ')
+    median=$(printf "%s\n" "${results[@]}" | sort -n | sed -n "$(((RUNS + 1) / 2))p")
+    printf "%-40s median %s  (all: %s)\n" "$image" "$median" "$sorted"
+done
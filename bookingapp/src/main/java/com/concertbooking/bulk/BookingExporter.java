@@ -0,0 +1,65 @@
+package com.concertbooking.bulk;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.repository.Page;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * Streams bookings out as CSV or JSON lines, one page of the repository at a time. A
+ * page is read under the repository lock and written after it is released, so a slow
+ * reader never holds up bookings, and only one page is in memory at once.
+ */
+@Service
+public class BookingExporter {
+
+    private static final int PAGE_SIZE = 1024;
+
+    private final BookingRepository bookingRepository;
+
+    @Autowired
+    public BookingExporter(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    /**
+     * Writes the bookings made in {@code [from, to)} for one concert, or for all when
+     * {@code concertId} is null, and returns how many were written. Null bounds are
+     * open. The stream is flushed but not closed.
+     */
+    public long export(OutputStream out, BulkFormat format, String concertId, LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        StringBuilder buffer = new StringBuilder(PAGE_SIZE * 160);
+        if (format == BulkFormat.CSV) {
+            BulkCodec.appendCsvHeader(buffer);
+        }
+        long exported = 0;
+        long cursor = 0;
+        do {
+            Page<Booking> page = bookingRepository.findByBookingTime(concertId, from, to, cursor, PAGE_SIZE);
+            for (Booking booking : page.getItems()) {
+                if (format == BulkFormat.CSV) {
+                    BulkCodec.appendCsv(buffer, booking);
+                } else {
+                    BulkCodec.appendJson(buffer, booking);
+                }
+            }
+            exported += page.getItems().size();
+            writer.append(buffer);
+            buffer.setLength(0);
+            cursor = page.getNextCursor();
+        } while (cursor >= 0);
+        writer.flush();
+        return exported;
+    }
+}
@@ -0,0 +1,178 @@
+package com.concertbooking.bulk;
+
+import com.concertbooking.model.Booking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes single CSV and JSON lines. CSV fields may be quoted, with doubled
+ * quotes inside, but a quoted field cannot span lines. Bookings are written by hand
+ * into a reused buffer rather than through an object mapper, as export runs at
+ * hundreds of thousands of records a second.
+ */
+final class BulkCodec {
+
+    static final String[] BOOKING_COLUMNS = {
+            "id", "concertId", "customerName", "customerEmail", "numberOfSeats", "bookingTime", "totalPrice", "seatIds"
+    };
+
+    private BulkCodec() {
+    }
+
+    static String[] parseCsvLine(String line) {
+        if (line.indexOf('"') < 0) {
+            return splitUnquoted(line);
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields.toArray(new String[0]);
+    }
+
+    // Most lines have no quotes, and splitting on commas is then all there is to do
+    private static String[] splitUnquoted(String line) {
+        int count = 1;
+        for (int i = line.indexOf(','); i >= 0; i = line.indexOf(',', i + 1)) {
+            count++;
+        }
+        String[] fields = new String[count];
+        int start = 0;
+        for (int i = 0; i < count - 1; i++) {
+            int end = line.indexOf(',', start);
+            fields[i] = line.substring(start, end);
+            start = end + 1;
+        }
+        fields[count - 1] = line.substring(start);
+        return fields;
+    }
+
+    static void appendCsvHeader(StringBuilder out) {
+        for (int i = 0; i < BOOKING_COLUMNS.length; i++) {
+            if (i > 0) {
+                out.append(',');
+            }
+            out.append(BOOKING_COLUMNS[i]);
+        }
+        out.append('\n');
+    }
+
+    static void appendCsv(StringBuilder out, Booking booking) {
+        appendCsvField(out, booking.getId()).append(',');
+        appendCsvField(out, booking.getConcertId()).append(',');
+        appendCsvField(out, booking.getCustomerName()).append(',');
+        appendCsvField(out, booking.getCustomerEmail()).append(',');
+        out.append(booking.getNumberOfSeats()).append(',');
+        out.append(booking.getBookingTime()).append(',');
+        appendPrice(out, booking.getTotalPrice()).append(',');
+        appendCsvField(out, String.join(" ", booking.getSeatIds())).append('\n');
+    }
+
+    static void appendJson(StringBuilder out, Booking booking) {
+        out.append("{\"id\":");
+        appendJsonString(out, booking.getId());
+        out.append(",\"concertId\":");
+        appendJsonString(out, booking.getConcertId());
+        out.append(",\"customerName\":");
+        appendJsonString(out, booking.getCustomerName());
+        out.append(",\"customerEmail\":");
+        appendJsonString(out, booking.getCustomerEmail());
+        out.append(",\"numberOfSeats\":").append(booking.getNumberOfSeats());
+        out.append(",\"bookingTime\":\"").append(booking.getBookingTime()).append('"');
+        out.append(",\"totalPrice\":");
+        appendPrice(out, booking.getTotalPrice());
+        if (!booking.getSeatIds().isEmpty()) {
+            out.append(",\"seatIds\":[");
+            for (int i = 0; i < booking.getSeatIds().size(); i++) {
+                if (i > 0) {
+                    out.append(',');
+                }
+                appendJsonString(out, booking.getSeatIds().get(i));
+            }
+            out.append(']');
+        }
+        out.append("}\n");
+    }
+
+    private static StringBuilder appendCsvField(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            return out.append(value);
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            // Line breaks would split the record, as fields are read line by line
+            if (c == '\n' || c == '\r') {
+                out.append(' ');
+            } else {
+                if (c == '"') {
+                    out.append('"');
+                }
+                out.append(c);
+            }
+        }
+        return out.append('"');
+    }
+
+    private static void appendJsonString(StringBuilder out, String value) {
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    // Prices are whole cents, so two decimals are exact
+    private static StringBuilder appendPrice(StringBuilder out, double price) {
+        long cents = Math.round(price * 100);
+        out.append(cents / 100).append('.');
+        long fraction = Math.abs(cents % 100);
+        if (fraction < 10) {
+            out.append('0');
+        }
+        return out.append(fraction);
+    }
+}
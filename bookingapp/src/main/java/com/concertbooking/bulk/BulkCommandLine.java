@@ -0,0 +1,95 @@
+package com.concertbooking.bulk;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+
+/**
+ * Bulk import and export from files at startup, after any journal recovery, e.g.
+ * {@code --booking.bulk.import-concerts=concerts.csv}. The format follows the file
+ * extension ({@code .jsonl} or {@code .ndjson} for JSON lines, anything else CSV).
+ * With {@code booking.bulk.exit=true} the application exits once done instead of
+ * serving requests.
+ */
+@Component
+public class BulkCommandLine implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkCommandLine.class);
+
+    private final BulkImporter importer;
+    private final BookingExporter exporter;
+    private final ApplicationContext context;
+    private final String importConcerts;
+    private final String importBookings;
+    private final String exportBookings;
+    private final String exportConcertId;
+    private final String exportFrom;
+    private final String exportTo;
+    private final boolean exit;
+
+    @Autowired
+    public BulkCommandLine(BulkImporter importer, BookingExporter exporter, ApplicationContext context,
+                           @Value("${booking.bulk.import-concerts:}") String importConcerts,
+                           @Value("${booking.bulk.import-bookings:}") String importBookings,
+                           @Value("${booking.bulk.export-bookings:}") String exportBookings,
+                           @Value("${booking.bulk.export-concert-id:}") String exportConcertId,
+                           @Value("${booking.bulk.export-from:}") String exportFrom,
+                           @Value("${booking.bulk.export-to:}") String exportTo,
+                           @Value("${booking.bulk.exit:false}") boolean exit) {
+        this.importer = importer;
+        this.exporter = exporter;
+        this.context = context;
+        this.importConcerts = importConcerts;
+        this.importBookings = importBookings;
+        this.exportBookings = exportBookings;
+        this.exportConcertId = exportConcertId;
+        this.exportFrom = exportFrom;
+        this.exportTo = exportTo;
+        this.exit = exit;
+    }
+
+    @Override
+    public void run(String... args) throws IOException {
+        // Concerts first, so bookings in the same run can refer to them
+        if (!importConcerts.isEmpty()) {
+            try (InputStream in = Files.newInputStream(Paths.get(importConcerts))) {
+                ImportResult result = importer.importConcerts(in, BulkFormat.ofFileName(importConcerts));
+                log.info("Concerts from {}: {}", importConcerts, result);
+                result.getErrors().forEach(error -> log.warn("Rejected concert at {}", error));
+            }
+        }
+        if (!importBookings.isEmpty()) {
+            try (InputStream in = Files.newInputStream(Paths.get(importBookings))) {
+                ImportResult result = importer.importBookings(in, BulkFormat.ofFileName(importBookings));
+                log.info("Bookings from {}: {}", importBookings, result);
+                result.getErrors().forEach(error -> log.warn("Rejected booking at {}", error));
+            }
+        }
+        if (!exportBookings.isEmpty()) {
+            Path path = Paths.get(exportBookings);
+            try (OutputStream out = Files.newOutputStream(path)) {
+                long exported = exporter.export(out, BulkFormat.ofFileName(exportBookings),
+                        exportConcertId.isEmpty() ? null : exportConcertId,
+                        exportFrom.isEmpty() ? null : LocalDateTime.parse(exportFrom),
+                        exportTo.isEmpty() ? null : LocalDateTime.parse(exportTo));
+                log.info("Exported {} bookings to {}", exported, path);
+            }
+        }
+        if (exit) {
+            System.exit(SpringApplication.exit(context));
+        }
+    }
+}
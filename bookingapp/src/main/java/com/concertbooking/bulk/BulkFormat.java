@@ -0,0 +1,56 @@
+package com.concertbooking.bulk;
+
+import java.util.Locale;
+
+/**
+ * Record formats for bulk import and export: CSV with a header line naming the
+ * columns, or JSON lines with one object per line.
+ */
+public enum BulkFormat {
+    CSV("text/csv", "csv"),
+    JSON_LINES("application/x-ndjson", "jsonl");
+
+    private final String contentType;
+    private final String extension;
+
+    BulkFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * The format named by a {@code format} parameter, or else by the content type, or
+     * else CSV.
+     */
+    public static BulkFormat of(String format, String contentType) {
+        if (format != null && !format.isEmpty()) {
+            switch (format.toLowerCase(Locale.ROOT)) {
+                case "csv":
+                    return CSV;
+                case "jsonl":
+                case "ndjson":
+                    return JSON_LINES;
+                default:
+                    throw new IllegalArgumentException("format must be csv or jsonl");
+            }
+        }
+        // Covers application/x-ndjson and application/jsonl as well
+        if (contentType != null && contentType.contains("json")) {
+            return JSON_LINES;
+        }
+        return CSV;
+    }
+
+    public static BulkFormat ofFileName(String fileName) {
+        String lower = fileName.toLowerCase(Locale.ROOT);
+        return lower.endsWith(".jsonl") || lower.endsWith(".ndjson") ? JSON_LINES : CSV;
+    }
+}
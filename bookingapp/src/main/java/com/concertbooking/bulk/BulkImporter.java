@@ -0,0 +1,314 @@
+package com.concertbooking.bulk;
+
+import com.concertbooking.cluster.ClusterService;
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads concerts and bookings from CSV or JSON lines as they stream in. The calling
+ * thread only splits the input into chunks of lines; parsing and adding the records
+ * run on a pool, and at most two chunks per thread are in flight, so memory stays
+ * constant whatever the size of the input. Records within a chunk are applied in
+ * order, but chunks may finish out of order. A bad record is reported with its line
+ * number and does not stop the import.
+ * <p>
+ * Concert columns: {@code id, name, artist, dateTime, venue, price, totalSeats}.
+ * Booking columns: {@code concertId, customerName, customerEmail, numberOfSeats} and
+ * optionally {@code id} and {@code bookingTime}; other columns, such as those of an
+ * export, are ignored.
+ */
+@Service
+public class BulkImporter {
+
+    private interface RecordParser<T> {
+        T parse(Fields fields);
+    }
+
+    private interface RecordSink<T> {
+        void accept(List<Parsed<T>> records, ImportResult result);
+    }
+
+    private interface Fields {
+        String optional(String name);
+
+        default String required(String name) {
+            String value = optional(name);
+            if (value == null) {
+                throw new IllegalArgumentException("Missing " + name);
+            }
+            return value;
+        }
+    }
+
+    private final BookingService bookingService;
+    private final ClusterService clusterService;
+    private final ObjectMapper objectMapper;
+    private final int threads;
+    private final int chunkLines;
+    private final ExecutorService executor;
+
+    @Autowired
+    public BulkImporter(BookingService bookingService, ClusterService clusterService, ObjectMapper objectMapper,
+                        @Value("${booking.bulk.threads:0}") int threads,
+                        @Value("${booking.bulk.chunk-lines:2048}") int chunkLines) {
+        this.bookingService = bookingService;
+        this.clusterService = clusterService;
+        this.objectMapper = objectMapper;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkLines = Math.max(chunkLines, 1);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(this.threads, runnable -> {
+            Thread thread = new Thread(runnable, "bulk-import-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ImportResult importConcerts(InputStream in, BulkFormat format) throws IOException {
+        return run(in, format, this::parseConcert, this::addConcerts);
+    }
+
+    public ImportResult importBookings(InputStream in, BulkFormat format) throws IOException {
+        return run(in, format, this::parseBooking, this::addBookings);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> ImportResult run(InputStream in, BulkFormat format, RecordParser<T> parser, RecordSink<T> sink)
+            throws IOException {
+        long started = System.nanoTime();
+        ImportResult result = new ImportResult();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+        Map<String, Integer> header = null;
+        long lineNumber = 0;
+        if (format == BulkFormat.CSV) {
+            String line = reader.readLine();
+            if (line == null) {
+                return result;
+            }
+            lineNumber++;
+            header = parseHeader(line);
+        }
+
+        int permits = threads * 2;
+        Semaphore inFlight = new Semaphore(permits);
+        try {
+            String[] lines = new String[chunkLines];
+            int count = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines[count++] = line;
+                if (count == lines.length) {
+                    submit(new Chunk<>(lines, count, lineNumber + 1, header, parser, sink, result), inFlight);
+                    lineNumber += count;
+                    lines = new String[chunkLines];
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                submit(new Chunk<>(lines, count, lineNumber + 1, header, parser, sink, result), inFlight);
+            }
+        } finally {
+            // Every chunk gives its permit back when done, so this waits for all of them
+            inFlight.acquireUninterruptibly(permits);
+        }
+        result.finished(System.nanoTime() - started);
+        return result;
+    }
+
+    private void submit(Chunk<?> chunk, Semaphore inFlight) {
+        inFlight.acquireUninterruptibly();
+        try {
+            executor.execute(() -> {
+                try {
+                    chunk.run();
+                } finally {
+                    inFlight.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    private static Map<String, Integer> parseHeader(String line) {
+        // A byte order mark from spreadsheet exports would otherwise stick to the first column
+        if (!line.isEmpty() && line.charAt(0) == '\uFEFF') {
+            line = line.substring(1);
+        }
+        String[] columns = BulkCodec.parseCsvLine(line);
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < columns.length; i++) {
+            header.put(columns[i].trim(), i);
+        }
+        return header;
+    }
+
+    private Concert parseConcert(Fields fields) {
+        return new Concert(fields.required("id"), fields.required("name"), fields.required("artist"),
+                LocalDateTime.parse(fields.required("dateTime")), fields.required("venue"),
+                Double.parseDouble(fields.required("price")), Integer.parseInt(fields.required("totalSeats")));
+    }
+
+    private Booking parseBooking(Fields fields) {
+        String concertId = fields.required("concertId");
+        int numberOfSeats = Integer.parseInt(fields.required("numberOfSeats"));
+        if (numberOfSeats <= 0) {
+            throw new IllegalArgumentException("Number of seats must be at least 1");
+        }
+        String id = fields.optional("id");
+        String bookingTime = fields.optional("bookingTime");
+        Optional<Concert> concert = bookingService.getConcertById(concertId);
+        double price = concert.isPresent() ? concert.get().getPrice() * numberOfSeats : 0;
+        return new Booking(id != null ? id : UUID.randomUUID().toString(), concertId, fields.required("customerName"),
+                fields.required("customerEmail"), numberOfSeats,
+                bookingTime != null ? LocalDateTime.parse(bookingTime) : LocalDateTime.now(), price,
+                Collections.<String>emptyList(), Booking.newCancelCode());
+    }
+
+    private void addConcerts(List<Parsed<Concert>> concerts, ImportResult result) {
+        for (Parsed<Concert> concert : concerts) {
+            try {
+                bookingService.addConcert(concert.value);
+                result.imported(1);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                result.rejected(concert.lineNumber, e.getMessage());
+            }
+        }
+    }
+
+    // One service call per concert in the chunk, so each gets a single journal flush
+    private void addBookings(List<Parsed<Booking>> bookings, ImportResult result) {
+        Map<String, List<Booking>> byConcert = new LinkedHashMap<>();
+        Map<Booking, Long> lineNumbers = new IdentityHashMap<>();
+        for (Parsed<Booking> booking : bookings) {
+            byConcert.computeIfAbsent(booking.value.getConcertId(), id -> new ArrayList<>()).add(booking.value);
+            lineNumbers.put(booking.value, booking.lineNumber);
+        }
+        for (Map.Entry<String, List<Booking>> concert : byConcert.entrySet()) {
+            if (!clusterService.isLocal(concert.getKey())) {
+                String reason = "Concert " + concert.getKey() + " is owned by node "
+                        + clusterService.getOwner(concert.getKey()).getId();
+                concert.getValue().forEach(booking -> result.rejected(lineNumbers.get(booking), reason));
+                continue;
+            }
+            List<Booking> added = bookingService.importBookings(concert.getKey(), concert.getValue(),
+                    (booking, e) -> result.rejected(lineNumbers.get(booking), e.getMessage()));
+            result.imported(added.size());
+        }
+    }
+
+    private static final class Parsed<T> {
+        private final long lineNumber;
+        private final T value;
+
+        Parsed(long lineNumber, T value) {
+            this.lineNumber = lineNumber;
+            this.value = value;
+        }
+    }
+
+    private final class Chunk<T> implements Runnable {
+        private final String[] lines;
+        private final int count;
+        private final long firstLineNumber;
+        private final Map<String, Integer> header;
+        private final RecordParser<T> parser;
+        private final RecordSink<T> sink;
+        private final ImportResult result;
+
+        Chunk(String[] lines, int count, long firstLineNumber, Map<String, Integer> header, RecordParser<T> parser,
+              RecordSink<T> sink, ImportResult result) {
+            this.lines = lines;
+            this.count = count;
+            this.firstLineNumber = firstLineNumber;
+            this.header = header;
+            this.parser = parser;
+            this.sink = sink;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            List<Parsed<T>> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String line = lines[i];
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    records.add(new Parsed<>(firstLineNumber + i, parser.parse(fields(line))));
+                } catch (RuntimeException e) {
+                    result.rejected(firstLineNumber + i, e.getMessage() != null ? e.getMessage() : e.toString());
+                }
+            }
+            try {
+                sink.accept(records, result);
+            } catch (RuntimeException e) {
+                records.forEach(record -> result.rejected(record.lineNumber, e.toString()));
+            }
+        }
+
+        private Fields fields(String line) {
+            if (header == null) {
+                return jsonFields(line);
+            }
+            String[] values = BulkCodec.parseCsvLine(line);
+            return name -> {
+                Integer index = header.get(name);
+                if (index == null || index >= values.length) {
+                    return null;
+                }
+                String value = values[index].trim();
+                return value.isEmpty() ? null : value;
+            };
+        }
+
+        @SuppressWarnings("unchecked")
+        private Fields jsonFields(String line) {
+            Map<String, Object> values;
+            try {
+                values = objectMapper.readValue(line, Map.class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Invalid JSON: " + e.getMessage());
+            }
+            if (values == null) {
+                throw new IllegalArgumentException("Invalid JSON: not an object");
+            }
+            return name -> {
+                Object value = values.get(name);
+                return value != null ? value.toString() : null;
+            };
+        }
+    }
+}
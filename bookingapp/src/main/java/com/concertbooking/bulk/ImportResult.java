@@ -0,0 +1,62 @@
+package com.concertbooking.bulk;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outcome of one bulk import, updated by the parsing threads as they go. Only the
+ * first few rejected lines are kept with their reasons, so a bad file of any size
+ * costs bounded memory.
+ */
+public class ImportResult {
+
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    private final AtomicLong imported = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final List<String> errors = new ArrayList<>();
+    private volatile long elapsedNanos;
+
+    void imported(long count) {
+        imported.addAndGet(count);
+    }
+
+    void rejected(long lineNumber, String reason) {
+        rejected.incrementAndGet();
+        synchronized (errors) {
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add("line " + lineNumber + ": " + reason);
+            }
+        }
+    }
+
+    void finished(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getImported() {
+        return imported.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return Collections.unmodifiableList(new ArrayList<>(errors));
+        }
+    }
+
+    public long getElapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return getImported() + " imported, " + getRejected() + " rejected in " + getElapsedMillis() + " ms";
+    }
+}
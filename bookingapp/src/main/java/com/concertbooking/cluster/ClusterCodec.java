@@ -0,0 +1,65 @@
+package com.concertbooking.cluster;
+
+import com.concertbooking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON shapes exchanged between cluster nodes, as maps for the HTTP message converters.
+ */
+public final class ClusterCodec {
+
+    private ClusterCodec() {
+    }
+
+    public static Map<String, Object> toMap(Booking booking) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("id", booking.getId());
+        json.put("concertId", booking.getConcertId());
+        json.put("customerName", booking.getCustomerName());
+        json.put("customerEmail", booking.getCustomerEmail());
+        json.put("numberOfSeats", booking.getNumberOfSeats());
+        json.put("bookingTime", booking.getBookingTime().toString());
+        json.put("totalPrice", booking.getTotalPrice());
+        json.put("seatIds", booking.getSeatIds());
+        // For the node the customer booked through to show, never for listings
+        json.put("cancelCode", booking.getCancelCode());
+        return json;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Booking toBooking(Map<String, Object> json) {
+        Object seatIds = json.get("seatIds");
+        return new Booking((String) json.get("id"), (String) json.get("concertId"), (String) json.get("customerName"),
+                (String) json.get("customerEmail"), ((Number) json.get("numberOfSeats")).intValue(),
+                LocalDateTime.parse((String) json.get("bookingTime")), ((Number) json.get("totalPrice")).doubleValue(),
+                seatIds != null ? (List<String>) seatIds : Collections.<String>emptyList(),
+                (String) json.get("cancelCode"));
+    }
+
+    public static List<Map<String, Object>> toMaps(List<ConcertAvailability> availability) {
+        List<Map<String, Object>> json = new ArrayList<>(availability.size());
+        for (ConcertAvailability concert : availability) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("concertId", concert.getConcertId());
+            entry.put("bookedSeats", concert.getBookedSeats());
+            entry.put("revenueCents", concert.getRevenueCents());
+            json.add(entry);
+        }
+        return json;
+    }
+
+    public static List<ConcertAvailability> toAvailability(List<Map<String, Object>> json) {
+        List<ConcertAvailability> availability = new ArrayList<>(json.size());
+        for (Map<String, Object> entry : json) {
+            availability.add(new ConcertAvailability((String) entry.get("concertId"),
+                    ((Number) entry.get("bookedSeats")).intValue(), ((Number) entry.get("revenueCents")).longValue()));
+        }
+        return availability;
+    }
+}
@@ -0,0 +1,49 @@
+package com.concertbooking.cluster;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ClusterNode {
+    private final String id;
+    private final String baseUrl;
+
+    public ClusterNode(String id, String baseUrl) {
+        this.id = id;
+        this.baseUrl = baseUrl;
+    }
+
+    /**
+     * Parses a node list of the form {@code node-a=http://10.0.0.4:8080,node-b=http://10.0.0.5:8080}.
+     */
+    public static List<ClusterNode> parseList(String nodes) {
+        List<ClusterNode> parsed = new ArrayList<>();
+        for (String node : nodes.split(",")) {
+            if (node.trim().isEmpty()) {
+                continue;
+            }
+            int separator = node.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Cluster node must be id=url: " + node.trim());
+            }
+            String baseUrl = node.substring(separator + 1).trim();
+            while (baseUrl.endsWith("/")) {
+                baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
+            }
+            parsed.add(new ClusterNode(node.substring(0, separator).trim(), baseUrl));
+        }
+        return parsed;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    @Override
+    public String toString() {
+        return id;
+    }
+}
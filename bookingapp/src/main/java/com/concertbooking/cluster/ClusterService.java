@@ -0,0 +1,235 @@
+package com.concertbooking.cluster;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingBatcher;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.IdempotentBookings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scale-out mode. Concerts are partitioned over a fixed set of nodes by consistent
+ * hashing of their ids, and only a concert's owner node books or cancels seats for it:
+ * other nodes forward those calls, so each concert's inventory lives in exactly one
+ * place and cannot be oversold across nodes. Every node serves the whole catalog, with
+ * availability of concerts it does not own copied from their owners' snapshots every
+ * {@code booking.cluster.replication-interval-ms}. Idempotency keys travel with
+ * forwarded bookings and are checked on the owner, so a retry that reaches a different
+ * entry node still gets the original booking. When disabled this node owns every
+ * concert and calls go straight to the local services.
+ */
+@Service
+public class ClusterService {
+
+    private static final Logger log = LoggerFactory.getLogger(ClusterService.class);
+
+    private final BookingService bookingService;
+    private final BookingBatcher bookingBatcher;
+    private final IdempotentBookings idempotentBookings;
+    private final ClusterTransport transport;
+    private final boolean enabled;
+    private final String nodeId;
+    private final Map<String, ClusterNode> nodes = new LinkedHashMap<>();
+    private final ConsistentHashRing ring;
+    private final long replicationIntervalMillis;
+    private ScheduledExecutorService replicator;
+
+    @Autowired
+    public ClusterService(BookingService bookingService, BookingBatcher bookingBatcher,
+                          IdempotentBookings idempotentBookings, ClusterTransport transport,
+                          @Value("${booking.cluster.enabled:false}") boolean enabled,
+                          @Value("${booking.cluster.node-id:}") String nodeId,
+                          @Value("${booking.cluster.nodes:}") String nodes,
+                          @Value("${booking.cluster.virtual-nodes:128}") int virtualNodes,
+                          @Value("${booking.cluster.replication-interval-ms:500}") long replicationIntervalMillis) {
+        this.bookingService = bookingService;
+        this.bookingBatcher = bookingBatcher;
+        this.idempotentBookings = idempotentBookings;
+        this.transport = transport;
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.replicationIntervalMillis = replicationIntervalMillis;
+        if (enabled) {
+            for (ClusterNode node : ClusterNode.parseList(nodes)) {
+                this.nodes.put(node.getId(), node);
+            }
+            if (!this.nodes.containsKey(nodeId)) {
+                throw new IllegalStateException("booking.cluster.node-id '" + nodeId
+                        + "' is not in booking.cluster.nodes");
+            }
+            this.ring = new ConsistentHashRing(this.nodes.keySet(), virtualNodes);
+        } else {
+            this.ring = null;
+        }
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled || replicationIntervalMillis <= 0 || replicator != null) {
+            return;
+        }
+        replicator = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-replication");
+            thread.setDaemon(true);
+            return thread;
+        });
+        replicator.scheduleWithFixedDelay(this::replicate, 0, replicationIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (replicator != null) {
+            replicator.shutdownNow();
+            replicator = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Whether this node books and cancels for the concert. Holds and waitlists are only
+     * offered on the owner, since they take seats from its inventory.
+     */
+    public boolean isLocal(String concertId) {
+        return !enabled || ring.ownerOf(concertId).equals(nodeId);
+    }
+
+    public ClusterNode getOwner(String concertId) {
+        return nodes.get(ring.ownerOf(concertId));
+    }
+
+    public Booking bookTickets(String concertId, String customerName, String customerEmail, int numberOfSeats,
+                               String holdId) {
+        return bookTickets(concertId, customerName, customerEmail, numberOfSeats, holdId, null);
+    }
+
+    /**
+     * Books on this node if it owns the concert and forwards to the owner otherwise,
+     * along with the idempotency key. A hold is only passed on locally; holds are never
+     * taken for concerts owned elsewhere.
+     */
+    public Booking bookTickets(String concertId, String customerName, String customerEmail, int numberOfSeats,
+                               String holdId, String idempotencyKey) {
+        if (isLocal(concertId)) {
+            return idempotentBookings.book(idempotencyKey, concertId, customerEmail, numberOfSeats,
+                    () -> bookingBatcher.bookTickets(concertId, customerName, customerEmail, numberOfSeats, holdId));
+        }
+        return transport.book(getOwner(concertId), concertId, customerName, customerEmail, numberOfSeats,
+                idempotencyKey);
+    }
+
+    /**
+     * Books a request forwarded by another node, which must only send it to the owner.
+     */
+    public Booking bookForwarded(String concertId, String customerName, String customerEmail, int numberOfSeats,
+                                 String idempotencyKey) {
+        if (!isLocal(concertId)) {
+            // The nodes disagree about the ring; booking here could oversell
+            throw new IllegalStateException("Concert " + concertId + " is owned by node " + getOwner(concertId).getId()
+                    + ", not " + nodeId);
+        }
+        return idempotentBookings.book(idempotencyKey, concertId, customerEmail, numberOfSeats,
+                () -> bookingBatcher.bookTickets(concertId, customerName, customerEmail, numberOfSeats, null));
+    }
+
+    /**
+     * Cancels the booking on whichever node holds it. Booking ids do not say which
+     * concert they belong to, so other nodes are asked in turn. Empty if no node has it.
+     */
+    public Optional<Booking> cancelBooking(String bookingId, String cancelCode) {
+        Optional<Booking> cancelled = cancelLocal(bookingId, cancelCode);
+        if (cancelled.isPresent() || !enabled) {
+            return cancelled;
+        }
+        IllegalStateException unreachable = null;
+        for (ClusterNode node : nodes.values()) {
+            if (node.getId().equals(nodeId)) {
+                continue;
+            }
+            try {
+                cancelled = transport.cancel(node, bookingId, cancelCode);
+                if (cancelled.isPresent()) {
+                    return cancelled;
+                }
+            } catch (IllegalStateException e) {
+                unreachable = e;
+            }
+        }
+        if (unreachable != null) {
+            throw new IllegalStateException("The booking could not be cancelled right now, please try again",
+                    unreachable);
+        }
+        return Optional.empty();
+    }
+
+    public Optional<Booking> cancelLocal(String bookingId, String cancelCode) {
+        if (!bookingService.getBookingById(bookingId).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(bookingService.cancelBooking(bookingId, cancelCode));
+    }
+
+    /**
+     * Counters of the concerts this node owns, for the other nodes to copy.
+     */
+    public List<ConcertAvailability> getOwnedAvailability() {
+        List<ConcertAvailability> availability = new ArrayList<>();
+        for (Concert concert : bookingService.getAllConcerts()) {
+            if (isLocal(concert.getId())) {
+                availability.add(new ConcertAvailability(concert.getId(), concert.getBookedSeats(),
+                        concert.getRevenueCents()));
+            }
+        }
+        return availability;
+    }
+
+    /**
+     * Copies every other node's owned-concert counters once. Runs on a timer, and can be
+     * called directly to bring this node up to date.
+     */
+    public void replicate() {
+        if (!enabled) {
+            return;
+        }
+        for (ClusterNode node : nodes.values()) {
+            if (node.getId().equals(nodeId)) {
+                continue;
+            }
+            List<ConcertAvailability> availability;
+            try {
+                availability = transport.availability(node);
+            } catch (RuntimeException e) {
+                log.warn("Could not fetch availability from node {}: {}", node.getId(), e.getMessage());
+                continue;
+            }
+            for (ConcertAvailability concert : availability) {
+                // Only the owner's figures count, even if a misconfigured node reports others
+                if (ring.ownerOf(concert.getConcertId()).equals(node.getId())) {
+                    bookingService.applyReplicatedAvailability(concert.getConcertId(), concert.getBookedSeats(),
+                            concert.getRevenueCents());
+                }
+            }
+        }
+    }
+}
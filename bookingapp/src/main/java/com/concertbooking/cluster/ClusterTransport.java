@@ -0,0 +1,30 @@
+package com.concertbooking.cluster;
+
+import com.concertbooking.model.Booking;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Calls from one cluster node to another. Failures on the remote node surface as the
+ * same exceptions a local call would throw; a node that cannot be reached is an
+ * {@link IllegalStateException}.
+ */
+public interface ClusterTransport {
+
+    /**
+     * Books on the concert's owner node, which checks the idempotency key if there is one.
+     */
+    Booking book(ClusterNode owner, String concertId, String customerName, String customerEmail, int numberOfSeats,
+                 String idempotencyKey);
+
+    /**
+     * Cancels the booking if the node holds it; empty if it does not.
+     */
+    Optional<Booking> cancel(ClusterNode node, String bookingId, String cancelCode);
+
+    /**
+     * Counters of the concerts the node owns.
+     */
+    List<ConcertAvailability> availability(ClusterNode node);
+}
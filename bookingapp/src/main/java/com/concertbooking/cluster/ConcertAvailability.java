@@ -0,0 +1,28 @@
+package com.concertbooking.cluster;
+
+/**
+ * A concert's booking counters as its owner node reports them to the other nodes.
+ */
+public class ConcertAvailability {
+    private final String concertId;
+    private final int bookedSeats;
+    private final long revenueCents;
+
+    public ConcertAvailability(String concertId, int bookedSeats, long revenueCents) {
+        this.concertId = concertId;
+        this.bookedSeats = bookedSeats;
+        this.revenueCents = revenueCents;
+    }
+
+    public String getConcertId() {
+        return concertId;
+    }
+
+    public int getBookedSeats() {
+        return bookedSeats;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+}
@@ -0,0 +1,65 @@
+package com.concertbooking.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Maps keys to nodes by consistent hashing. Each node is placed on the ring at many
+ * points, so keys spread evenly and adding or removing a node only moves the keys
+ * between it and its neighbours. Immutable; lookups are a binary search.
+ */
+public final class ConsistentHashRing {
+
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodeIds, int virtualNodes) {
+        if (nodeIds.isEmpty()) {
+            throw new IllegalArgumentException("A hash ring needs at least one node");
+        }
+        int perNode = Math.max(virtualNodes, 1);
+        long[][] entries = new long[nodeIds.size() * perNode][];
+        String[] ids = nodeIds.toArray(new String[0]);
+        int n = 0;
+        for (int node = 0; node < ids.length; node++) {
+            for (int v = 0; v < perNode; v++) {
+                entries[n++] = new long[]{hash(ids[node] + "#" + v), node};
+            }
+        }
+        // Ties are practically impossible; ordering by node index keeps the ring deterministic anyway
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        this.points = new long[entries.length];
+        this.owners = new String[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            points[i] = entries[i][0];
+            owners[i] = ids[(int) entries[i][1]];
+        }
+    }
+
+    /**
+     * Returns the node owning the key: the first node point at or after its hash.
+     */
+    public String ownerOf(String key) {
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    // 64-bit FNV-1a with a final avalanche mix; String.hashCode barely separates ids like C1 and C2
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
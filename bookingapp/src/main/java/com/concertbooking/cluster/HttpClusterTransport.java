@@ -0,0 +1,127 @@
+package com.concertbooking.cluster;
+
+import com.concertbooking.exception.InsufficientSeatsException;
+import com.concertbooking.exception.SoldOutException;
+import com.concertbooking.model.Booking;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Calls other nodes' {@code /internal/cluster} endpoints over HTTP, authenticated with
+ * the shared cluster secret.
+ */
+@Component
+public class HttpClusterTransport implements ClusterTransport {
+
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    public static final String BASE_PATH = "/internal/cluster";
+
+    private final RestTemplate restTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    public HttpClusterTransport(RestTemplateBuilder restTemplateBuilder,
+                                @Value("${booking.cluster.secret:}") String secret,
+                                @Value("${booking.cluster.timeout-ms:2000}") long timeoutMillis) {
+        this.restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(timeoutMillis))
+                .setReadTimeout(Duration.ofMillis(timeoutMillis))
+                .defaultHeader(SECRET_HEADER, secret)
+                .build();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Booking book(ClusterNode owner, String concertId, String customerName, String customerEmail,
+                        int numberOfSeats, String idempotencyKey) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("customerName", customerName);
+        request.put("customerEmail", customerEmail);
+        request.put("numberOfSeats", numberOfSeats);
+        request.put("idempotencyKey", idempotencyKey);
+        try {
+            Map<String, Object> booking = restTemplate.postForObject(
+                    owner.getBaseUrl() + BASE_PATH + "/concerts/{id}/bookings", request, Map.class, concertId);
+            return ClusterCodec.toBooking(booking);
+        } catch (HttpStatusCodeException e) {
+            throw remoteFailure(owner, concertId, e);
+        } catch (ResourceAccessException e) {
+            // The owner may still have booked before the connection failed
+            throw new IllegalStateException("Booking is taking longer than expected, please check your bookings", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Optional<Booking> cancel(ClusterNode node, String bookingId, String cancelCode) {
+        try {
+            Map<String, Object> booking = restTemplate.postForObject(
+                    node.getBaseUrl() + BASE_PATH + "/bookings/{id}/cancel?cancelCode={cancelCode}", null, Map.class,
+                    bookingId, cancelCode);
+            return Optional.of(ClusterCodec.toBooking(booking));
+        } catch (HttpStatusCodeException e) {
+            if (e.getRawStatusCode() == 404) {
+                return Optional.empty();
+            }
+            throw remoteFailure(node, null, e);
+        } catch (ResourceAccessException e) {
+            throw new IllegalStateException("Node " + node.getId() + " is unreachable", e);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<ConcertAvailability> availability(ClusterNode node) {
+        try {
+            List<Map<String, Object>> availability = restTemplate.getForObject(
+                    node.getBaseUrl() + BASE_PATH + "/availability", List.class);
+            return ClusterCodec.toAvailability(availability != null ? availability
+                    : Collections.<Map<String, Object>>emptyList());
+        } catch (HttpStatusCodeException e) {
+            throw remoteFailure(node, null, e);
+        } catch (ResourceAccessException e) {
+            throw new IllegalStateException("Node " + node.getId() + " is unreachable", e);
+        }
+    }
+
+    // Turns the remote node's error response back into the exception it threw
+    @SuppressWarnings("unchecked")
+    private RuntimeException remoteFailure(ClusterNode node, String concertId, HttpStatusCodeException e) {
+        Map<String, Object> body;
+        try {
+            body = objectMapper.readValue(e.getResponseBodyAsString(), Map.class);
+        } catch (IOException | RuntimeException parseFailure) {
+            body = Collections.emptyMap();
+        }
+        Object message = body.get("error");
+        Object reason = body.get("reason");
+        if ("sold_out".equals(reason)) {
+            return new SoldOutException(concertId, String.valueOf(body.get("concertName")));
+        }
+        if ("insufficient_seats".equals(reason)) {
+            return new InsufficientSeatsException(concertId);
+        }
+        if (e.getRawStatusCode() == 400 && message != null) {
+            return new IllegalArgumentException(message.toString());
+        }
+        if (e.getRawStatusCode() == 409 && message != null) {
+            return new IllegalStateException(message.toString());
+        }
+        return new IllegalStateException("Node " + node.getId() + " could not process the request (HTTP "
+                + e.getRawStatusCode() + ")", e);
+    }
+}
@@ -0,0 +1,45 @@
+package com.concertbooking.cluster;
+
+import com.concertbooking.model.Booking;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Connects nodes running in the same JVM by calling them directly, so a cluster can be
+ * exercised without a network.
+ */
+public class LocalClusterTransport implements ClusterTransport {
+
+    private final ConcurrentMap<String, ClusterService> nodes = new ConcurrentHashMap<>();
+
+    public void register(ClusterService node) {
+        nodes.put(node.getNodeId(), node);
+    }
+
+    @Override
+    public Booking book(ClusterNode owner, String concertId, String customerName, String customerEmail,
+                        int numberOfSeats, String idempotencyKey) {
+        return node(owner).bookForwarded(concertId, customerName, customerEmail, numberOfSeats, idempotencyKey);
+    }
+
+    @Override
+    public Optional<Booking> cancel(ClusterNode node, String bookingId, String cancelCode) {
+        return node(node).cancelLocal(bookingId, cancelCode);
+    }
+
+    @Override
+    public List<ConcertAvailability> availability(ClusterNode node) {
+        return node(node).getOwnedAvailability();
+    }
+
+    private ClusterService node(ClusterNode node) {
+        ClusterService service = nodes.get(node.getId());
+        if (service == null) {
+            throw new IllegalStateException("Node " + node.getId() + " is unreachable");
+        }
+        return service;
+    }
+}
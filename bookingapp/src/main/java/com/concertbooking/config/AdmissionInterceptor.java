@@ -0,0 +1,114 @@
+package com.concertbooking.config;
+
+import com.concertbooking.service.WaitingRoomService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Sends visitors without a valid admission token for the concert to its waiting room
+ * before the booking form or booking POST does any service work. API bookings are
+ * refused with 403 instead and may pass the token in a header.
+ * <p>
+ * A booking POST claims the token for the length of the request, and it is used up if
+ * the handler reports a booking with {@link #bookingMade}, so each admission books once.
+ */
+@Component
+public class AdmissionInterceptor implements HandlerInterceptor {
+
+    public static final String ADMISSION_COOKIE_PREFIX = "admission_";
+    public static final String ADMISSION_HEADER = "X-Admission-Token";
+    private static final String BOOKING_PATH = "/concerts/book/";
+    private static final String HOLD_SUFFIX = "/hold";
+    private static final String API_CONCERTS_PATH = "/api/v1/concerts/";
+    private static final String API_BOOKINGS_SUFFIX = "/bookings";
+    private static final String CLAIM_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".claim";
+    private static final String BOOKED_ATTRIBUTE = AdmissionInterceptor.class.getName() + ".booked";
+
+    private final WaitingRoomService waitingRoomService;
+
+    @Autowired
+    public AdmissionInterceptor(WaitingRoomService waitingRoomService) {
+        this.waitingRoomService = waitingRoomService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!waitingRoomService.isEnabled()) {
+            return true;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        boolean post = "POST".equals(request.getMethod());
+        if (path.startsWith(BOOKING_PATH)) {
+            String concertId = path.substring(BOOKING_PATH.length());
+            // Holding seats needs admission too, but only a booking uses it up
+            boolean hold = concertId.endsWith(HOLD_SUFFIX);
+            if (hold) {
+                concertId = concertId.substring(0, concertId.length() - HOLD_SUFFIX.length());
+            }
+            if (post && !hold ? claim(request, concertId)
+                    : waitingRoomService.isAdmitted(concertId, token(request, concertId))) {
+                return true;
+            }
+            response.sendRedirect(request.getContextPath() + "/waiting-room/" + concertId);
+            return false;
+        }
+        if (path.startsWith(API_CONCERTS_PATH) && path.endsWith(API_BOOKINGS_SUFFIX) && post) {
+            String concertId = path.substring(API_CONCERTS_PATH.length(), path.length() - API_BOOKINGS_SUFFIX.length());
+            if (claim(request, concertId)) {
+                return true;
+            }
+            // API clients cannot follow the waiting room page, so point them at it instead
+            response.setHeader("Location", request.getContextPath() + "/waiting-room/" + concertId);
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Admission token required");
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        String[] claim = (String[]) request.getAttribute(CLAIM_ATTRIBUTE);
+        if (claim != null) {
+            waitingRoomService.completeAdmission(claim[0], claim[1], request.getAttribute(BOOKED_ATTRIBUTE) != null);
+        }
+    }
+
+    /** Called by booking handlers once a booking is made, which uses up the admission. */
+    public static void bookingMade(HttpServletRequest request) {
+        request.setAttribute(BOOKED_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    private boolean claim(HttpServletRequest request, String concertId) {
+        String token = token(request, concertId);
+        if (!waitingRoomService.claimAdmission(concertId, token)) {
+            return false;
+        }
+        request.setAttribute(CLAIM_ATTRIBUTE, new String[]{concertId, token});
+        return true;
+    }
+
+    private static String token(HttpServletRequest request, String concertId) {
+        String token = request.getHeader(ADMISSION_HEADER);
+        return token != null ? token : cookieValue(request, ADMISSION_COOKIE_PREFIX + concertId);
+    }
+
+    public static String cookieValue(HttpServletRequest request, String name) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (cookie.getName().equals(name)) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
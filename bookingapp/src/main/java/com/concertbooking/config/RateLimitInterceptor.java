@@ -0,0 +1,56 @@
+package com.concertbooking.config;
+
+import com.concertbooking.exception.RateLimitedException;
+import com.concertbooking.service.RateLimiter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Turns away booking, waitlist and cancellation requests (POSTs and DELETEs) from
+ * client addresses over their rate limit with 429 before the request body is read or
+ * any service work is done, which also slows down guessing cancel codes. Per-customer
+ * limits need the email from the body and are checked by the controllers.
+ */
+@Component
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    private final RateLimiter rateLimiter;
+
+    @Autowired
+    public RateLimitInterceptor(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!rateLimiter.isEnabled() || !isWrite(request.getMethod())) {
+            return true;
+        }
+        try {
+            rateLimiter.checkAddress(clientAddress(request));
+            return true;
+        } catch (RateLimitedException e) {
+            response.setHeader("Retry-After", Long.toString(e.getRetryAfterSeconds()));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static boolean isWrite(String method) {
+        return "POST".equals(method) || "DELETE".equals(method);
+    }
+
+    /**
+     * The key client addresses are limited by. The remote address is the client's when
+     * server.forward-headers-strategy trusts the proxy.
+     */
+    public static String clientAddress(HttpServletRequest request) {
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,68 @@
+package com.concertbooking.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times Thymeleaf view rendering, which happens between postHandle and afterCompletion
+ * and so is not separated out by the server request metrics. Timers are kept per view
+ * name; redirects are not rendered and are skipped.
+ */
+@Component
+public class RenderTimingInterceptor implements HandlerInterceptor {
+
+    private static final String RENDER_START_ATTRIBUTE = RenderTimingInterceptor.class.getName() + ".start";
+    private static final String RENDER_VIEW_ATTRIBUTE = RenderTimingInterceptor.class.getName() + ".view";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RenderTimingInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                           ModelAndView modelAndView) {
+        String viewName = modelAndView != null ? modelAndView.getViewName() : null;
+        if (viewName == null || viewName.startsWith("redirect:") || viewName.startsWith("forward:")) {
+            return;
+        }
+        request.setAttribute(RENDER_VIEW_ATTRIBUTE, viewName);
+        request.setAttribute(RENDER_START_ATTRIBUTE, System.nanoTime());
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object start = request.getAttribute(RENDER_START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        String viewName = (String) request.getAttribute(RENDER_VIEW_ATTRIBUTE);
+        timer(viewName).record(System.nanoTime() - (Long) start, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(String viewName) {
+        Timer timer = timers.get(viewName);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(viewName, name -> Timer.builder("booking.page.render")
+                    .description("Time to render a page template")
+                    .tag("view", name)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        return timer;
+    }
+}
@@ -0,0 +1,56 @@
+package com.concertbooking.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+/**
+ * Ends a class-data-sharing training run: once the application is ready it requests the
+ * main pages, so the classes used to serve them are loaded too, and then exits so the JVM
+ * writes its archive. Enabled with {@code booking.startup.training-run=true}.
+ */
+@Component
+@ConditionalOnProperty(name = "booking.startup.training-run", havingValue = "true")
+public class TrainingRunExit implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final Logger log = LoggerFactory.getLogger(TrainingRunExit.class);
+    private static final String[] WARM_UP_PATHS = {"/concerts", "/events", "/concerts/C1", "/api/v1/concerts"};
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        ConfigurableApplicationContext context = event.getApplicationContext();
+        String port = context.getEnvironment().getProperty("local.server.port", "8080");
+        for (String path : WARM_UP_PATHS) {
+            warmUp("http://localhost:" + port + path);
+        }
+        log.info("Training run complete, exiting");
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private static void warmUp(String url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            connection.setConnectTimeout(5000);
+            connection.setReadTimeout(30000);
+            try (InputStream in = connection.getResponseCode() < 400
+                    ? connection.getInputStream() : connection.getErrorStream()) {
+                byte[] buffer = new byte[8192];
+                while (in != null && in.read(buffer) >= 0) {
+                    // Drain the body so the whole response path runs
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Warm-up request to {} failed", url, e);
+        }
+    }
+}
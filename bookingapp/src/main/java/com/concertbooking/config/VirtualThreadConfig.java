@@ -0,0 +1,45 @@
+package com.concertbooking.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs Tomcat requests on virtual threads when {@code booking.virtual-threads.enabled}
+ * is set and the runtime is Java 21 or later. The executor is looked up reflectively so
+ * the same build still runs on Java 8, where the setting falls back to the usual pool.
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    @ConditionalOnProperty(name = "booking.virtual-threads.enabled", havingValue = "true")
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer() {
+        return factory -> newVirtualThreadExecutor().ifPresent(executor -> {
+            log.info("Handling requests on virtual threads");
+            factory.addProtocolHandlerCustomizers(protocolHandler -> protocolHandler.setExecutor(executor));
+        });
+    }
+
+    static Optional<ExecutorService> newVirtualThreadExecutor() {
+        try {
+            return Optional.of((ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+        } catch (NoSuchMethodException e) {
+            log.warn("Virtual threads need Java 21 or later (running {}); using the platform thread pool",
+                    System.getProperty("java.version"));
+        } catch (ReflectiveOperationException e) {
+            log.warn("Could not create a virtual thread executor; using the platform thread pool", e);
+        }
+        return Optional.empty();
+    }
+}
@@ -1,14 +1,39 @@
 package com.concertbooking.config;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Configuration
 public class WebConfig implements WebMvcConfigurer {
-    
+
+    private final RateLimitInterceptor rateLimitInterceptor;
+    private final AdmissionInterceptor admissionInterceptor;
+    private final RenderTimingInterceptor renderTimingInterceptor;
+
+    @Autowired
+    public WebConfig(RateLimitInterceptor rateLimitInterceptor, AdmissionInterceptor admissionInterceptor,
+                     RenderTimingInterceptor renderTimingInterceptor) {
+        this.rateLimitInterceptor = rateLimitInterceptor;
+        this.admissionInterceptor = admissionInterceptor;
+        this.renderTimingInterceptor = renderTimingInterceptor;
+    }
+
     @Override
     public void addViewControllers(ViewControllerRegistry registry) {
         registry.addViewController("/").setViewName("redirect:/concerts");
     }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Rate limits first, as they are the cheapest way to turn a request away
+        registry.addInterceptor(rateLimitInterceptor).addPathPatterns("/concerts/book/*", "/concerts/book/*/hold",
+                "/concerts/*/waitlist", "/concerts/bookings/*/cancel", "/api/v1/concerts/*/bookings",
+                "/api/v1/concerts/*/waitlist", "/api/v1/bookings/*");
+        registry.addInterceptor(admissionInterceptor).addPathPatterns("/concerts/book/*", "/concerts/book/*/hold",
+                "/api/v1/concerts/*/bookings");
+        registry.addInterceptor(renderTimingInterceptor);
+    }
 } 
\ No newline at end of file
@@ -7,4 +7,6 @@ public class BookingRequest {
     private String customerName;
     private String customerEmail;
     private int numberOfSeats;
+    private String holdId;
+    private String idempotencyKey;
 } 
\ No newline at end of file
@@ -0,0 +1,128 @@
+package com.concertbooking.controller;
+
+import com.concertbooking.bulk.BookingExporter;
+import com.concertbooking.bulk.BulkFormat;
+import com.concertbooking.bulk.BulkImporter;
+import com.concertbooking.bulk.ImportResult;
+import com.concertbooking.util.SharedSecret;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bulk import of concerts and bookings, and bulk export of bookings for settlement.
+ * Bodies are streamed in and out rather than read into memory. Every call must carry
+ * the bulk token; without one configured the endpoints do not exist.
+ */
+@RestController
+@RequestMapping("/api/v1/bulk")
+public class BulkController {
+
+    public static final String TOKEN_HEADER = "X-Bulk-Token";
+
+    private final BulkImporter importer;
+    private final BookingExporter exporter;
+    private final SharedSecret bulkToken;
+
+    @Autowired
+    public BulkController(BulkImporter importer, BookingExporter exporter,
+                          @Value("${booking.bulk.token:}") String token) {
+        this.importer = importer;
+        this.exporter = exporter;
+        this.bulkToken = new SharedSecret(token);
+    }
+
+    @PostMapping("/concerts")
+    public ResponseEntity<Map<String, Object>> importConcerts(@RequestParam(required = false) String format,
+                                                              @RequestHeader(name = TOKEN_HEADER, required = false)
+                                                                      String token,
+                                                              HttpServletRequest request) throws IOException {
+        if (!bulkToken.matches(token)) {
+            return ResponseEntity.notFound().build();
+        }
+        ImportResult result = importer.importConcerts(request.getInputStream(),
+                BulkFormat.of(format, request.getContentType()));
+        return ResponseEntity.ok(toMap(result));
+    }
+
+    @PostMapping("/bookings")
+    public ResponseEntity<Map<String, Object>> importBookings(@RequestParam(required = false) String format,
+                                                              @RequestHeader(name = TOKEN_HEADER, required = false)
+                                                                      String token,
+                                                              HttpServletRequest request) throws IOException {
+        if (!bulkToken.matches(token)) {
+            return ResponseEntity.notFound().build();
+        }
+        ImportResult result = importer.importBookings(request.getInputStream(),
+                BulkFormat.of(format, request.getContentType()));
+        return ResponseEntity.ok(toMap(result));
+    }
+
+    /**
+     * Streams bookings, optionally for one concert and made from {@code from} until
+     * before {@code to} (ISO dates or date-times).
+     */
+    @GetMapping("/bookings")
+    public void exportBookings(@RequestParam(required = false) String concertId,
+                               @RequestParam(required = false) String from,
+                               @RequestParam(required = false) String to,
+                               @RequestParam(required = false) String format,
+                               @RequestHeader(name = TOKEN_HEADER, required = false) String token,
+                               HttpServletResponse response) throws IOException {
+        if (!bulkToken.matches(token)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        BulkFormat bulkFormat = BulkFormat.of(format, null);
+        LocalDateTime fromTime = parseTime(from, "from");
+        LocalDateTime toTime = parseTime(to, "to");
+        response.setContentType(bulkFormat.getContentType() + ";charset=UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"bookings." + bulkFormat.getExtension() + "\"");
+        exporter.export(response.getOutputStream(), bulkFormat, concertId, fromTime, toTime);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
+    private static LocalDateTime parseTime(String value, String name) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return value.length() == 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must be an ISO date or date-time");
+        }
+    }
+
+    private static Map<String, Object> toMap(ImportResult result) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("imported", result.getImported());
+        body.put("rejected", result.getRejected());
+        body.put("errors", result.getErrors());
+        body.put("elapsedMillis", result.getElapsedMillis());
+        return body;
+    }
+}
@@ -0,0 +1,116 @@
+package com.concertbooking.controller;
+
+import com.concertbooking.cluster.ClusterCodec;
+import com.concertbooking.cluster.ClusterService;
+import com.concertbooking.cluster.HttpClusterTransport;
+import com.concertbooking.exception.InsufficientSeatsException;
+import com.concertbooking.exception.SoldOutException;
+import com.concertbooking.model.Booking;
+import com.concertbooking.util.SharedSecret;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Node-to-node endpoints for scale-out mode, called by {@link HttpClusterTransport}.
+ * Every call must carry the shared cluster secret; without cluster mode they do not
+ * exist.
+ */
+@RestController
+@RequestMapping(HttpClusterTransport.BASE_PATH)
+public class ClusterController {
+
+    private final ClusterService clusterService;
+    private final SharedSecret secret;
+
+    @Autowired
+    public ClusterController(ClusterService clusterService, @Value("${booking.cluster.secret:}") String secret) {
+        if (clusterService.isEnabled() && secret.isEmpty()) {
+            throw new IllegalStateException("booking.cluster.secret must be set when cluster mode is enabled");
+        }
+        this.clusterService = clusterService;
+        this.secret = new SharedSecret(secret);
+    }
+
+    @PostMapping("/concerts/{id}/bookings")
+    public ResponseEntity<Object> book(@PathVariable String id, @RequestBody BookingRequest bookingRequest,
+                                       @RequestHeader(name = HttpClusterTransport.SECRET_HEADER, required = false)
+                                               String secret) {
+        if (!authorized(secret)) {
+            return ResponseEntity.notFound().build();
+        }
+        Booking booking = clusterService.bookForwarded(id, bookingRequest.getCustomerName(),
+                bookingRequest.getCustomerEmail(), bookingRequest.getNumberOfSeats(), bookingRequest.getIdempotencyKey());
+        return ResponseEntity.status(HttpStatus.CREATED).body(ClusterCodec.toMap(booking));
+    }
+
+    @PostMapping("/bookings/{bookingId}/cancel")
+    public ResponseEntity<Object> cancel(@PathVariable String bookingId, @RequestParam String cancelCode,
+                                         @RequestHeader(name = HttpClusterTransport.SECRET_HEADER, required = false)
+                                                 String secret) {
+        if (!authorized(secret)) {
+            return ResponseEntity.notFound().build();
+        }
+        Optional<Booking> booking = clusterService.cancelLocal(bookingId, cancelCode);
+        if (!booking.isPresent()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ClusterCodec.toMap(booking.get()));
+    }
+
+    @GetMapping("/availability")
+    public ResponseEntity<Object> availability(@RequestHeader(name = HttpClusterTransport.SECRET_HEADER,
+            required = false) String secret) {
+        if (!authorized(secret)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ClusterCodec.toMaps(clusterService.getOwnedAvailability()));
+    }
+
+    @ExceptionHandler(SoldOutException.class)
+    public ResponseEntity<Map<String, Object>> handleSoldOut(SoldOutException e) {
+        Map<String, Object> body = error(e.getMessage(), "sold_out");
+        body.put("concertName", e.getConcertName());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    @ExceptionHandler(InsufficientSeatsException.class)
+    public ResponseEntity<Map<String, Object>> handleInsufficientSeats(InsufficientSeatsException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error(e.getMessage(), "insufficient_seats"));
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(IllegalStateException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error(e.getMessage(), "conflict"));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error(e.getMessage(), "bad_request"));
+    }
+
+    private boolean authorized(String provided) {
+        return clusterService.isEnabled() && secret.matches(provided);
+    }
+
+    private static Map<String, Object> error(String message, String reason) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        body.put("reason", reason);
+        return body;
+    }
+}
@@ -0,0 +1,343 @@
+package com.concertbooking.controller;
+
+import com.concertbooking.cluster.ClusterService;
+import com.concertbooking.config.AdmissionInterceptor;
+import com.concertbooking.config.RateLimitInterceptor;
+import com.concertbooking.exception.RateLimitedException;
+import com.concertbooking.exception.SoldOutException;
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.model.WaitlistEntry;
+import com.concertbooking.repository.Page;
+import com.concertbooking.service.AvailabilityBroadcaster;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.RateLimiter;
+import com.concertbooking.service.WaitlistService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * JSON API for mobile and partner clients. List endpoints are cursor-paginated: pass
+ * the returned {@code nextCursor} back as {@code cursor} to get the next page. Every
+ * endpoint accepts {@code fields} to return only the named fields.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class ConcertApiController {
+
+    private static final int MAX_LIMIT = 500;
+    private static final int MAX_STREAM_CONCERTS = 100;
+
+    private static final FieldProjection<Concert> CONCERT_FIELDS = new FieldProjection<Concert>()
+            .field("id", Concert::getId)
+            .field("name", Concert::getName)
+            .field("artist", Concert::getArtist)
+            .field("genre", Concert::getGenre)
+            .field("dateTime", concert -> concert.getDateTime().toString())
+            .field("venue", Concert::getVenue)
+            .field("price", Concert::getPrice)
+            .field("totalSeats", Concert::getTotalSeats)
+            .field("remainingSeats", Concert::getRemainingSeats)
+            .field("soldOut", Concert::isSoldOut);
+
+    private static final FieldProjection<Booking> BOOKING_FIELDS = new FieldProjection<Booking>()
+            .field("id", Booking::getId)
+            .field("concertId", Booking::getConcertId)
+            .field("customerName", Booking::getCustomerName)
+            .field("customerEmail", Booking::getCustomerEmail)
+            .field("numberOfSeats", Booking::getNumberOfSeats)
+            .field("seatIds", booking -> booking.getSeatIds().isEmpty() ? null : booking.getSeatIds())
+            .field("bookingTime", booking -> booking.getBookingTime().toString())
+            .field("totalPrice", Booking::getTotalPrice);
+
+    private final BookingService bookingService;
+    private final ClusterService clusterService;
+    private final AvailabilityBroadcaster availabilityBroadcaster;
+    private final WaitlistService waitlistService;
+    private final RateLimiter rateLimiter;
+    private final FieldProjection<WaitlistEntry> waitlistFields;
+
+    @Autowired
+    public ConcertApiController(BookingService bookingService, ClusterService clusterService,
+                                AvailabilityBroadcaster availabilityBroadcaster, WaitlistService waitlistService,
+                                RateLimiter rateLimiter) {
+        this.bookingService = bookingService;
+        this.clusterService = clusterService;
+        this.availabilityBroadcaster = availabilityBroadcaster;
+        this.waitlistService = waitlistService;
+        this.rateLimiter = rateLimiter;
+        // Position depends on the rest of the queue, so this projection needs the service
+        this.waitlistFields = new FieldProjection<WaitlistEntry>()
+                .field("id", WaitlistEntry::getId)
+                .field("concertId", WaitlistEntry::getConcertId)
+                .field("customerName", WaitlistEntry::getCustomerName)
+                .field("customerEmail", WaitlistEntry::getCustomerEmail)
+                .field("numberOfSeats", WaitlistEntry::getNumberOfSeats)
+                .field("joinedAt", entry -> entry.getJoinedAt().toString())
+                .field("status", entry -> entry.isBooked() ? "BOOKED" : entry.isRejected() ? "REJECTED" : "WAITING")
+                .field("position", entry -> {
+                    int position = waitlistService.getPosition(entry);
+                    return position >= 0 ? position : null;
+                })
+                .field("bookingId", WaitlistEntry::getBookingId)
+                .field("cancelCode", WaitlistEntry::getCancelCode)
+                .field("rejection", WaitlistEntry::getRejection);
+    }
+
+    @GetMapping("/concerts")
+    public Map<String, Object> listConcerts(@RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @RequestParam(required = false) String fields) {
+        List<String> selected = CONCERT_FIELDS.select(fields);
+        return page(bookingService.getConcerts(decodeCursor(cursor), checkLimit(limit)), CONCERT_FIELDS, selected);
+    }
+
+    @GetMapping("/concerts/{id}")
+    public ResponseEntity<Map<String, Object>> getConcert(@PathVariable String id,
+                                                          @RequestParam(required = false) String fields) {
+        List<String> selected = CONCERT_FIELDS.select(fields);
+        Optional<Concert> concert = bookingService.getConcertById(id);
+        if (!concert.isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Concert not found");
+        }
+        return ResponseEntity.ok(CONCERT_FIELDS.apply(concert.get(), selected));
+    }
+
+    @GetMapping("/concerts/{id}/availability")
+    public ResponseEntity<Map<String, Object>> getAvailability(@PathVariable String id) {
+        Optional<Concert> concert = bookingService.getConcertById(id);
+        if (!concert.isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Concert not found");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("concertId", id);
+        body.put("totalSeats", concert.get().getTotalSeats());
+        body.put("remainingSeats", concert.get().getRemainingSeats());
+        body.put("soldOut", concert.get().isSoldOut());
+        return ResponseEntity.ok(body);
+    }
+
+    /**
+     * Server-Sent Events stream of {@code availability} events for the given concerts
+     * ({@code ?concertId=C1&concertId=C2}), or for all concerts when none are given.
+     */
+    @GetMapping("/availability/stream")
+    public ResponseEntity<SseEmitter> streamAvailability(
+            @RequestParam(name = "concertId", required = false) List<String> concertIds, HttpServletRequest request) {
+        List<String> ids = concertIds != null ? concertIds : Collections.<String>emptyList();
+        // EventSource clients get no body on errors, and would not accept a JSON one
+        if (ids.size() > MAX_STREAM_CONCERTS) {
+            return ResponseEntity.badRequest().build();
+        }
+        for (String id : ids) {
+            if (!bookingService.getConcertById(id).isPresent()) {
+                return ResponseEntity.notFound().build();
+            }
+        }
+        Optional<SseEmitter> emitter = availabilityBroadcaster.subscribe(RateLimitInterceptor.clientAddress(request),
+                ids);
+        if (!emitter.isPresent()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter.get());
+    }
+
+    @GetMapping("/concerts/{id}/bookings")
+    public ResponseEntity<Map<String, Object>> getConcertBookings(@PathVariable String id,
+                                                                  @RequestParam(required = false) String cursor,
+                                                                  @RequestParam(defaultValue = "50") int limit,
+                                                                  @RequestParam(required = false) String fields) {
+        List<String> selected = BOOKING_FIELDS.select(fields);
+        if (!bookingService.getConcertById(id).isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Concert not found");
+        }
+        Page<Booking> bookings = bookingService.getBookingsByConcertId(id, decodeCursor(cursor), checkLimit(limit));
+        return ResponseEntity.ok(page(bookings, BOOKING_FIELDS, selected));
+    }
+
+    @GetMapping("/bookings")
+    public Map<String, Object> getCustomerBookings(@RequestParam String email,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int limit,
+                                                   @RequestParam(required = false) String fields) {
+        List<String> selected = BOOKING_FIELDS.select(fields);
+        Page<Booking> bookings = bookingService.getBookingsByCustomerEmail(email, decodeCursor(cursor), checkLimit(limit));
+        return page(bookings, BOOKING_FIELDS, selected);
+    }
+
+    @GetMapping("/bookings/{bookingId}")
+    public ResponseEntity<Map<String, Object>> getBooking(@PathVariable String bookingId,
+                                                          @RequestParam(required = false) String fields) {
+        List<String> selected = BOOKING_FIELDS.select(fields);
+        Optional<Booking> booking = bookingService.getBookingById(bookingId);
+        if (!booking.isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Booking not found");
+        }
+        return ResponseEntity.ok(BOOKING_FIELDS.apply(booking.get(), selected));
+    }
+
+    /**
+     * Books tickets. Retries that repeat the {@code Idempotency-Key} header (or the
+     * {@code idempotencyKey} field) get the original booking back instead of a new one.
+     */
+    @PostMapping("/concerts/{id}/bookings")
+    public ResponseEntity<Map<String, Object>> createBooking(@PathVariable String id,
+                                                             @RequestBody BookingRequest bookingRequest,
+                                                             @RequestHeader(name = "Idempotency-Key", required = false)
+                                                                     String idempotencyKey,
+                                                             HttpServletRequest request) {
+        rateLimiter.checkCustomer(bookingRequest.getCustomerEmail());
+        if (!bookingService.getConcertById(id).isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Concert not found");
+        }
+        String key = idempotencyKey != null ? idempotencyKey : bookingRequest.getIdempotencyKey();
+        Booking booking = clusterService.bookTickets(id, bookingRequest.getCustomerName(),
+                bookingRequest.getCustomerEmail(), bookingRequest.getNumberOfSeats(), bookingRequest.getHoldId(), key);
+        AdmissionInterceptor.bookingMade(request);
+        Map<String, Object> body = BOOKING_FIELDS.apply(booking, BOOKING_FIELDS.select(null));
+        // Only this response carries the cancel code; listings and lookups never do
+        body.put("cancelCode", booking.getCancelCode());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Location", "/api/v1/bookings/" + booking.getId())
+                .body(body);
+    }
+
+    /**
+     * Cancels a booking. The cancel code must be the one returned when it was booked.
+     */
+    @DeleteMapping("/bookings/{bookingId}")
+    public ResponseEntity<Map<String, Object>> cancelBooking(@PathVariable String bookingId,
+                                                             @RequestParam String cancelCode) {
+        Optional<Booking> booking = clusterService.cancelBooking(bookingId, cancelCode);
+        if (!booking.isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Booking not found");
+        }
+        return ResponseEntity.ok(BOOKING_FIELDS.apply(booking.get(), BOOKING_FIELDS.select(null)));
+    }
+
+    @PostMapping("/concerts/{id}/waitlist")
+    public ResponseEntity<Map<String, Object>> joinWaitlist(@PathVariable String id,
+                                                            @RequestBody BookingRequest bookingRequest) {
+        rateLimiter.checkCustomer(bookingRequest.getCustomerEmail());
+        if (!bookingService.getConcertById(id).isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Concert not found");
+        }
+        if (!clusterService.isLocal(id)) {
+            return error(HttpStatus.CONFLICT, "The waitlist for this concert is kept on node "
+                    + clusterService.getOwner(id).getId());
+        }
+        WaitlistEntry entry = waitlistService.join(id, bookingRequest.getCustomerName(),
+                bookingRequest.getCustomerEmail(), bookingRequest.getNumberOfSeats());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Location", "/api/v1/waitlist/" + entry.getId())
+                .body(waitlistFields.apply(entry, waitlistFields.select(null)));
+    }
+
+    @GetMapping("/waitlist/{entryId}")
+    public ResponseEntity<Map<String, Object>> getWaitlistEntry(@PathVariable String entryId,
+                                                                @RequestParam(required = false) String fields) {
+        List<String> selected = waitlistFields.select(fields);
+        Optional<WaitlistEntry> entry = waitlistService.findById(entryId);
+        if (!entry.isPresent()) {
+            return error(HttpStatus.NOT_FOUND, "Waitlist entry not found");
+        }
+        return ResponseEntity.ok(waitlistFields.apply(entry.get(), selected));
+    }
+
+    @DeleteMapping("/waitlist/{entryId}")
+    public ResponseEntity<Map<String, Object>> leaveWaitlist(@PathVariable String entryId,
+                                                             @RequestParam String email) {
+        if (!waitlistService.leave(entryId, email)) {
+            return error(HttpStatus.NOT_FOUND, "Waitlist entry not found");
+        }
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(RateLimitedException.class)
+    public ResponseEntity<Map<String, Object>> handleRateLimited(RateLimitedException e) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", e.getMessage());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", Long.toString(e.getRetryAfterSeconds()))
+                .body(body);
+    }
+
+    @ExceptionHandler(SoldOutException.class)
+    public ResponseEntity<Map<String, Object>> handleSoldOut(SoldOutException e) {
+        return error(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalStateException.class)
+    public ResponseEntity<Map<String, Object>> handleConflict(IllegalStateException e) {
+        return error(HttpStatus.CONFLICT, e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleBadRequest(IllegalArgumentException e) {
+        return error(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    private static <T> Map<String, Object> page(Page<T> page, FieldProjection<T> projection, List<String> selected) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("items", projection.apply(page.getItems(), selected));
+        if (page.hasMore()) {
+            body.put("nextCursor", encodeCursor(page.getNextCursor()));
+        }
+        return body;
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return limit;
+    }
+
+    // Cursors are opaque to clients so the paging key can change without breaking them
+    private static String encodeCursor(long cursor) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(cursor).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static long decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return 0;
+        }
+        try {
+            long value = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return value;
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static ResponseEntity<Map<String, Object>> error(HttpStatus status, String message) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("error", message);
+        return ResponseEntity.status(status).body(body);
+    }
+}
@@ -1,31 +1,76 @@
 package com.concertbooking.controller;
 
+import com.concertbooking.cluster.ClusterService;
+import com.concertbooking.config.AdmissionInterceptor;
+import com.concertbooking.exception.RateLimitedException;
 import com.concertbooking.exception.SoldOutException;
 import com.concertbooking.model.Booking;
 import com.concertbooking.model.Concert;
+import com.concertbooking.model.SeatHold;
+import com.concertbooking.model.WaitlistEntry;
 import com.concertbooking.service.BookingService;
+import com.concertbooking.service.ConcertListingCache;
+import com.concertbooking.service.PurchaseLimits;
+import com.concertbooking.service.RateLimiter;
+import com.concertbooking.service.SalesAnalytics;
+import com.concertbooking.service.SeatHoldService;
+import com.concertbooking.service.WaitlistService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Controller
 @RequestMapping("/concerts")
 public class ConcertController {
 
+    private static final String HOLD_COOKIE_PREFIX = "hold_";
+    private static final int RECENT_BOOKINGS = 50;
+
     private final BookingService bookingService;
+    private final ClusterService clusterService;
+    private final SeatHoldService seatHoldService;
+    private final ConcertListingCache listingCache;
+    private final WaitlistService waitlistService;
+    private final RateLimiter rateLimiter;
+    private final PurchaseLimits purchaseLimits;
+    private final SalesAnalytics salesAnalytics;
 
     @Autowired
-    public ConcertController(BookingService bookingService) {
+    public ConcertController(BookingService bookingService, ClusterService clusterService,
+                             SeatHoldService seatHoldService, ConcertListingCache listingCache,
+                             WaitlistService waitlistService, RateLimiter rateLimiter,
+                             PurchaseLimits purchaseLimits, SalesAnalytics salesAnalytics) {
         this.bookingService = bookingService;
+        this.clusterService = clusterService;
+        this.seatHoldService = seatHoldService;
+        this.listingCache = listingCache;
+        this.waitlistService = waitlistService;
+        this.rateLimiter = rateLimiter;
+        this.purchaseLimits = purchaseLimits;
+        this.salesAnalytics = salesAnalytics;
     }
 
     @GetMapping
-    public String listConcerts(Model model) {
-        List<Concert> concerts = bookingService.getAllConcerts();
+    public String listConcerts(Model model, WebRequest webRequest, HttpServletResponse response) {
+        // Seat counts change with every booking, so clients must revalidate rather than reuse blindly
+        response.setHeader("Cache-Control", "no-cache");
+        if (webRequest.checkNotModified(listingCache.getETag(), listingCache.getLastModified())) {
+            return null;
+        }
+        List<Concert> concerts = listingCache.getListing().getConcerts();
         model.addAttribute("concerts", concerts);
         return "concerts";
     }
@@ -38,16 +83,19 @@ public class ConcertController {
         }
         
         Concert concert = concertOpt.get();
-        List<Booking> bookings = bookingService.getBookingsByConcertId(id);
+        // Only the latest bookings; sales rates come from the analytics rather than from all bookings
+        List<Booking> bookings = bookingService.getLatestBookingsByConcertId(id, RECENT_BOOKINGS);
         
         model.addAttribute("concert", concert);
         model.addAttribute("bookings", bookings);
+        model.addAttribute("sales", salesAnalytics.getConcertSales(id).orElse(null));
         
         return "concert-details";
     }
 
     @GetMapping("/book/{id}")
-    public String showBookingForm(@PathVariable String id, Model model) {
+    public String showBookingForm(@PathVariable String id, @RequestParam(defaultValue = "1") int seats, Model model,
+                                  HttpServletRequest request) {
         Optional<Concert> concertOpt = bookingService.getConcertById(id);
         if (!concertOpt.isPresent()) {
             return "redirect:/concerts";
@@ -56,30 +104,112 @@ public class ConcertController {
         // Check if the concert is sold out
         if (bookingService.isConcertSoldOut(id)) {
             model.addAttribute("error", "This concert is sold out!");
+            offerWaitlist(id, seats, model);
             return "booking-error";
         }
         
+        BookingRequest bookingRequest = new BookingRequest();
+        bookingRequest.setNumberOfSeats(seats);
+        // One key per rendered form, so a double-click or resubmit books only once
+        bookingRequest.setIdempotencyKey(UUID.randomUUID().toString());
+        if (purchaseLimits.getMaxSeatsPerBooking() > 0) {
+            model.addAttribute("maxSeats", purchaseLimits.getMaxSeatsPerBooking());
+        }
+        if (seatHoldService.isEnabled() && clusterService.isLocal(id)) {
+            // Showing the form holds nothing; seats are held only when the customer asks to
+            model.addAttribute("holdsEnabled", true);
+            Optional<SeatHold> hold = seatHoldService.getHold(AdmissionInterceptor.cookieValue(request,
+                    HOLD_COOKIE_PREFIX + id)).filter(active -> active.getConcertId().equals(id));
+            if (hold.isPresent()) {
+                bookingRequest.setHoldId(hold.get().getId());
+                bookingRequest.setNumberOfSeats(hold.get().getNumberOfSeats());
+                model.addAttribute("hold", hold.get());
+            }
+        }
+
         model.addAttribute("concert", concertOpt.get());
-        model.addAttribute("booking", new BookingRequest());
+        model.addAttribute("booking", bookingRequest);
         
         return "booking-form";
     }
 
+    /**
+     * Holds the number of seats the customer chose while they fill in the form. A POST,
+     * so it is rate limited like a booking; a later hold replaces the customer's earlier
+     * one for the same concert.
+     */
+    @PostMapping("/book/{id}/hold")
+    public String holdSeats(@PathVariable String id, @RequestParam int seats, Model model,
+                            HttpServletRequest request, HttpServletResponse response) {
+        if (!bookingService.getConcertById(id).isPresent()) {
+            return "redirect:/concerts";
+        }
+        if (!seatHoldService.isEnabled() || !clusterService.isLocal(id)) {
+            return "redirect:/concerts/book/" + id + "?seats=" + seats;
+        }
+        String cookieName = HOLD_COOKIE_PREFIX + id;
+        try {
+            // A hold takes seats off sale, so it gets the same bound as a booking
+            purchaseLimits.checkSeatsPerBooking(seats);
+            SeatHold hold = seatHoldService.hold(id, seats, AdmissionInterceptor.cookieValue(request, cookieName));
+            Cookie cookie = new Cookie(cookieName, hold.getId());
+            cookie.setPath("/concerts/book");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(Duration.between(LocalDateTime.now(), hold.getExpiresAt()).getSeconds(), 1));
+            response.addCookie(cookie);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            model.addAttribute("error", e.getMessage());
+            return "booking-error";
+        }
+        return "redirect:/concerts/book/" + id;
+    }
+
     @PostMapping("/book/{id}")
-    public String bookTickets(@PathVariable String id, @ModelAttribute BookingRequest bookingRequest, Model model) {
+    public String bookTickets(@PathVariable String id, @ModelAttribute BookingRequest bookingRequest, Model model,
+                              HttpServletRequest request, HttpServletResponse response) {
         try {
-            Booking booking = bookingService.bookTickets(
+            rateLimiter.checkCustomer(bookingRequest.getCustomerEmail());
+            Booking booking = clusterService.bookTickets(
                 id,
                 bookingRequest.getCustomerName(),
                 bookingRequest.getCustomerEmail(),
-                bookingRequest.getNumberOfSeats()
+                bookingRequest.getNumberOfSeats(),
+                bookingRequest.getHoldId(),
+                bookingRequest.getIdempotencyKey()
             );
+            AdmissionInterceptor.bookingMade(request);
             model.addAttribute("booking", booking);
             return "booking-success";
         } catch (SoldOutException e) {
             model.addAttribute("error", "Sorry, this concert is sold out!");
             model.addAttribute("concertName", e.getConcertName());
+            offerWaitlist(id, bookingRequest.getNumberOfSeats(), model);
             return "booking-error";
+        } catch (RateLimitedException e) {
+            return rateLimited(e, model, response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            model.addAttribute("error", e.getMessage());
+            return "booking-error";
+        }
+    }
+
+    @PostMapping("/{id}/waitlist")
+    public String joinWaitlist(@PathVariable String id, @ModelAttribute BookingRequest bookingRequest, Model model,
+                               HttpServletResponse response) {
+        Optional<Concert> concertOpt = bookingService.getConcertById(id);
+        if (!concertOpt.isPresent()) {
+            return "redirect:/concerts";
+        }
+        try {
+            rateLimiter.checkCustomer(bookingRequest.getCustomerEmail());
+            WaitlistEntry entry = waitlistService.join(id, bookingRequest.getCustomerName(),
+                    bookingRequest.getCustomerEmail(), bookingRequest.getNumberOfSeats());
+            model.addAttribute("concert", concertOpt.get());
+            model.addAttribute("entry", entry);
+            model.addAttribute("position", waitlistService.getPosition(entry));
+            return "waitlist-joined";
+        } catch (RateLimitedException e) {
+            return rateLimited(e, model, response);
         } catch (IllegalArgumentException | IllegalStateException e) {
             model.addAttribute("error", e.getMessage());
             return "booking-error";
@@ -93,4 +223,34 @@ public class ConcertController {
         model.addAttribute("email", email);
         return "customer-bookings";
     }
-} 
\ No newline at end of file
+
+    @PostMapping("/bookings/{bookingId}/cancel")
+    public String cancelBooking(@PathVariable String bookingId, @RequestParam String cancelCode,
+                                @RequestParam String email, Model model, RedirectAttributes redirectAttributes) {
+        try {
+            if (!clusterService.cancelBooking(bookingId, cancelCode.trim()).isPresent()) {
+                throw new IllegalArgumentException("Booking not found");
+            }
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            model.addAttribute("error", e.getMessage());
+            return "booking-error";
+        }
+        redirectAttributes.addAttribute("email", email);
+        redirectAttributes.addFlashAttribute("message", "Booking " + bookingId + " was cancelled.");
+        return "redirect:/concerts/bookings/customer";
+    }
+
+    private void offerWaitlist(String concertId, int seats, Model model) {
+        if (waitlistService.isEnabled() && clusterService.isLocal(concertId)) {
+            model.addAttribute("waitlistConcertId", concertId);
+            model.addAttribute("waitlistSeats", Math.max(seats, 1));
+        }
+    }
+
+    private static String rateLimited(RateLimitedException e, Model model, HttpServletResponse response) {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader("Retry-After", Long.toString(e.getRetryAfterSeconds()));
+        model.addAttribute("error", e.getMessage());
+        return "booking-error";
+    }
+}
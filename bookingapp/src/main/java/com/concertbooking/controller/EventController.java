@@ -2,51 +2,129 @@ package com.concertbooking.controller;
 
 import com.concertbooking.exception.SoldOutException;
 import com.concertbooking.model.Concert;
+import com.concertbooking.search.ConcertSearchIndex;
 import com.concertbooking.service.BookingService;
+import com.concertbooking.service.ConcertListingCache;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 
+import javax.servlet.http.HttpServletResponse;
+
+import java.io.IOException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/events")
 public class EventController {
 
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final BookingService bookingService;
+    private final ConcertListingCache listingCache;
+    private final ConcertSearchIndex searchIndex;
     private final DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
 
     @Autowired
-    public EventController(BookingService bookingService) {
+    public EventController(BookingService bookingService, ConcertListingCache listingCache,
+                           ConcertSearchIndex searchIndex) {
         this.bookingService = bookingService;
+        this.listingCache = listingCache;
+        this.searchIndex = searchIndex;
     }
 
     @GetMapping
-    public String listEvents(Model model) {
-        List<Concert> concerts = bookingService.getAllConcerts();
-        
-        // Group concerts by date for calendar view
-        Map<String, List<Concert>> concertsByDate = concerts.stream()
-                .collect(Collectors.groupingBy(concert -> 
-                    concert.getDateTime().format(dateFormatter)));
+    public String listEvents(Model model, WebRequest webRequest, HttpServletResponse response) {
+        response.setHeader("Cache-Control", "no-cache");
+        if (webRequest.checkNotModified(listingCache.getETag(), listingCache.getLastModified())) {
+            return null;
+        }
+
+        // Concerts grouped by date for the calendar view, rebuilt only when the catalog changes
+        Map<String, List<Concert>> concertsByDate = listingCache.getListing().getConcertsByDate();
         
         model.addAttribute("concertsByDate", concertsByDate);
+        model.addAttribute("genres", searchIndex.getGenres());
         model.addAttribute("dateFormatter", dateFormatter);
         model.addAttribute("timeFormatter", timeFormatter);
         model.addAttribute("now", LocalDateTime.now());
         
         return "events";
     }
+
+    /**
+     * Concerts matching all the given filters, a page at a time in date order. {@code q}
+     * matches name, artist and venue words by prefix; {@code to} is inclusive. A negative
+     * page or a size below 1 is a bad request; sizes above the maximum are capped.
+     */
+    @GetMapping("/search")
+    public String searchEvents(@RequestParam(required = false) String q,
+                               @RequestParam(required = false) String artist,
+                               @RequestParam(required = false) String venue,
+                               @RequestParam(required = false) String genre,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                       LocalDate from,
+                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+                                       LocalDate to,
+                               @RequestParam(defaultValue = "0") int page,
+                               @RequestParam(defaultValue = "20") int size,
+                               Model model, WebRequest webRequest, HttpServletResponse response)
+            throws IOException {
+        if (page < 0 || size < 1) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "page must be 0 or more and size 1 or more");
+            return null;
+        }
+        response.setHeader("Cache-Control", "no-cache");
+        if (webRequest.checkNotModified(listingCache.getETag(), listingCache.getLastModified())) {
+            return null;
+        }
+
+        int pageSize = Math.min(size, MAX_PAGE_SIZE);
+        // A far-off page would overflow an int; past the last result it is simply empty
+        long offset = Math.min((long) page * pageSize, Integer.MAX_VALUE);
+        ConcertSearchIndex.Query query = new ConcertSearchIndex.Query(q, artist, venue, genre,
+                from != null ? from.atStartOfDay() : null, to != null ? to.plusDays(1).atStartOfDay() : null);
+        ConcertSearchIndex.Result result = searchIndex.search(query, (int) offset, pageSize);
+
+        // Results come in date order, so grouping keeps them sorted
+        Map<String, List<Concert>> concertsByDate = new LinkedHashMap<>();
+        for (Concert concert : result.getConcerts()) {
+            concertsByDate.computeIfAbsent(concert.getDateTime().format(dateFormatter), date -> new ArrayList<>())
+                    .add(concert);
+        }
+
+        model.addAttribute("concertsByDate", concertsByDate);
+        model.addAttribute("genres", searchIndex.getGenres());
+        model.addAttribute("result", result);
+        model.addAttribute("q", q);
+        model.addAttribute("artist", artist);
+        model.addAttribute("venue", venue);
+        model.addAttribute("genre", genre);
+        model.addAttribute("from", from);
+        model.addAttribute("to", to);
+        model.addAttribute("page", page);
+        model.addAttribute("size", pageSize);
+        model.addAttribute("dateFormatter", dateFormatter);
+        model.addAttribute("timeFormatter", timeFormatter);
+        model.addAttribute("now", LocalDateTime.now());
+
+        return "events";
+    }
     
     @GetMapping("/{id}")
     public String getEventDetails(@PathVariable String id, Model model) {
@@ -65,8 +143,8 @@ public class EventController {
         eventInfo.put("Duration", "2 hours");
         eventInfo.put("Doors Open", concert.getDateTime().minusHours(1).format(timeFormatter));
         eventInfo.put("Age Restriction", "All ages welcome");
-        eventInfo.put("Genre", getGenreForArtist(concert.getArtist()));
-        eventInfo.put("Available Seats", String.valueOf(concert.getTotalSeats() - concert.getBookings().size()));
+        eventInfo.put("Genre", concert.getGenre());
+        eventInfo.put("Available Seats", String.valueOf(concert.getRemainingSeats()));
         eventInfo.put("Status", isSoldOut ? "Sold Out" : "Tickets Available");
         
         model.addAttribute("concert", concert);
@@ -90,19 +168,6 @@ public class EventController {
     }
     
     private boolean isEventSoldOut(Concert concert) {
-        return concert.getBookings().size() >= concert.getTotalSeats();
-    }
-    
-    private String getGenreForArtist(String artist) {
-        // Simple mapping for demo purposes
-        if (artist.toLowerCase().contains("rock")) {
-            return "Rock";
-        } else if (artist.toLowerCase().contains("jazz")) {
-            return "Jazz";
-        } else if (artist.toLowerCase().contains("pop")) {
-            return "Pop";
-        } else {
-            return "Various";
-        }
+        return concert.isSoldOut();
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,61 @@
+package com.concertbooking.controller;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Named JSON fields of a type, so API clients can ask for just the fields they use with
+ * {@code ?fields=a,b}. Null values are left out of the output.
+ */
+final class FieldProjection<T> {
+
+    private final Map<String, Function<T, Object>> fields = new LinkedHashMap<>();
+
+    FieldProjection<T> field(String name, Function<T, Object> getter) {
+        fields.put(name, getter);
+        return this;
+    }
+
+    /**
+     * Parses a comma-separated field list; blank means all fields.
+     */
+    List<String> select(String requested) {
+        if (requested == null || requested.trim().isEmpty()) {
+            return new ArrayList<>(fields.keySet());
+        }
+        List<String> selected = new ArrayList<>();
+        for (String name : requested.split(",")) {
+            String field = name.trim();
+            if (!fields.containsKey(field)) {
+                throw new IllegalArgumentException("Unknown field: " + field
+                        + " (available: " + String.join(",", fields.keySet()) + ")");
+            }
+            if (!selected.contains(field)) {
+                selected.add(field);
+            }
+        }
+        return selected;
+    }
+
+    Map<String, Object> apply(T item, List<String> selected) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        for (String field : selected) {
+            Object value = fields.get(field).apply(item);
+            if (value != null) {
+                json.put(field, value);
+            }
+        }
+        return json;
+    }
+
+    List<Map<String, Object>> apply(List<T> items, List<String> selected) {
+        List<Map<String, Object>> json = new ArrayList<>(items.size());
+        for (T item : items) {
+            json.add(apply(item, selected));
+        }
+        return json;
+    }
+}
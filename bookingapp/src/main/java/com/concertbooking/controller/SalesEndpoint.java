@@ -0,0 +1,35 @@
+package com.concertbooking.controller;
+
+import com.concertbooking.service.SalesAnalytics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+/**
+ * Operations dashboard on the management port: {@code /actuator/sales} for totals and
+ * the top concerts, {@code /actuator/sales/{concertId}} for one concert.
+ */
+@Component
+@Endpoint(id = "sales")
+public class SalesEndpoint {
+
+    private final SalesAnalytics salesAnalytics;
+
+    @Autowired
+    public SalesEndpoint(SalesAnalytics salesAnalytics) {
+        this.salesAnalytics = salesAnalytics;
+    }
+
+    @ReadOperation
+    public SalesAnalytics.Dashboard dashboard() {
+        return salesAnalytics.getDashboard();
+    }
+
+    // A null result is answered with 404
+    @ReadOperation
+    public SalesAnalytics.ConcertSales concert(@Selector String concertId) {
+        return salesAnalytics.getConcertSales(concertId).orElse(null);
+    }
+}
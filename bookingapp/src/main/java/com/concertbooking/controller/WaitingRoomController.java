@@ -0,0 +1,108 @@
+package com.concertbooking.controller;
+
+import com.concertbooking.config.AdmissionInterceptor;
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.WaitingRoomService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+@Controller
+@RequestMapping("/waiting-room")
+public class WaitingRoomController {
+
+    private static final String TICKET_COOKIE_PREFIX = "queue_";
+    private static final int POLL_INTERVAL_SECONDS = 5;
+
+    private final BookingService bookingService;
+    private final WaitingRoomService waitingRoomService;
+
+    @Autowired
+    public WaitingRoomController(BookingService bookingService, WaitingRoomService waitingRoomService) {
+        this.bookingService = bookingService;
+        this.waitingRoomService = waitingRoomService;
+    }
+
+    @GetMapping("/{id}")
+    public String waitingRoom(@PathVariable String id, Model model, HttpServletRequest request,
+                              HttpServletResponse response) {
+        Optional<Concert> concertOpt = bookingService.getConcertById(id);
+        if (!concertOpt.isPresent()) {
+            return "redirect:/concerts";
+        }
+        if (!waitingRoomService.isEnabled()) {
+            return "redirect:/concerts/book/" + id;
+        }
+
+        long ticket = ticketFor(id, request, response);
+        WaitingRoomService.Status status = waitingRoomService.getStatus(id, ticket);
+        if (status.isAdmitted()) {
+            admit(id, ticket, response);
+            return "redirect:/concerts/book/" + id;
+        }
+
+        model.addAttribute("concert", concertOpt.get());
+        model.addAttribute("status", status);
+        model.addAttribute("pollIntervalSeconds", POLL_INTERVAL_SECONDS);
+        return "waiting-room";
+    }
+
+    @GetMapping("/{id}/status")
+    @ResponseBody
+    public Map<String, Object> status(@PathVariable String id, HttpServletRequest request,
+                                      HttpServletResponse response) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        if (!waitingRoomService.isEnabled() || !bookingService.getConcertById(id).isPresent()) {
+            body.put("admitted", true);
+            body.put("redirect", "/concerts/book/" + id);
+            return body;
+        }
+
+        long ticket = ticketFor(id, request, response);
+        WaitingRoomService.Status status = waitingRoomService.getStatus(id, ticket);
+        if (status.isAdmitted()) {
+            admit(id, ticket, response);
+            body.put("redirect", "/concerts/book/" + id);
+        }
+        body.put("admitted", status.isAdmitted());
+        body.put("position", status.getPosition());
+        body.put("estimatedWaitSeconds", status.getEstimatedWaitSeconds());
+        body.put("pollIntervalSeconds", POLL_INTERVAL_SECONDS);
+        return body;
+    }
+
+    private long ticketFor(String concertId, HttpServletRequest request, HttpServletResponse response) {
+        String cookieName = TICKET_COOKIE_PREFIX + concertId;
+        long ticket = waitingRoomService.verifyTicket(concertId, AdmissionInterceptor.cookieValue(request, cookieName));
+        if (ticket < 0) {
+            ticket = waitingRoomService.joinQueue(concertId);
+            response.addCookie(cookie(cookieName, waitingRoomService.signTicket(concertId, ticket), -1));
+        }
+        return ticket;
+    }
+
+    private void admit(String concertId, long ticket, HttpServletResponse response) {
+        response.addCookie(cookie(AdmissionInterceptor.ADMISSION_COOKIE_PREFIX + concertId,
+                waitingRoomService.issueAdmissionToken(concertId, ticket), waitingRoomService.getTokenTtlSeconds()));
+    }
+
+    private static Cookie cookie(String name, String value, int maxAgeSeconds) {
+        Cookie cookie = new Cookie(name, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setMaxAge(maxAgeSeconds);
+        return cookie;
+    }
+}
@@ -0,0 +1,15 @@
+package com.concertbooking.exception;
+
+public class InsufficientSeatsException extends IllegalStateException {
+
+    private final String concertId;
+
+    public InsufficientSeatsException(String concertId) {
+        super("Not enough seats available");
+        this.concertId = concertId;
+    }
+
+    public String getConcertId() {
+        return concertId;
+    }
+}
@@ -0,0 +1,23 @@
+package com.concertbooking.exception;
+
+public class PurchaseLimitException extends IllegalStateException {
+
+    private final String concertId;
+    private final int limit;
+
+    public PurchaseLimitException(String concertId, int limit, int alreadyBooked) {
+        super(alreadyBooked > 0
+                ? "You can book at most " + limit + " seats for this concert and already have " + alreadyBooked
+                : "You can book at most " + limit + " seats for this concert");
+        this.concertId = concertId;
+        this.limit = limit;
+    }
+
+    public String getConcertId() {
+        return concertId;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,19 @@
+package com.concertbooking.exception;
+
+/**
+ * Thrown when a client or customer books faster than the rate limits allow. Created
+ * without a stack trace, as it is thrown often under abuse and always handled.
+ */
+public class RateLimitedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitedException(long retryAfterSeconds) {
+        super("Too many booking attempts, please try again shortly", null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,9 +1,16 @@
 package com.concertbooking.model;
 
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
 
 public class Booking {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
     private String id;
     private String concertId;
     private String customerName;
@@ -11,15 +18,47 @@ public class Booking {
     private int numberOfSeats;
     private LocalDateTime bookingTime;
     private double totalPrice;
+    private List<String> seatIds;
+    private String cancelCode;
 
     public Booking(String concertId, String customerName, String customerEmail, int numberOfSeats, double pricePerSeat) {
-        this.id = UUID.randomUUID().toString();
+        this(concertId, customerName, customerEmail, numberOfSeats, pricePerSeat, Collections.<String>emptyList());
+    }
+
+    public Booking(String concertId, String customerName, String customerEmail, int numberOfSeats, double pricePerSeat,
+                   List<String> seatIds) {
+        // Millisecond precision is what the booking store keeps
+        this(UUID.randomUUID().toString(), concertId, customerName, customerEmail, numberOfSeats,
+                LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS), numberOfSeats * pricePerSeat, seatIds,
+                newCancelCode());
+    }
+
+    // Rebuilds a previously recorded booking, e.g. when restoring from the journal
+    public Booking(String id, String concertId, String customerName, String customerEmail, int numberOfSeats,
+                   LocalDateTime bookingTime, double totalPrice, List<String> seatIds, String cancelCode) {
+        this.id = id;
         this.concertId = concertId;
         this.customerName = customerName;
         this.customerEmail = customerEmail;
         this.numberOfSeats = numberOfSeats;
-        this.bookingTime = LocalDateTime.now();
-        this.totalPrice = numberOfSeats * pricePerSeat;
+        this.bookingTime = bookingTime;
+        this.totalPrice = totalPrice;
+        this.seatIds = seatIds.isEmpty() ? Collections.<String>emptyList()
+                : Collections.unmodifiableList(new ArrayList<>(seatIds));
+        this.cancelCode = cancelCode;
+    }
+
+    /**
+     * A new secret for cancelling a booking: 128 random bits as 32 hex digits.
+     */
+    public static String newCancelCode() {
+        byte[] bytes = new byte[16];
+        RANDOM.nextBytes(bytes);
+        StringBuilder code = new StringBuilder(32);
+        for (byte b : bytes) {
+            code.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return code.toString();
     }
 
     // Getters
@@ -50,4 +89,13 @@ public class Booking {
     public double getTotalPrice() {
         return totalPrice;
     }
+
+    public List<String> getSeatIds() {
+        return seatIds;
+    }
+
+    // Shown only to the customer who booked, and required to cancel
+    public String getCancelCode() {
+        return cancelCode;
+    }
 } 
\ No newline at end of file
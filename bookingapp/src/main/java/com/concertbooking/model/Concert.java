@@ -1,8 +1,9 @@
 package com.concertbooking.model;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Concert {
     private String id;
@@ -12,7 +13,12 @@ public class Concert {
     private String venue;
     private double price;
     private int totalSeats;
-    private List<Booking> bookings;
+    // Derived from the artist once, rather than guessed again on every render
+    private final String genre;
+    private final SeatMap seatMap;
+    // The bookings themselves live in the BookingRepository; only their totals are kept here
+    private final AtomicInteger bookedSeats = new AtomicInteger();
+    private final AtomicLong revenueCents = new AtomicLong();
 
     public Concert(String id, String name, String artist, LocalDateTime dateTime, String venue, double price, int totalSeats) {
         this.id = id;
@@ -22,14 +28,28 @@ public class Concert {
         this.venue = venue;
         this.price = price;
         this.totalSeats = totalSeats;
-        this.bookings = new ArrayList<>();
+        this.genre = genreOf(artist);
+        this.seatMap = null;
+    }
+
+    public Concert(String id, String name, String artist, LocalDateTime dateTime, String venue, double price, SeatMap seatMap) {
+        this.id = id;
+        this.name = name;
+        this.artist = artist;
+        this.dateTime = dateTime;
+        this.venue = venue;
+        this.price = price;
+        this.totalSeats = seatMap.getCapacity();
+        this.genre = genreOf(artist);
+        this.seatMap = seatMap;
     }
 
     public boolean isAvailable(int requestedSeats) {
-        int bookedSeats = bookings.stream()
-                .mapToInt(Booking::getNumberOfSeats)
-                .sum();
-        return (totalSeats - bookedSeats) >= requestedSeats;
+        return getRemainingSeats() >= requestedSeats;
+    }
+
+    public boolean isSoldOut() {
+        return bookedSeats.get() >= totalSeats;
     }
 
     // Getters and Setters
@@ -53,6 +73,10 @@ public class Concert {
         return venue;
     }
 
+    public String getGenre() {
+        return genre;
+    }
+
     public double getPrice() {
         return price;
     }
@@ -61,11 +85,57 @@ public class Concert {
         return totalSeats;
     }
 
-    public List<Booking> getBookings() {
-        return bookings;
+    public boolean hasSeatMap() {
+        return seatMap != null;
+    }
+
+    public SeatMap getSeatMap() {
+        return seatMap;
+    }
+
+    public int getBookedSeats() {
+        return bookedSeats.get();
+    }
+
+    public int getRemainingSeats() {
+        return Math.max(totalSeats - bookedSeats.get(), 0);
+    }
+
+    public double getRevenue() {
+        return revenueCents.get() / 100.0;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents.get();
     }
 
     public void addBooking(Booking booking) {
-        bookings.add(booking);
+        bookedSeats.addAndGet(booking.getNumberOfSeats());
+        revenueCents.addAndGet(Math.round(booking.getTotalPrice() * 100));
+    }
+
+    // Callers remove the booking from the repository first, so it is only counted out once
+    public void removeBooking(Booking booking) {
+        bookedSeats.addAndGet(-booking.getNumberOfSeats());
+        revenueCents.addAndGet(-Math.round(booking.getTotalPrice() * 100));
+    }
+
+    // On nodes that serve this concert read-only, the owner's counters replace the local ones
+    public boolean replaceCounters(int bookedSeats, long revenueCents) {
+        boolean changed = this.bookedSeats.getAndSet(bookedSeats) != bookedSeats;
+        return this.revenueCents.getAndSet(revenueCents) != revenueCents || changed;
+    }
+
+    private static String genreOf(String artist) {
+        String lower = artist == null ? "" : artist.toLowerCase(Locale.ROOT);
+        if (lower.contains("rock")) {
+            return "Rock";
+        } else if (lower.contains("jazz")) {
+            return "Jazz";
+        } else if (lower.contains("pop")) {
+            return "Pop";
+        } else {
+            return "Various";
+        }
     }
-} 
\ No newline at end of file
+}
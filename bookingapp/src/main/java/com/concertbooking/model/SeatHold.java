@@ -0,0 +1,33 @@
+package com.concertbooking.model;
+
+import java.time.LocalDateTime;
+
+public class SeatHold {
+    private final String id;
+    private final String concertId;
+    private final int numberOfSeats;
+    private final LocalDateTime expiresAt;
+
+    public SeatHold(String id, String concertId, int numberOfSeats, LocalDateTime expiresAt) {
+        this.id = id;
+        this.concertId = concertId;
+        this.numberOfSeats = numberOfSeats;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getConcertId() {
+        return concertId;
+    }
+
+    public int getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
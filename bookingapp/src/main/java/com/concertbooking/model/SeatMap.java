@@ -0,0 +1,321 @@
+package com.concertbooking.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigned-seating layout for a concert. Every seat is one bit in a single {@code long[]},
+ * laid out section by section and row by row, so an 80k-seat stadium costs about 10 KB.
+ * Rows are preferred front to back in section order, and within a row the block
+ * closest to the centre wins. Seat ids look like {@code A-3-12} (section, row, seat).
+ */
+public class SeatMap {
+
+    private final String[] sectionNames;
+    private final int[] sectionFirstRow;
+    private final Map<String, Integer> sectionIndex;
+    private final int[] rowSection;
+    private final int[] rowOffset;
+    private final int[] rowLength;
+    private final int[] rowFree;
+    private final long[] taken;
+    private final int capacity;
+    private int freeSeats;
+
+    private SeatMap(List<String> names, List<int[]> rowsBySection) {
+        int sections = names.size();
+        this.sectionNames = names.toArray(new String[0]);
+        this.sectionFirstRow = new int[sections];
+        this.sectionIndex = new HashMap<>();
+
+        int rows = 0;
+        for (int[] sectionRows : rowsBySection) {
+            rows += sectionRows.length;
+        }
+        this.rowSection = new int[rows];
+        this.rowOffset = new int[rows];
+        this.rowLength = new int[rows];
+        this.rowFree = new int[rows];
+
+        int row = 0;
+        int offset = 0;
+        for (int s = 0; s < sections; s++) {
+            sectionIndex.put(sectionNames[s], s);
+            sectionFirstRow[s] = row;
+            for (int length : rowsBySection.get(s)) {
+                rowSection[row] = s;
+                rowOffset[row] = offset;
+                rowLength[row] = length;
+                rowFree[row] = length;
+                offset += length;
+                row++;
+            }
+        }
+        this.capacity = offset;
+        this.freeSeats = offset;
+        this.taken = new long[(offset + 63) >>> 6];
+    }
+
+    public static SeatMap uniform(String[] sections, int rowsPerSection, int seatsPerRow) {
+        Builder builder = builder();
+        for (String section : sections) {
+            builder.addSection(section, rowsPerSection, seatsPerRow);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public List<String> getSectionNames() {
+        return Collections.unmodifiableList(Arrays.asList(sectionNames));
+    }
+
+    public int[] getRowLengths(String section) {
+        Integer index = sectionIndex.get(section);
+        if (index == null) {
+            throw new IllegalArgumentException("Unknown section: " + section);
+        }
+        int end = index + 1 < sectionFirstRow.length ? sectionFirstRow[index + 1] : rowLength.length;
+        return Arrays.copyOfRange(rowLength, sectionFirstRow[index], end);
+    }
+
+    public synchronized int getFreeSeats() {
+        return freeSeats;
+    }
+
+    /**
+     * Allocates the best {@code count} seats, preferring a contiguous block in the
+     * frontmost row that can hold one. When no row has a long enough gap the best
+     * remaining seats are assigned individually. Returns an empty list if fewer than
+     * {@code count} seats are free.
+     */
+    public synchronized List<String> allocateBestAvailable(int count) {
+        if (count <= 0 || count > freeSeats) {
+            return Collections.emptyList();
+        }
+        for (int row = 0; row < rowLength.length; row++) {
+            if (rowFree[row] < count) {
+                continue;
+            }
+            int start = bestBlockInRow(row, count);
+            if (start >= 0) {
+                List<String> seatIds = new ArrayList<>(count);
+                for (int seat = start; seat < start + count; seat++) {
+                    take(row, seat);
+                    seatIds.add(seatId(row, seat));
+                }
+                return seatIds;
+            }
+        }
+        return allocateScattered(count);
+    }
+
+    /**
+     * Marks specific seats as taken, e.g. when restoring existing bookings.
+     * Nothing is changed unless every seat is valid and currently free.
+     */
+    public synchronized boolean reserve(Collection<String> seatIds) {
+        int[] rows = new int[seatIds.size()];
+        int[] seats = new int[seatIds.size()];
+        int i = 0;
+        for (String seatId : seatIds) {
+            long position = parse(seatId);
+            if (position < 0) {
+                return false;
+            }
+            rows[i] = (int) (position >>> 32);
+            seats[i] = (int) position;
+            if (isTaken(rowOffset[rows[i]] + seats[i])) {
+                return false;
+            }
+            i++;
+        }
+        for (int j = 0; j < i; j++) {
+            if (!isTaken(rowOffset[rows[j]] + seats[j])) {
+                take(rows[j], seats[j]);
+            }
+        }
+        return true;
+    }
+
+    public synchronized void release(Collection<String> seatIds) {
+        for (String seatId : seatIds) {
+            long position = parse(seatId);
+            if (position < 0) {
+                continue;
+            }
+            int row = (int) (position >>> 32);
+            int bit = rowOffset[row] + (int) position;
+            if (isTaken(bit)) {
+                taken[bit >>> 6] &= ~(1L << bit);
+                rowFree[row]++;
+                freeSeats++;
+            }
+        }
+    }
+
+    public synchronized boolean isAvailable(String seatId) {
+        long position = parse(seatId);
+        return position >= 0 && !isTaken(rowOffset[(int) (position >>> 32)] + (int) position);
+    }
+
+    private int bestBlockInRow(int row, int count) {
+        int base = rowOffset[row];
+        int end = base + rowLength[row];
+        int center2 = rowLength[row];
+        int bestStart = -1;
+        int bestDistance = Integer.MAX_VALUE;
+
+        int runStart = nextClear(base, end);
+        while (runStart < end) {
+            int runEnd = nextSet(runStart, end);
+            if (runEnd - runStart >= count) {
+                // Centre the block as closely as the free run allows (positions doubled to stay integral)
+                int ideal = (center2 - count) / 2 + base;
+                int start = Math.max(runStart, Math.min(ideal, runEnd - count));
+                int distance = Math.abs(2 * (start - base) + count - center2);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestStart = start - base;
+                    if (distance <= 1) {
+                        break;
+                    }
+                }
+            }
+            runStart = nextClear(runEnd, end);
+        }
+        return bestStart;
+    }
+
+    private List<String> allocateScattered(int count) {
+        List<String> seatIds = new ArrayList<>(count);
+        for (int row = 0; row < rowLength.length && seatIds.size() < count; row++) {
+            if (rowFree[row] == 0) {
+                continue;
+            }
+            int base = rowOffset[row];
+            int end = base + rowLength[row];
+            for (int bit = nextClear(base, end); bit < end && seatIds.size() < count; bit = nextClear(bit + 1, end)) {
+                take(row, bit - base);
+                seatIds.add(seatId(row, bit - base));
+            }
+        }
+        return seatIds;
+    }
+
+    private void take(int row, int seat) {
+        int bit = rowOffset[row] + seat;
+        taken[bit >>> 6] |= 1L << bit;
+        rowFree[row]--;
+        freeSeats--;
+    }
+
+    private boolean isTaken(int bit) {
+        return (taken[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private int nextClear(int from, int end) {
+        if (from >= end) {
+            return end;
+        }
+        int word = from >>> 6;
+        long bits = ~taken[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word << 6 >= end) {
+                return end;
+            }
+            bits = ~taken[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(bits), end);
+    }
+
+    private int nextSet(int from, int end) {
+        if (from >= end) {
+            return end;
+        }
+        int word = from >>> 6;
+        long bits = taken[word] & (-1L << from);
+        while (bits == 0) {
+            if (++word << 6 >= end) {
+                return end;
+            }
+            bits = taken[word];
+        }
+        return Math.min((word << 6) + Long.numberOfTrailingZeros(bits), end);
+    }
+
+    private String seatId(int row, int seat) {
+        int section = rowSection[row];
+        return sectionNames[section] + "-" + (row - sectionFirstRow[section] + 1) + "-" + (seat + 1);
+    }
+
+    // Returns (row << 32 | seat) for a valid seat id, or -1
+    private long parse(String seatId) {
+        if (seatId == null) {
+            return -1;
+        }
+        int seatSep = seatId.lastIndexOf('-');
+        int rowSep = seatSep > 0 ? seatId.lastIndexOf('-', seatSep - 1) : -1;
+        if (rowSep <= 0) {
+            return -1;
+        }
+        Integer section = sectionIndex.get(seatId.substring(0, rowSep));
+        if (section == null) {
+            return -1;
+        }
+        int rowInSection;
+        int seat;
+        try {
+            rowInSection = Integer.parseInt(seatId.substring(rowSep + 1, seatSep)) - 1;
+            seat = Integer.parseInt(seatId.substring(seatSep + 1)) - 1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        int sectionEnd = section + 1 < sectionFirstRow.length ? sectionFirstRow[section + 1] : rowLength.length;
+        int row = sectionFirstRow[section] + rowInSection;
+        if (rowInSection < 0 || row >= sectionEnd || seat < 0 || seat >= rowLength[row]) {
+            return -1;
+        }
+        return ((long) row << 32) | seat;
+    }
+
+    public static class Builder {
+        private final List<String> names = new ArrayList<>();
+        private final List<int[]> rows = new ArrayList<>();
+
+        public Builder addSection(String name, int rowCount, int seatsPerRow) {
+            int[] sectionRows = new int[rowCount];
+            Arrays.fill(sectionRows, seatsPerRow);
+            return addSection(name, sectionRows);
+        }
+
+        public Builder addSection(String name, int... seatsPerRow) {
+            if (name == null || name.isEmpty() || names.contains(name)) {
+                throw new IllegalArgumentException("Section name must be unique and non-empty: " + name);
+            }
+            for (int seats : seatsPerRow) {
+                if (seats <= 0) {
+                    throw new IllegalArgumentException("Rows must have at least one seat");
+                }
+            }
+            names.add(name);
+            rows.add(seatsPerRow.clone());
+            return this;
+        }
+
+        public SeatMap build() {
+            return new SeatMap(names, rows);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.concertbooking.model;
+
+import java.time.LocalDateTime;
+
+public class WaitlistEntry {
+    private final String id;
+    private final String concertId;
+    private final String customerName;
+    private final String customerEmail;
+    private final int numberOfSeats;
+    private final LocalDateTime joinedAt;
+    private volatile String bookingId;
+    private volatile String cancelCode;
+    private volatile String rejection;
+
+    public WaitlistEntry(String id, String concertId, String customerName, String customerEmail, int numberOfSeats,
+                         LocalDateTime joinedAt) {
+        this.id = id;
+        this.concertId = concertId;
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.numberOfSeats = numberOfSeats;
+        this.joinedAt = joinedAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getConcertId() {
+        return concertId;
+    }
+
+    public String getCustomerName() {
+        return customerName;
+    }
+
+    public String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    public int getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    public LocalDateTime getJoinedAt() {
+        return joinedAt;
+    }
+
+    // Null while the entry is still waiting
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public boolean isBooked() {
+        return bookingId != null;
+    }
+
+    // The booking's cancel code, for the customer to fetch with the entry's status
+    public String getCancelCode() {
+        return cancelCode;
+    }
+
+    public void setBooking(Booking booking) {
+        this.cancelCode = booking.getCancelCode();
+        this.bookingId = booking.getId();
+    }
+
+    // Why the entry was dropped when its turn came, or null
+    public String getRejection() {
+        return rejection;
+    }
+
+    public boolean isRejected() {
+        return rejection != null;
+    }
+
+    public void reject(String reason) {
+        this.rejection = reason;
+    }
+}
@@ -0,0 +1,75 @@
+package com.concertbooking.notification;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a real delivery service: logs each notification and keeps the latest
+ * ones in memory. {@code latency-ms} and {@code failure-rate} make it behave like a slow
+ * or flaky downstream, to see notifications retried and the booking path stay unaffected.
+ */
+@Component
+public class LocalNotificationSink implements NotificationSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalNotificationSink.class);
+    private static final int KEPT = 100;
+
+    private final long latencyMillis;
+    private final double failureRate;
+    private final AtomicLong delivered = new AtomicLong();
+    private final Deque<Notification> latest = new ArrayDeque<>(KEPT);
+
+    @Autowired
+    public LocalNotificationSink(@Value("${booking.notifications.local.latency-ms:0}") long latencyMillis,
+                                 @Value("${booking.notifications.local.failure-rate:0}") double failureRate) {
+        this.latencyMillis = latencyMillis;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public void deliver(List<Notification> batch) throws IOException, InterruptedException {
+        if (latencyMillis > 0) {
+            Thread.sleep(latencyMillis);
+        }
+        if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new IOException("Simulated delivery failure");
+        }
+        for (Notification notification : batch) {
+            log.debug("{} for booking {} to {}", notification.getType(), notification.getBooking().getId(),
+                    notification.getBooking().getCustomerEmail());
+        }
+        synchronized (latest) {
+            for (Notification notification : batch) {
+                if (latest.size() == KEPT) {
+                    latest.removeFirst();
+                }
+                latest.addLast(notification);
+            }
+        }
+        delivered.addAndGet(batch.size());
+    }
+
+    public long getDeliveredCount() {
+        return delivered.get();
+    }
+
+    /**
+     * The most recently delivered notifications, oldest first.
+     */
+    public List<Notification> getLatest() {
+        synchronized (latest) {
+            return new ArrayList<>(latest);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.concertbooking.notification;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+
+/**
+ * A message owed to a customer about one of their bookings. It holds the booking and
+ * concert rather than a rendered message, so recording one on the booking path is a
+ * single allocation; sinks format it when they deliver.
+ */
+public final class Notification {
+
+    public enum Type {
+        BOOKING_CONFIRMED,
+        BOOKING_CANCELLED
+    }
+
+    private final Type type;
+    private final Concert concert;
+    private final Booking booking;
+    // Only the worker delivering the notification touches this, and hand-offs go through queues
+    private int attempts;
+
+    public Notification(Type type, Concert concert, Booking booking) {
+        this.type = type;
+        this.concert = concert;
+        this.booking = booking;
+    }
+
+    /**
+     * Identifies the notification across retries, so sinks can drop repeat deliveries.
+     */
+    public String getKey() {
+        return booking.getId() + "/" + type;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public Concert getConcert() {
+        return concert;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    int failed() {
+        return ++attempts;
+    }
+}
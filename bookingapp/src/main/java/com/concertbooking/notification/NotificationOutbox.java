@@ -0,0 +1,260 @@
+package com.concertbooking.notification;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.persistence.BookingJournal;
+import com.concertbooking.persistence.PendingNotification;
+import com.concertbooking.service.BookingListener;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.util.HierarchicalTimerWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends booking confirmations and cancellations off the request path. Once a booking
+ * is journaled, its notification is appended to a queue and the booking thread moves
+ * on; a few workers take batches from the queue and hand them to the
+ * {@link NotificationSink}. A failed batch is retried with exponential backoff and
+ * jitter, up to {@code max-attempts} times. At most {@code capacity} notifications are
+ * queued, counting those waiting for a retry; past that, new ones are dropped from the
+ * queue and counted rather than slowing bookings down.
+ * <p>
+ * With the booking journal enabled this is a transactional outbox: the journal records
+ * that a notification is owed in the same record as the booking or cancellation, and
+ * delivered ones are marked there. Notifications still owed at startup, whether lost
+ * in a crash, dropped from a full queue or given up on, are queued again, so each is
+ * delivered at least once. Without the journal they are held only in memory, and a
+ * crash loses any not yet delivered.
+ */
+@Service
+public class NotificationOutbox implements BookingListener {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationOutbox.class);
+
+    private final BookingJournal journal;
+    private final NotificationSink sink;
+    private final int capacity;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final long shutdownGraceMillis;
+
+    private final BlockingQueue<Notification> queue = new LinkedBlockingQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final ExecutorService workers;
+    private final HierarchicalTimerWheel retryWheel;
+    private volatile boolean stopped;
+
+    private final Counter delivered;
+    private final Counter retried;
+    private final Counter failed;
+    private final Counter dropped;
+    private final Timer deliveryTimer;
+
+    @Autowired
+    public NotificationOutbox(BookingService bookingService, BookingJournal journal, NotificationSink sink,
+                              MeterRegistry registry,
+                              @Value("${booking.notifications.enabled:true}") boolean enabled,
+                              @Value("${booking.notifications.capacity:100000}") int capacity,
+                              @Value("${booking.notifications.workers:2}") int workerCount,
+                              @Value("${booking.notifications.batch-size:100}") int batchSize,
+                              @Value("${booking.notifications.max-attempts:6}") int maxAttempts,
+                              @Value("${booking.notifications.backoff-ms:500}") long backoffMillis,
+                              @Value("${booking.notifications.max-backoff-ms:60000}") long maxBackoffMillis,
+                              @Value("${booking.notifications.shutdown-grace-ms:5000}") long shutdownGraceMillis) {
+        this.journal = journal;
+        this.sink = sink;
+        this.capacity = capacity;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxAttempts = Math.max(maxAttempts, 1);
+        this.backoffMillis = Math.max(backoffMillis, 1);
+        this.maxBackoffMillis = Math.max(maxBackoffMillis, this.backoffMillis);
+        this.shutdownGraceMillis = Math.max(shutdownGraceMillis, 0);
+
+        this.delivered = outcome(registry, "delivered");
+        this.retried = outcome(registry, "retried");
+        this.failed = outcome(registry, "failed");
+        this.dropped = outcome(registry, "dropped");
+        this.deliveryTimer = Timer.builder("notification.delivery")
+                .description("Time for the sink to deliver a batch of notifications")
+                .register(registry);
+        Gauge.builder("notification.pending", pending, AtomicInteger::get)
+                .description("Notifications queued or waiting for a retry")
+                .register(registry);
+
+        if (!enabled) {
+            this.workers = null;
+            this.retryWheel = null;
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(workerCount, 1), runnable -> {
+            Thread thread = new Thread(runnable, "notification-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < Math.max(workerCount, 1); i++) {
+            workers.execute(this::drain);
+        }
+        this.retryWheel = new HierarchicalTimerWheel(100, TimeUnit.MILLISECONDS, 512, 3, "notification-retry");
+        // Listening before the owed ones are read may queue a notification twice, but never loses one
+        journal.enableNotifications();
+        bookingService.addListener(this);
+        for (PendingNotification owed : journal.getPendingNotifications()) {
+            Booking booking = owed.getBooking();
+            bookingService.getConcertById(booking.getConcertId()).ifPresent(concert -> offer(new Notification(
+                    owed.isCancellation() ? Notification.Type.BOOKING_CANCELLED : Notification.Type.BOOKING_CONFIRMED,
+                    concert, booking)));
+        }
+    }
+
+    @Override
+    public void bookingCreated(Concert concert, Booking booking) {
+        offer(new Notification(Notification.Type.BOOKING_CONFIRMED, concert, booking));
+    }
+
+    @Override
+    public void bookingCancelled(Concert concert, Booking booking) {
+        offer(new Notification(Notification.Type.BOOKING_CANCELLED, concert, booking));
+    }
+
+    // Imported bookings were confirmed by whatever system they came from
+    @Override
+    public void bookingsImported(Concert concert, List<Booking> bookings) {
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (workers == null) {
+            return;
+        }
+        awaitDrained();
+        stopped = true;
+        workers.shutdownNow();
+        retryWheel.stop();
+        int undelivered = pending.get();
+        if (undelivered > 0) {
+            log.warn(journal.isEnabled()
+                    ? "{} notifications were not delivered before shutdown; they are sent again after a restart"
+                    : "{} notifications were not delivered before shutdown and are lost", undelivered);
+        }
+    }
+
+    // Gives the workers, and retries already scheduled, a bounded chance to empty the queue
+    private void awaitDrained() {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(shutdownGraceMillis);
+        while (pending.get() > 0 && System.nanoTime() - deadline < 0) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void offer(Notification notification) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            dropped.increment();
+            long count = droppedCount.incrementAndGet();
+            // Logged at 1, 2, 4, 8, ... drops, so a long outage does not flood the log
+            if (Long.bitCount(count) == 1) {
+                log.warn("Notification queue is full; {} notifications dropped so far", count);
+            }
+            return;
+        }
+        queue.add(notification);
+    }
+
+    private void drain() {
+        List<Notification> batch = new ArrayList<>(batchSize);
+        while (!stopped) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            deliver(batch);
+            batch.clear();
+        }
+    }
+
+    private void deliver(List<Notification> batch) {
+        long start = System.nanoTime();
+        try {
+            sink.deliver(batch);
+        } catch (InterruptedException e) {
+            // Shutting down; the batch counts as undelivered
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            log.debug("Delivering {} notifications failed", batch.size(), e);
+            for (Notification notification : batch) {
+                retryLater(notification, e);
+            }
+            return;
+        } finally {
+            deliveryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        for (Notification notification : batch) {
+            journal.recordNotified(notification.getBooking(),
+                    notification.getType() == Notification.Type.BOOKING_CANCELLED);
+        }
+        delivered.increment(batch.size());
+        pending.addAndGet(-batch.size());
+    }
+
+    private void retryLater(Notification notification, Exception cause) {
+        int attempts = notification.failed();
+        if (attempts >= maxAttempts || stopped) {
+            pending.decrementAndGet();
+            failed.increment();
+            log.warn("Giving up on notification {} after {} attempts: {}", notification.getKey(), attempts,
+                    cause.toString());
+            return;
+        }
+        retried.increment();
+        long delay = Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+        // Jitter spreads out retries of the same failed batch
+        long jittered = ThreadLocalRandom.current().nextLong(delay / 2, delay + 1);
+        try {
+            retryWheel.schedule(() -> queue.add(notification), jittered, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException e) {
+            // The wheel stopped while this batch was failing; shutdown reports it as undelivered
+        }
+    }
+
+    private static Counter outcome(MeterRegistry registry, String outcome) {
+        return Counter.builder("notification.outcome")
+                .description("Notifications by what became of them")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+}
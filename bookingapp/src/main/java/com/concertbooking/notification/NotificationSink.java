@@ -0,0 +1,16 @@
+package com.concertbooking.notification;
+
+import java.util.List;
+
+/**
+ * Where notifications go: a mail service, a receipt printer, a partner webhook. Called
+ * from the notification workers, never from a booking thread.
+ */
+public interface NotificationSink {
+
+    /**
+     * Delivers a batch. Throwing fails the whole batch, which is retried later, so a
+     * sink that may have delivered part of it should skip keys it has already seen.
+     */
+    void deliver(List<Notification> batch) throws Exception;
+}
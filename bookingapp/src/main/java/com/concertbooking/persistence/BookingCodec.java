@@ -0,0 +1,131 @@
+package com.concertbooking.persistence;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.model.SeatMap;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compact binary encoding of concerts and bookings shared by journal records and snapshots.
+ */
+final class BookingCodec {
+
+    static final byte CONCERT_ADDED = 1;
+    static final byte BOOKING_CREATED = 2;
+    static final byte BOOKING_CANCELLED = 3;
+    static final byte NOTIFICATION_DONE = 4;
+
+    private BookingCodec() {
+    }
+
+    static void writeConcert(DataOutput out, Concert concert) throws IOException {
+        writeString(out, concert.getId());
+        writeString(out, concert.getName());
+        writeString(out, concert.getArtist());
+        writeDateTime(out, concert.getDateTime());
+        writeString(out, concert.getVenue());
+        out.writeDouble(concert.getPrice());
+        out.writeInt(concert.getTotalSeats());
+        SeatMap seatMap = concert.getSeatMap();
+        if (seatMap == null) {
+            out.writeInt(-1);
+            return;
+        }
+        List<String> sections = seatMap.getSectionNames();
+        out.writeInt(sections.size());
+        for (String section : sections) {
+            writeString(out, section);
+            int[] rows = seatMap.getRowLengths(section);
+            out.writeInt(rows.length);
+            for (int seats : rows) {
+                out.writeInt(seats);
+            }
+        }
+    }
+
+    static Concert readConcert(DataInput in) throws IOException {
+        String id = readString(in);
+        String name = readString(in);
+        String artist = readString(in);
+        LocalDateTime dateTime = readDateTime(in);
+        String venue = readString(in);
+        double price = in.readDouble();
+        int totalSeats = in.readInt();
+        int sections = in.readInt();
+        if (sections < 0) {
+            return new Concert(id, name, artist, dateTime, venue, price, totalSeats);
+        }
+        SeatMap.Builder seatMap = SeatMap.builder();
+        for (int s = 0; s < sections; s++) {
+            String section = readString(in);
+            int[] rows = new int[in.readInt()];
+            for (int r = 0; r < rows.length; r++) {
+                rows[r] = in.readInt();
+            }
+            seatMap.addSection(section, rows);
+        }
+        return new Concert(id, name, artist, dateTime, venue, price, seatMap.build());
+    }
+
+    static void writeBooking(DataOutput out, Booking booking) throws IOException {
+        writeString(out, booking.getId());
+        writeString(out, booking.getConcertId());
+        writeString(out, booking.getCustomerName());
+        writeString(out, booking.getCustomerEmail());
+        out.writeInt(booking.getNumberOfSeats());
+        writeDateTime(out, booking.getBookingTime());
+        out.writeDouble(booking.getTotalPrice());
+        List<String> seatIds = booking.getSeatIds();
+        out.writeInt(seatIds.size());
+        for (String seatId : seatIds) {
+            out.writeUTF(seatId);
+        }
+        out.writeUTF(booking.getCancelCode());
+    }
+
+    static Booking readBooking(DataInput in) throws IOException {
+        String id = readString(in);
+        String concertId = readString(in);
+        String customerName = readString(in);
+        String customerEmail = readString(in);
+        int numberOfSeats = in.readInt();
+        LocalDateTime bookingTime = readDateTime(in);
+        double totalPrice = in.readDouble();
+        int seatCount = in.readInt();
+        List<String> seatIds = seatCount == 0 ? Collections.<String>emptyList() : new ArrayList<>(seatCount);
+        for (int i = 0; i < seatCount; i++) {
+            seatIds.add(in.readUTF());
+        }
+        return new Booking(id, concertId, customerName, customerEmail, numberOfSeats, bookingTime, totalPrice, seatIds,
+                in.readUTF());
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDateTime(DataOutput out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInput in) throws IOException {
+        long epochSecond = in.readLong();
+        return LocalDateTime.ofEpochSecond(epochSecond, in.readInt(), ZoneOffset.UTC);
+    }
+}
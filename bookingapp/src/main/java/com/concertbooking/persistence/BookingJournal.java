@@ -0,0 +1,396 @@
+package com.concertbooking.persistence;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Durable record of concert and booking events: a memory-mapped write-ahead log plus
+ * periodic snapshots. On startup the newest snapshot is loaded and the log is replayed
+ * from the position that snapshot covers. When disabled every method is a no-op.
+ * <p>
+ * A failed write or flush stops the journal: records appended before it may still
+ * reach disk, so it is no longer known what a restart would replay, and every later
+ * record is refused until the process restarts. Callers undo what they rejected with
+ * {@link #recordDiscarded} and {@link #recordReinstated}, which still append.
+ * <p>
+ * Once {@link #enableNotifications} is called, the journal is also the notification
+ * outbox: each booking or cancellation record says, in the same record, whether its
+ * customer is owed a notification, and {@link #recordNotified} appends a marker once it
+ * has been delivered. Notifications still owed are kept in snapshots and rebuilt on
+ * replay, so none is lost in a crash; one delivered just before a crash may be
+ * delivered again.
+ */
+@Component
+public class BookingJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingJournal.class);
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSizeBytes;
+    private final boolean fsync;
+    private final long snapshotIntervalSeconds;
+
+    private volatile WriteAheadLog wal;
+    private volatile IllegalStateException failure;
+    private volatile boolean notifying;
+    private final ConcurrentMap<String, PendingNotification> pendingNotifications = new ConcurrentHashMap<>();
+    private SnapshotStore snapshots;
+    private ScheduledExecutorService snapshotExecutor;
+
+    @Autowired
+    public BookingJournal(@Value("${booking.journal.enabled:false}") boolean enabled,
+                          @Value("${booking.journal.dir:data/journal}") String directory,
+                          @Value("${booking.journal.segment-size-mb:64}") int segmentSizeMb,
+                          @Value("${booking.journal.fsync:true}") boolean fsync,
+                          @Value("${booking.journal.snapshot-interval-seconds:300}") long snapshotIntervalSeconds) {
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSizeBytes = segmentSizeMb * 1024 * 1024;
+        this.fsync = fsync;
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+
+    public static BookingJournal disabled() {
+        return new BookingJournal(false, "", 0, false, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Restores the latest snapshot and replays the log into {@code handler}, then opens
+     * the log for appending. Returns true if any prior state was found.
+     */
+    public synchronized boolean open(JournalReplayHandler handler) {
+        if (!enabled || wal != null) {
+            return false;
+        }
+        try {
+            Files.createDirectories(directory);
+            snapshots = new SnapshotStore(directory);
+            long snapshotPosition = snapshots.loadLatest(handler, this::owe);
+            boolean[] replayed = {false};
+            long started = System.nanoTime();
+            wal = WriteAheadLog.open(directory, segmentSizeBytes, fsync, Math.max(snapshotPosition, 0),
+                    payload -> {
+                        replayed[0] = true;
+                        replay(payload, handler);
+                    });
+            log.info("Booking journal recovered in {} ms (snapshot position {}, log position {})",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started), snapshotPosition, wal.position());
+            return snapshotPosition >= 0 || replayed[0];
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not open booking journal in " + directory, e);
+        }
+    }
+
+    public void recordConcert(Concert concert) {
+        if (wal == null) {
+            return;
+        }
+        awaitDurable(append(BookingCodec.CONCERT_ADDED, out -> BookingCodec.writeConcert(out, concert)));
+    }
+
+    public void recordBooking(Booking booking) {
+        recordBookings(Collections.singletonList(booking));
+    }
+
+    /**
+     * Appends all bookings and waits for a single flush covering them.
+     */
+    public void recordBookings(Collection<Booking> bookings) {
+        recordBookings(bookings, notifying);
+    }
+
+    /**
+     * Like {@link #recordBookings}, for bookings whose customers are not notified, such
+     * as imports.
+     */
+    public void recordImportedBookings(Collection<Booking> bookings) {
+        recordBookings(bookings, false);
+    }
+
+    public void recordCancellation(Booking booking) {
+        if (wal == null) {
+            return;
+        }
+        boolean notify = notifying;
+        if (notify) {
+            owe(new PendingNotification(booking, true));
+        }
+        awaitDurable(append(BookingCodec.BOOKING_CANCELLED, out -> writeCancellation(out, booking, notify)));
+    }
+
+    /**
+     * Appends cancellations of bookings whose recording failed and that were rejected,
+     * so that if their records reach disk after all, replay removes them again. Best
+     * effort, and accepted even after the journal has stopped.
+     */
+    public void recordDiscarded(Collection<Booking> bookings) {
+        compensate(bookings, BookingCodec.BOOKING_CANCELLED);
+    }
+
+    /**
+     * Appends bookings again whose cancellation failed to record and was rejected, so
+     * that if the cancellation reaches disk after all, replay restores them.
+     */
+    public void recordReinstated(Booking booking) {
+        compensate(Collections.singletonList(booking), BookingCodec.BOOKING_CREATED);
+    }
+
+    /**
+     * From now on, bookings and cancellations recorded here owe their customer a
+     * notification until {@link #recordNotified} is called for it.
+     */
+    public void enableNotifications() {
+        notifying = true;
+    }
+
+    /**
+     * Notifications recorded, or recovered, and not yet marked delivered.
+     */
+    public List<PendingNotification> getPendingNotifications() {
+        return new ArrayList<>(pendingNotifications.values());
+    }
+
+    /**
+     * Marks a notification delivered. The marker is not flushed on its own, so a crash
+     * before the next flush delivers the notification again after the restart.
+     */
+    public void recordNotified(Booking booking, boolean cancellation) {
+        String key = PendingNotification.key(booking.getId(), cancellation);
+        if (wal == null || pendingNotifications.remove(key) == null) {
+            return;
+        }
+        try {
+            append(BookingCodec.NOTIFICATION_DONE, out -> writeNotificationDone(out, booking, cancellation));
+        } catch (IllegalStateException e) {
+            log.debug("Could not mark the notification for booking {} delivered", booking.getId(), e);
+        }
+    }
+
+    /** The failure that stopped the journal, if any. */
+    public IllegalStateException getFailure() {
+        return failure;
+    }
+
+    /**
+     * Writes snapshots every configured interval. The supplier is called after the log
+     * position is read, so anything it misses is still replayed from the log.
+     */
+    public synchronized void startSnapshots(Supplier<Collection<Concert>> concerts,
+                                            Function<String, List<Booking>> bookingsByConcert) {
+        if (wal == null || snapshotExecutor != null || snapshotIntervalSeconds <= 0) {
+            return;
+        }
+        snapshotExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        snapshotExecutor.scheduleWithFixedDelay(() -> snapshot(concerts, bookingsByConcert),
+                snapshotIntervalSeconds, snapshotIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public void snapshot(Supplier<Collection<Concert>> concerts, Function<String, List<Booking>> bookingsByConcert) {
+        if (wal == null) {
+            return;
+        }
+        try {
+            long position = wal.position();
+            snapshots.write(position, concerts.get(), bookingsByConcert, getPendingNotifications());
+            wal.deleteBefore(position);
+        } catch (IOException | RuntimeException e) {
+            log.error("Booking snapshot failed", e);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (snapshotExecutor != null) {
+            snapshotExecutor.shutdownNow();
+        }
+        if (wal != null) {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.warn("Could not close booking journal cleanly", e);
+            }
+            wal = null;
+        }
+    }
+
+    private void recordBookings(Collection<Booking> bookings, boolean notify) {
+        if (wal == null || bookings.isEmpty()) {
+            return;
+        }
+        long position = 0;
+        for (Booking booking : bookings) {
+            // Owed before the record is appended, so a snapshot taken meanwhile cannot miss it
+            if (notify) {
+                owe(new PendingNotification(booking, false));
+            }
+            position = append(BookingCodec.BOOKING_CREATED, out -> writeCreation(out, booking, notify));
+        }
+        awaitDurable(position);
+    }
+
+    private void owe(PendingNotification notification) {
+        pendingNotifications.put(notification.key(), notification);
+    }
+
+    private long append(byte type, RecordWriter writer) {
+        checkNotFailed();
+        try {
+            return wal.append(encode(type, writer));
+        } catch (IOException | UncheckedIOException e) {
+            throw fail("Could not write to the booking journal", e);
+        }
+    }
+
+    private void awaitDurable(long position) {
+        checkNotFailed();
+        try {
+            wal.awaitDurable(position);
+        } catch (IOException | UncheckedIOException e) {
+            throw fail("Could not flush the booking journal", e);
+        }
+    }
+
+    private void compensate(Collection<Booking> bookings, byte type) {
+        WriteAheadLog current = wal;
+        if (current == null || bookings.isEmpty()) {
+            return;
+        }
+        try {
+            long position = 0;
+            for (Booking booking : bookings) {
+                boolean created = type == BookingCodec.BOOKING_CREATED;
+                position = current.append(encode(type, out -> {
+                    if (created) {
+                        writeCreation(out, booking, false);
+                    } else {
+                        writeCancellation(out, booking, false);
+                    }
+                }));
+                // The customer was told this failed, so a discarded booking's confirmation, or a
+                // reinstated booking's cancellation notice, is no longer owed
+                if (pendingNotifications.remove(PendingNotification.key(booking.getId(), created)) != null) {
+                    position = current.append(encode(BookingCodec.NOTIFICATION_DONE,
+                            out -> writeNotificationDone(out, booking, created)));
+                }
+            }
+            current.awaitDurable(position);
+        } catch (IOException | RuntimeException e) {
+            log.error("Could not record the undoing of {} rejected journal records; replay may restore them",
+                    bookings.size(), e);
+        }
+    }
+
+    private void checkNotFailed() {
+        IllegalStateException stopped = failure;
+        if (stopped != null) {
+            throw new IllegalStateException("The booking journal stopped after a failure; restart to recover",
+                    stopped);
+        }
+    }
+
+    private synchronized IllegalStateException fail(String message, Exception cause) {
+        IllegalStateException e = new IllegalStateException(message, cause);
+        if (failure == null) {
+            failure = e;
+            log.error("Booking journal stopped; no further changes are accepted until a restart", e);
+        }
+        return e;
+    }
+
+    private static byte[] encode(byte type, RecordWriter writer) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(type);
+        writer.write(out);
+        return bytes.toByteArray();
+    }
+
+    private static void writeCreation(DataOutputStream out, Booking booking, boolean notify) throws IOException {
+        BookingCodec.writeBooking(out, booking);
+        out.writeBoolean(notify);
+    }
+
+    // A cancellation that owes a notification carries the booking, which is gone by replay
+    private static void writeCancellation(DataOutputStream out, Booking booking, boolean notify) throws IOException {
+        out.writeUTF(booking.getConcertId());
+        out.writeUTF(booking.getId());
+        out.writeBoolean(notify);
+        if (notify) {
+            BookingCodec.writeBooking(out, booking);
+        }
+    }
+
+    private static void writeNotificationDone(DataOutputStream out, Booking booking, boolean cancellation)
+            throws IOException {
+        out.writeUTF(booking.getId());
+        out.writeBoolean(cancellation);
+    }
+
+    private void replay(byte[] payload, JournalReplayHandler handler) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        byte type = in.readByte();
+        switch (type) {
+            case BookingCodec.CONCERT_ADDED:
+                handler.concertRestored(BookingCodec.readConcert(in));
+                break;
+            case BookingCodec.BOOKING_CREATED:
+                Booking booking = BookingCodec.readBooking(in);
+                handler.bookingRestored(booking);
+                if (in.readBoolean()) {
+                    owe(new PendingNotification(booking, false));
+                }
+                break;
+            case BookingCodec.BOOKING_CANCELLED:
+                handler.bookingCancelled(in.readUTF(), in.readUTF());
+                if (in.readBoolean()) {
+                    owe(new PendingNotification(BookingCodec.readBooking(in), true));
+                }
+                break;
+            case BookingCodec.NOTIFICATION_DONE:
+                pendingNotifications.remove(PendingNotification.key(in.readUTF(), in.readBoolean()));
+                break;
+            default:
+                log.warn("Skipping unknown journal record type {}", type);
+        }
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,17 @@
+package com.concertbooking.persistence;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+
+/**
+ * Receives recovered state in journal order. Records may repeat state already restored
+ * from the snapshot, so implementations must treat them idempotently.
+ */
+public interface JournalReplayHandler {
+
+    void concertRestored(Concert concert);
+
+    void bookingRestored(Booking booking);
+
+    void bookingCancelled(String concertId, String bookingId);
+}
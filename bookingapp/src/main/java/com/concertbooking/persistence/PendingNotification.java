@@ -0,0 +1,34 @@
+package com.concertbooking.persistence;
+
+import com.concertbooking.model.Booking;
+
+/**
+ * A notification the journal owes a customer and has not seen delivered: the
+ * confirmation of a booking, or its cancellation.
+ */
+public final class PendingNotification {
+
+    private final Booking booking;
+    private final boolean cancellation;
+
+    PendingNotification(Booking booking, boolean cancellation) {
+        this.booking = booking;
+        this.cancellation = cancellation;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    public boolean isCancellation() {
+        return cancellation;
+    }
+
+    String key() {
+        return key(booking.getId(), cancellation);
+    }
+
+    static String key(String bookingId, boolean cancellation) {
+        return bookingId + (cancellation ? "/cancelled" : "/confirmed");
+    }
+}
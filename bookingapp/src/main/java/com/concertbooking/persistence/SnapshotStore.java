@@ -0,0 +1,174 @@
+package com.concertbooking.persistence;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Full-state snapshots, each tagged with the journal position it covers and holding
+ * the notifications still owed as well as concerts and bookings. Files are
+ * written to a temporary name and atomically renamed, and carry a trailing CRC32 so
+ * a damaged snapshot falls back to the previous one.
+ */
+final class SnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SnapshotStore.class);
+    private static final String PREFIX = "snapshot-";
+    private static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x424B534E;
+    private static final int VERSION = 3;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final Path directory;
+
+    SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    void write(long journalPosition, Collection<Concert> concerts, Function<String, List<Booking>> bookingsByConcert,
+               Collection<PendingNotification> notifications) throws IOException {
+        Path target = snapshotPath(journalPosition);
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream file = new FileOutputStream(temp.toFile());
+             DataOutputStream out = new DataOutputStream(
+                     new CheckedOutputStream(new BufferedOutputStream(file, BUFFER_BYTES), crc))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(journalPosition);
+            out.writeInt(concerts.size());
+            for (Concert concert : concerts) {
+                BookingCodec.writeConcert(out, concert);
+                List<Booking> bookings = bookingsByConcert.apply(concert.getId());
+                out.writeInt(bookings.size());
+                for (Booking booking : bookings) {
+                    BookingCodec.writeBooking(out, booking);
+                }
+            }
+            out.writeInt(notifications.size());
+            for (PendingNotification notification : notifications) {
+                out.writeBoolean(notification.isCancellation());
+                BookingCodec.writeBooking(out, notification.getBooking());
+            }
+            out.flush();
+            // Trailer is written outside the checksum it records
+            DataOutputStream trailer = new DataOutputStream(file);
+            trailer.writeLong(crc.getValue());
+            trailer.flush();
+            file.getFD().sync();
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        deleteOlderThan(journalPosition);
+    }
+
+    /**
+     * Loads the newest intact snapshot into {@code handler} and {@code notifications}
+     * and returns the journal position it covers, or -1 if there is none.
+     */
+    long loadLatest(JournalReplayHandler handler, Consumer<PendingNotification> notifications) throws IOException {
+        List<Long> positions = listPositions();
+        for (int i = positions.size() - 1; i >= 0; i--) {
+            long position = positions.get(i);
+            if (verify(snapshotPath(position))) {
+                load(snapshotPath(position), handler, notifications);
+                return position;
+            }
+            log.warn("Skipping damaged snapshot {}", snapshotPath(position));
+        }
+        return -1;
+    }
+
+    private boolean verify(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < Long.BYTES) {
+            return false;
+        }
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_BYTES];
+        try (InputStream in = Files.newInputStream(path)) {
+            long remaining = size - Long.BYTES;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    return false;
+                }
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+            return new DataInputStream(in).readLong() == crc.getValue();
+        }
+    }
+
+    private void load(Path path, JournalReplayHandler handler, Consumer<PendingNotification> notifications)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Unsupported snapshot format: " + path);
+            }
+            in.readLong();
+            int concerts = in.readInt();
+            for (int c = 0; c < concerts; c++) {
+                handler.concertRestored(BookingCodec.readConcert(in));
+                int bookings = in.readInt();
+                for (int b = 0; b < bookings; b++) {
+                    handler.bookingRestored(BookingCodec.readBooking(in));
+                }
+            }
+            int pending = in.readInt();
+            for (int n = 0; n < pending; n++) {
+                boolean cancellation = in.readBoolean();
+                notifications.accept(new PendingNotification(BookingCodec.readBooking(in), cancellation));
+            }
+        }
+    }
+
+    private void deleteOlderThan(long journalPosition) throws IOException {
+        for (long position : listPositions()) {
+            if (position < journalPosition) {
+                Files.deleteIfExists(snapshotPath(position));
+            }
+        }
+    }
+
+    private List<Long> listPositions() throws IOException {
+        List<Long> positions = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    positions.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected snapshot file {}", file);
+                }
+            }
+        }
+        Collections.sort(positions);
+        return positions;
+    }
+
+    private Path snapshotPath(long journalPosition) {
+        return directory.resolve(String.format("%s%020d%s", PREFIX, journalPosition, SUFFIX));
+    }
+}
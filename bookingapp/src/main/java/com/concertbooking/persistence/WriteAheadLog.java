@@ -0,0 +1,320 @@
+package com.concertbooking.persistence;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of memory-mapped segment files. Each record is a length, a CRC32 and
+ * the payload; a zero length marks the end of a segment's data. Positions are global
+ * byte offsets, and a segment file is named after the position of its first byte.
+ *
+ * <p>Durability uses group commit: the first caller waiting on {@link #awaitDurable(long)}
+ * forces every pending write to disk, and callers that arrived in the meantime are
+ * released by that same flush.
+ */
+final class WriteAheadLog implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteAheadLog.class);
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int HEADER_BYTES = 8;
+
+    interface RecordConsumer {
+        void accept(byte[] payload) throws IOException;
+    }
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean fsync;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final List<Segment> unforcedSegments = new ArrayList<>();
+    private Segment current;
+    private long writePosition;
+
+    // A lock rather than a monitor, so waiting followers do not pin virtual-thread carriers
+    private final ReentrantLock durabilityLock = new ReentrantLock();
+    private final Condition flushed = durabilityLock.newCondition();
+    private long durablePosition;
+    private boolean flushing;
+
+    private WriteAheadLog(Path directory, int segmentSize, boolean fsync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Opens the log, handing every intact record at or after {@code fromPosition} to
+     * {@code consumer}, and positions the writer after the last intact record.
+     */
+    static WriteAheadLog open(Path directory, int segmentSize, boolean fsync, long fromPosition,
+                              RecordConsumer consumer) throws IOException {
+        WriteAheadLog wal = new WriteAheadLog(directory, segmentSize, fsync);
+        List<Long> bases = listSegmentBases(directory);
+        if (bases.isEmpty()) {
+            wal.current = wal.openSegment(fromPosition);
+            wal.writePosition = fromPosition;
+        }
+        for (int i = 0; i < bases.size(); i++) {
+            boolean last = i == bases.size() - 1;
+            Segment segment = wal.openSegment(bases.get(i));
+            int end = scan(segment, fromPosition, consumer, last);
+            if (last) {
+                wal.current = segment;
+                wal.writePosition = segment.base + end;
+            } else {
+                segment.close();
+            }
+        }
+        wal.durablePosition = wal.writePosition;
+        return wal;
+    }
+
+    long position() {
+        appendLock.lock();
+        try {
+            return writePosition;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Appends a record and returns the log position just after it. The record is visible
+     * to the OS immediately; call {@link #awaitDurable(long)} to wait for it to reach disk.
+     */
+    long append(byte[] payload) throws IOException {
+        int needed = HEADER_BYTES + payload.length;
+        if (needed > segmentSize) {
+            throw new IOException("Journal record of " + payload.length + " bytes exceeds the segment size");
+        }
+        int crc = crc(payload);
+
+        appendLock.lock();
+        try {
+            int offset = (int) (writePosition - current.base);
+            if (current.buffer.capacity() - offset < needed) {
+                roll();
+                offset = 0;
+            }
+            MappedByteBuffer buffer = current.buffer;
+            buffer.putInt(offset + 4, crc);
+            ((Buffer) buffer).position(offset + HEADER_BYTES);
+            buffer.put(payload);
+            // Length goes last so a half-written record never looks complete
+            buffer.putInt(offset, payload.length);
+            writePosition += needed;
+            return writePosition;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    void awaitDurable(long position) throws IOException {
+        if (!fsync) {
+            return;
+        }
+        durabilityLock.lock();
+        try {
+            while (durablePosition < position && flushing) {
+                try {
+                    flushed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for the journal flush");
+                }
+            }
+            if (durablePosition >= position) {
+                return;
+            }
+            flushing = true;
+        } finally {
+            durabilityLock.unlock();
+        }
+
+        // This thread is the flush leader for everything appended so far
+        long target;
+        List<Segment> toForce;
+        appendLock.lock();
+        try {
+            target = writePosition;
+            toForce = new ArrayList<>(unforcedSegments);
+            unforcedSegments.clear();
+            toForce.add(current);
+        } finally {
+            appendLock.unlock();
+        }
+
+        boolean forced = false;
+        try {
+            for (Segment segment : toForce) {
+                segment.buffer.force();
+            }
+            forced = true;
+        } finally {
+            durabilityLock.lock();
+            try {
+                if (forced) {
+                    durablePosition = Math.max(durablePosition, target);
+                }
+                flushing = false;
+                flushed.signalAll();
+            } finally {
+                durabilityLock.unlock();
+            }
+        }
+        // Sealed segments are complete once forced; only the active one stays open
+        for (int i = 0; i < toForce.size() - 1; i++) {
+            toForce.get(i).close();
+        }
+    }
+
+    /**
+     * Deletes segments whose records all precede {@code position}, e.g. after a snapshot.
+     */
+    void deleteBefore(long position) throws IOException {
+        long currentBase;
+        appendLock.lock();
+        try {
+            currentBase = current.base;
+        } finally {
+            appendLock.unlock();
+        }
+        List<Long> bases = listSegmentBases(directory);
+        for (int i = 0; i + 1 < bases.size(); i++) {
+            long nextBase = bases.get(i + 1);
+            if (nextBase <= position && bases.get(i) < currentBase) {
+                Files.deleteIfExists(segmentPath(directory, bases.get(i)));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            for (Segment segment : unforcedSegments) {
+                segment.buffer.force();
+                segment.close();
+            }
+            unforcedSegments.clear();
+            current.buffer.force();
+            current.close();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void roll() throws IOException {
+        Segment next = openSegment(current.base + current.buffer.capacity());
+        if (fsync) {
+            unforcedSegments.add(current);
+        } else {
+            current.close();
+        }
+        current = next;
+        writePosition = next.base;
+    }
+
+    private Segment openSegment(long base) throws IOException {
+        Path path = segmentPath(directory, base);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long size = Math.max(channel.size(), segmentSize);
+        return new Segment(base, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    // Returns the offset just past the last intact record in the segment
+    private static int scan(Segment segment, long fromPosition, RecordConsumer consumer, boolean last)
+            throws IOException {
+        MappedByteBuffer buffer = segment.buffer;
+        int capacity = buffer.capacity();
+        int offset = 0;
+        while (capacity - offset >= HEADER_BYTES) {
+            int length = buffer.getInt(offset);
+            if (length == 0) {
+                return offset;
+            }
+            byte[] payload = null;
+            if (length > 0 && length <= capacity - offset - HEADER_BYTES) {
+                payload = new byte[length];
+                ((Buffer) buffer).position(offset + HEADER_BYTES);
+                buffer.get(payload);
+            }
+            if (payload == null || crc(payload) != buffer.getInt(offset + 4)) {
+                log.warn("Discarding torn journal record at position {}", segment.base + offset);
+                if (last) {
+                    int end = payload != null ? offset + HEADER_BYTES + length : offset + HEADER_BYTES;
+                    for (int i = offset; i < end; i++) {
+                        buffer.put(i, (byte) 0);
+                    }
+                }
+                return offset;
+            }
+            if (segment.base + offset >= fromPosition) {
+                consumer.accept(payload);
+            }
+            offset += HEADER_BYTES + length;
+        }
+        return offset;
+    }
+
+    private static int crc(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        return (int) crc.getValue();
+    }
+
+    private static List<Long> listSegmentBases(Path directory) throws IOException {
+        List<Long> bases = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    bases.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    log.warn("Ignoring unexpected journal file {}", file);
+                }
+            }
+        }
+        bases.sort(null);
+        return bases;
+    }
+
+    private static Path segmentPath(Path directory, long base) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, base, SEGMENT_SUFFIX));
+    }
+
+    private static final class Segment {
+        final long base;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+
+        Segment(long base, FileChannel channel, MappedByteBuffer buffer) {
+            this.base = base;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
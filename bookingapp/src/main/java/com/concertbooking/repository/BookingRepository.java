@@ -0,0 +1,516 @@
+package com.concertbooking.repository;
+
+import com.concertbooking.model.Booking;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bookings indexed by id, by concert and by normalized customer email. Bookings are
+ * stored column by column in fixed-size chunks of primitive arrays rather than as one
+ * object each: ids and cancel codes as two longs each, concert ids, names and emails as
+ * dictionary codes, booking times as epoch millis and prices as cents, about 66 bytes a
+ * row. Reads
+ * return {@link Booking} views built from a row.
+ * <p>
+ * Each booking's row number is its sequence; the concert and customer indexes list
+ * rows in ascending order, which keeps insertion order and lets pages resume from a
+ * row. A removed row keeps its slot and its index entries with no seats, which readers
+ * skip; an index list is compacted once half of it is removed rows.
+ * <p>
+ * Locks are striped by concert, by customer and by id, so bookings for different
+ * concerts do not wait for each other or for reads of other concerts. A save holds its
+ * concert's and customer's stripes while it takes the next row, which keeps both lists
+ * in row order; only taking the row and writing its columns is shared by all saves.
+ */
+@Repository
+public class BookingRepository {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int STRIPES = 64;
+
+    private final ReadWriteLock[] concertLocks = newLocks();
+    private final ReadWriteLock[] customerLocks = newLocks();
+    private final IdStripe[] idStripes = new IdStripe[STRIPES];
+    // Guards taking a row, growing the chunk table and interning
+    private final Object appendLock = new Object();
+
+    private volatile Chunk[] chunks = new Chunk[16];
+    // Written after a row's columns, so a reader sees every row below it in full
+    private volatile int rowCount;
+    private final AtomicInteger size = new AtomicInteger();
+    private final Map<Integer, String> irregularIds = new ConcurrentHashMap<>();
+    private final StringDictionary concertIds = new StringDictionary();
+    private final StringDictionary customerNames = new StringDictionary();
+    private final StringDictionary customerEmails = new StringDictionary();
+    private final ConcurrentMap<String, IntList> rowsByConcert = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IntList> rowsByCustomer = new ConcurrentHashMap<>();
+
+    public BookingRepository() {
+        for (int i = 0; i < STRIPES; i++) {
+            idStripes[i] = new IdStripe();
+        }
+    }
+
+    public boolean save(Booking booking) {
+        UUID uuid = parseId(booking.getId());
+        long[] cancelCode = parseCancelCode(booking.getCancelCode());
+        String customerKey = normalizeEmail(booking.getCustomerEmail());
+        Lock concertLock = stripe(concertLocks, booking.getConcertId()).writeLock();
+        Lock customerLock = stripe(customerLocks, customerKey).writeLock();
+        IdStripe ids = idStripes[stripeIndex(booking.getId())];
+        concertLock.lock();
+        customerLock.lock();
+        ids.lock.writeLock().lock();
+        try {
+            if (ids.find(booking.getId(), uuid) >= 0) {
+                return false;
+            }
+            int row = append(booking, uuid, cancelCode);
+            ids.put(booking.getId(), uuid, row);
+            rowsByConcert.computeIfAbsent(booking.getConcertId(), key -> new IntList()).add(row);
+            rowsByCustomer.computeIfAbsent(customerKey, key -> new IntList()).add(row);
+            size.incrementAndGet();
+            return true;
+        } finally {
+            ids.lock.writeLock().unlock();
+            customerLock.unlock();
+            concertLock.unlock();
+        }
+    }
+
+    public boolean remove(Booking booking) {
+        UUID uuid = parseId(booking.getId());
+        IdStripe ids = idStripes[stripeIndex(booking.getId())];
+        int row;
+        ids.lock.readLock().lock();
+        try {
+            row = ids.find(booking.getId(), uuid);
+        } finally {
+            ids.lock.readLock().unlock();
+        }
+        if (row < 0) {
+            return false;
+        }
+        Chunk chunk = chunks[row >>> CHUNK_BITS];
+        int i = row & CHUNK_MASK;
+        String concertId = concertIds.get(chunk.concert[i]);
+        String customerKey = normalizeEmail(customerEmails.get(chunk.customerEmail[i]));
+        Lock concertLock = stripe(concertLocks, concertId).writeLock();
+        Lock customerLock = stripe(customerLocks, customerKey).writeLock();
+        concertLock.lock();
+        customerLock.lock();
+        ids.lock.writeLock().lock();
+        try {
+            if (ids.find(booking.getId(), uuid) != row) {
+                return false;
+            }
+            ids.remove(booking.getId(), uuid);
+            chunk.seatIds[i] = null;
+            // Every booking has seats, so this marks the row as removed for all readers
+            chunk.seats[i] = 0;
+            unlink(rowsByConcert.get(concertId));
+            unlink(rowsByCustomer.get(customerKey));
+            size.decrementAndGet();
+            return true;
+        } finally {
+            ids.lock.writeLock().unlock();
+            customerLock.unlock();
+            concertLock.unlock();
+        }
+    }
+
+    public Optional<Booking> findById(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        UUID uuid = parseId(id);
+        IdStripe ids = idStripes[stripeIndex(id)];
+        ids.lock.readLock().lock();
+        try {
+            int row = ids.find(id, uuid);
+            return row < 0 ? Optional.empty() : Optional.of(toBooking(row));
+        } finally {
+            ids.lock.readLock().unlock();
+        }
+    }
+
+    public List<Booking> findByConcertId(String concertId) {
+        return findAll(concertLocks, rowsByConcert, concertId);
+    }
+
+    public List<Booking> findByCustomerEmail(String customerEmail) {
+        return findAll(customerLocks, rowsByCustomer, normalizeEmail(customerEmail));
+    }
+
+    /**
+     * Returns up to {@code limit} of the concert's bookings saved after {@code cursor}
+     * (0 for the first page), in booking order.
+     */
+    public Page<Booking> findByConcertId(String concertId, long cursor, int limit) {
+        return page(concertLocks, rowsByConcert, concertId, cursor, limit);
+    }
+
+    public Page<Booking> findByCustomerEmail(String customerEmail, long cursor, int limit) {
+        return page(customerLocks, rowsByCustomer, normalizeEmail(customerEmail), cursor, limit);
+    }
+
+    /**
+     * Returns the concert's last {@code limit} bookings, newest first.
+     */
+    public List<Booking> findLatestByConcertId(String concertId, int limit) {
+        List<Booking> bookings = new ArrayList<>(Math.max(Math.min(limit, 1000), 0));
+        Lock lock = stripe(concertLocks, concertId).readLock();
+        lock.lock();
+        try {
+            IntList rows = rows(rowsByConcert, concertId);
+            for (int i = rows == null ? -1 : rows.size() - 1; i >= 0 && bookings.size() < limit; i--) {
+                if (isLive(rows.get(i))) {
+                    bookings.add(toBooking(rows.get(i)));
+                }
+            }
+            return bookings;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} bookings made in {@code [from, to)}, for one concert or
+     * for all of them when {@code concertId} is null, saved after {@code cursor}, in
+     * booking order. A page may hold fewer bookings than the limit while more follow,
+     * as each call looks at a bounded number of rows to stay short. Across all concerts
+     * no lock is taken: rows below the row count are complete, and a booking removed
+     * during the scan may or may not be in the page.
+     */
+    public Page<Booking> findByBookingTime(String concertId, LocalDateTime from, LocalDateTime to, long cursor,
+                                           int limit) {
+        long fromMillis = from != null ? toEpochMillis(from) : Long.MIN_VALUE;
+        long toMillis = to != null ? toEpochMillis(to) : Long.MAX_VALUE;
+        List<Booking> items = new ArrayList<>(Math.max(Math.min(limit, 1000), 0));
+        if (limit <= 0 || cursor >= Integer.MAX_VALUE) {
+            return new Page<>(items, -1);
+        }
+        int scanLimit = (int) Math.min((long) limit * 16, Integer.MAX_VALUE);
+        if (concertId != null) {
+            Lock lock = stripe(concertLocks, concertId).readLock();
+            lock.lock();
+            try {
+                IntList rows = rows(rowsByConcert, concertId);
+                if (rows == null) {
+                    return new Page<>(items, -1);
+                }
+                int start = rows.firstAtLeast((int) Math.max(cursor, 0));
+                int stop = (int) Math.min((long) start + scanLimit, rows.size());
+                for (int i = start; i < stop; i++) {
+                    int row = rows.get(i);
+                    if (isLive(row) && bookedIn(row, fromMillis, toMillis)) {
+                        items.add(toBooking(row));
+                        if (items.size() == limit) {
+                            return new Page<>(items, i + 1 < rows.size() ? row + 1L : -1);
+                        }
+                    }
+                }
+                return new Page<>(items, stop < rows.size() ? rows.get(stop - 1) + 1L : -1);
+            } finally {
+                lock.unlock();
+            }
+        }
+        int rowLimit = rowCount;
+        int first = (int) Math.max(cursor, 0);
+        int end = (int) Math.min((long) first + scanLimit, rowLimit);
+        for (int row = first; row < end; row++) {
+            if (isLive(row) && bookedIn(row, fromMillis, toMillis)) {
+                Booking booking = toBooking(row);
+                // Removed since the check above
+                if (booking.getNumberOfSeats() == 0) {
+                    continue;
+                }
+                items.add(booking);
+                if (items.size() == limit) {
+                    return new Page<>(items, row + 1 < rowLimit ? row + 1L : -1);
+                }
+            }
+        }
+        return new Page<>(items, end < rowLimit ? end : -1);
+    }
+
+    /**
+     * Total seats the customer holds for the concert, read from the columns without
+     * building any bookings.
+     */
+    public int countSeats(String concertId, String customerEmail) {
+        String customerKey = normalizeEmail(customerEmail);
+        Lock lock = stripe(customerLocks, customerKey).readLock();
+        lock.lock();
+        try {
+            IntList rows = rows(rowsByCustomer, customerKey);
+            int concert = concertIds.find(concertId);
+            if (rows == null || concert < 0) {
+                return 0;
+            }
+            // Removed rows have no seats to add
+            int seats = 0;
+            for (int i = 0; i < rows.size(); i++) {
+                int row = rows.get(i);
+                Chunk chunk = chunks[row >>> CHUNK_BITS];
+                if (chunk.concert[row & CHUNK_MASK] == concert) {
+                    seats += chunk.seats[row & CHUNK_MASK];
+                }
+            }
+            return seats;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int count() {
+        return size.get();
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private List<Booking> findAll(ReadWriteLock[] locks, Map<String, IntList> index, String key) {
+        Lock lock = stripe(locks, key).readLock();
+        lock.lock();
+        try {
+            IntList rows = rows(index, key);
+            List<Booking> bookings = new ArrayList<>(rows == null ? 0 : rows.size());
+            for (int i = 0; rows != null && i < rows.size(); i++) {
+                if (isLive(rows.get(i))) {
+                    bookings.add(toBooking(rows.get(i)));
+                }
+            }
+            return bookings;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Sequences are row numbers plus one, so a cursor of 0 starts from the first row
+    private Page<Booking> page(ReadWriteLock[] locks, Map<String, IntList> index, String key, long cursor,
+                               int limit) {
+        List<Booking> items = new ArrayList<>(Math.max(Math.min(limit, 1000), 0));
+        Lock lock = stripe(locks, key).readLock();
+        lock.lock();
+        try {
+            IntList rows = rows(index, key);
+            if (rows == null || limit <= 0 || cursor >= Integer.MAX_VALUE) {
+                return new Page<>(items, -1);
+            }
+            int i = rows.firstAtLeast((int) Math.max(cursor, 0));
+            for (; i < rows.size() && items.size() < limit; i++) {
+                if (isLive(rows.get(i))) {
+                    items.add(toBooking(rows.get(i)));
+                }
+            }
+            return new Page<>(items, i < rows.size() ? rows.get(i - 1) + 1L : -1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Takes the next row and fills in its columns, the only part every save waits for
+    private int append(Booking booking, UUID uuid, long[] cancelCode) {
+        synchronized (appendLock) {
+            int row = rowCount;
+            Chunk chunk = chunkForAppend(row);
+            int i = row & CHUNK_MASK;
+            chunk.idHigh[i] = uuid != null ? uuid.getMostSignificantBits() : 0;
+            chunk.idLow[i] = uuid != null ? uuid.getLeastSignificantBits() : 0;
+            chunk.cancelHigh[i] = cancelCode[0];
+            chunk.cancelLow[i] = cancelCode[1];
+            chunk.concert[i] = concertIds.intern(booking.getConcertId());
+            chunk.customerName[i] = customerNames.intern(booking.getCustomerName());
+            chunk.customerEmail[i] = customerEmails.intern(booking.getCustomerEmail());
+            chunk.seats[i] = booking.getNumberOfSeats();
+            chunk.bookedAt[i] = toEpochMillis(booking.getBookingTime());
+            chunk.priceCents[i] = Math.round(booking.getTotalPrice() * 100);
+            chunk.seatIds[i] = booking.getSeatIds().isEmpty() ? null : booking.getSeatIds();
+            if (uuid == null) {
+                irregularIds.put(row, booking.getId());
+            }
+            rowCount = row + 1;
+            return row;
+        }
+    }
+
+    // Called with the list's stripe held; compacting now and then keeps removal O(1) on average
+    private void unlink(IntList rows) {
+        if (rows != null && rows.markRemoved()) {
+            rows.compact(this::isLive);
+        }
+    }
+
+    private boolean isLive(int row) {
+        return chunks[row >>> CHUNK_BITS].seats[row & CHUNK_MASK] > 0;
+    }
+
+    private boolean bookedIn(int row, long fromMillis, long toMillis) {
+        long bookedAt = chunks[row >>> CHUNK_BITS].bookedAt[row & CHUNK_MASK];
+        return bookedAt >= fromMillis && bookedAt < toMillis;
+    }
+
+    private static IntList rows(Map<String, IntList> index, String key) {
+        return key == null ? null : index.get(key);
+    }
+
+    private static ReadWriteLock stripe(ReadWriteLock[] locks, String key) {
+        return locks[stripeIndex(key)];
+    }
+
+    private static int stripeIndex(String key) {
+        int hash = Objects.hashCode(key);
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static ReadWriteLock[] newLocks() {
+        ReadWriteLock[] locks = new ReadWriteLock[STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+        return locks;
+    }
+
+    private Chunk chunkForAppend(int row) {
+        int index = row >>> CHUNK_BITS;
+        Chunk[] table = chunks;
+        if (index == table.length) {
+            table = Arrays.copyOf(table, table.length * 2);
+        }
+        if (table[index] == null) {
+            table[index] = new Chunk();
+        }
+        chunks = table;
+        return table[index];
+    }
+
+    private Booking toBooking(int row) {
+        Chunk chunk = chunks[row >>> CHUNK_BITS];
+        int i = row & CHUNK_MASK;
+        String id = irregularIds.isEmpty() ? null : irregularIds.get(row);
+        if (id == null) {
+            id = new UUID(chunk.idHigh[i], chunk.idLow[i]).toString();
+        }
+        List<String> seatIds = chunk.seatIds[i];
+        return new Booking(id, concertIds.get(chunk.concert[i]), customerNames.get(chunk.customerName[i]),
+                customerEmails.get(chunk.customerEmail[i]), chunk.seats[i], fromEpochMillis(chunk.bookedAt[i]),
+                chunk.priceCents[i] / 100.0, seatIds != null ? seatIds : Collections.<String>emptyList(),
+                formatCancelCode(chunk.cancelHigh[i], chunk.cancelLow[i]));
+    }
+
+    // Cancel codes are 32 hex digits, as Booking.newCancelCode makes them
+    private static long[] parseCancelCode(String code) {
+        if (code == null || code.length() != 32) {
+            throw new IllegalArgumentException("Booking has no valid cancel code");
+        }
+        return new long[] {Long.parseUnsignedLong(code.substring(0, 16), 16),
+                Long.parseUnsignedLong(code.substring(16), 16)};
+    }
+
+    private static String formatCancelCode(long high, long low) {
+        char[] digits = new char[32];
+        for (int i = 0; i < 16; i++) {
+            digits[15 - i] = Character.forDigit((int) (high >>> (i * 4)) & 0xF, 16);
+            digits[31 - i] = Character.forDigit((int) (low >>> (i * 4)) & 0xF, 16);
+        }
+        return new String(digits);
+    }
+
+    /**
+     * Returns the id as a UUID if it is one in canonical form, so that it converts back
+     * to exactly the same string.
+     */
+    private static UUID parseId(String id) {
+        if (id == null || id.length() != 36) {
+            return null;
+        }
+        try {
+            UUID uuid = UUID.fromString(id);
+            return uuid.toString().equals(id) ? uuid : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Booking times are zone-less, so they are stored as if in UTC to round-trip exactly
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static LocalDateTime fromEpochMillis(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC);
+    }
+
+    /**
+     * One stripe of the id index. Ids that are not canonical UUID strings cannot be
+     * packed into two longs and are mapped by string.
+     */
+    private static final class IdStripe {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final UuidRowIndex rows = new UuidRowIndex();
+        private final Map<String, Integer> irregularRows = new HashMap<>();
+
+        int find(String id, UUID uuid) {
+            if (uuid != null) {
+                return rows.get(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            }
+            Integer row = irregularRows.get(id);
+            return row == null ? -1 : row;
+        }
+
+        void put(String id, UUID uuid, int row) {
+            if (uuid != null) {
+                rows.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), row);
+            } else {
+                irregularRows.put(id, row);
+            }
+        }
+
+        void remove(String id, UUID uuid) {
+            if (uuid != null) {
+                rows.remove(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits());
+            } else {
+                irregularRows.remove(id);
+            }
+        }
+    }
+
+    private static final class Chunk {
+        private final long[] idHigh = new long[CHUNK_SIZE];
+        private final long[] idLow = new long[CHUNK_SIZE];
+        private final long[] cancelHigh = new long[CHUNK_SIZE];
+        private final long[] cancelLow = new long[CHUNK_SIZE];
+        private final int[] concert = new int[CHUNK_SIZE];
+        private final int[] customerName = new int[CHUNK_SIZE];
+        private final int[] customerEmail = new int[CHUNK_SIZE];
+        private final int[] seats = new int[CHUNK_SIZE];
+        private final long[] bookedAt = new long[CHUNK_SIZE];
+        private final long[] priceCents = new long[CHUNK_SIZE];
+        // Only bookings on seat-mapped concerts have seat ids
+        @SuppressWarnings("unchecked")
+        private final List<String>[] seatIds = (List<String>[]) new List<?>[CHUNK_SIZE];
+    }
+}
@@ -0,0 +1,59 @@
+package com.concertbooking.repository;
+
+import com.concertbooking.model.Concert;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Repository
+public class ConcertRepository {
+
+    private final ConcurrentMap<String, Concert> concertsById = new ConcurrentHashMap<>();
+    // Listing order is insertion order; concerts are added rarely, so copy-on-write is cheap here
+    private final List<Concert> concertsInOrder = new CopyOnWriteArrayList<>();
+
+    public boolean save(Concert concert) {
+        if (concertsById.putIfAbsent(concert.getId(), concert) != null) {
+            return false;
+        }
+        concertsInOrder.add(concert);
+        return true;
+    }
+
+    public Optional<Concert> findById(String id) {
+        return id == null ? Optional.empty() : Optional.ofNullable(concertsById.get(id));
+    }
+
+    public boolean existsById(String id) {
+        return id != null && concertsById.containsKey(id);
+    }
+
+    public List<Concert> findAll() {
+        return new ArrayList<>(concertsInOrder);
+    }
+
+    /**
+     * Returns up to {@code limit} concerts in listing order, starting at position
+     * {@code cursor}. Concerts are never removed, so positions are stable.
+     */
+    public Page<Concert> findAll(long cursor, int limit) {
+        int from = (int) Math.min(Math.max(cursor, 0), concertsInOrder.size());
+        // Iterators over a copy-on-write list see one consistent version, even while concerts are added
+        ListIterator<Concert> it = concertsInOrder.listIterator(from);
+        List<Concert> items = new ArrayList<>();
+        while (items.size() < limit && it.hasNext()) {
+            items.add(it.next());
+        }
+        return new Page<>(items, it.hasNext() ? from + items.size() : -1);
+    }
+
+    public int count() {
+        return concertsById.size();
+    }
+}
@@ -0,0 +1,60 @@
+package com.concertbooking.repository;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Growable list of ints kept in ascending order by its callers, which only ever append
+ * larger values. Not thread-safe; callers synchronize.
+ */
+final class IntList {
+
+    private int[] values = new int[4];
+    private int size;
+    private int removed;
+
+    void add(int value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size + (size >> 1) + 1);
+        }
+        values[size++] = value;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Counts one value as removed, which callers then skip when reading. Returns true
+     * once half the list is removed values and it is worth {@link #compact compacting}.
+     */
+    boolean markRemoved() {
+        return ++removed * 2 > size;
+    }
+
+    /**
+     * Drops the values that fail {@code live}, keeping the rest in order.
+     */
+    void compact(IntPredicate live) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (live.test(values[i])) {
+                values[kept++] = values[i];
+            }
+        }
+        size = kept;
+        removed = 0;
+    }
+
+    /**
+     * Returns the index of the first value not less than {@code value}, or {@link #size()}.
+     */
+    int firstAtLeast(int value) {
+        int index = Arrays.binarySearch(values, 0, size, value);
+        return index >= 0 ? index : -index - 1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.concertbooking.repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated query. {@code nextCursor} fetches the following page
+ * and is -1 on the last one.
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final long nextCursor;
+
+    public Page(List<T> items, long nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public long getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor >= 0;
+    }
+}
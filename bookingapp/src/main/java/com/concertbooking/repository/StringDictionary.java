@@ -0,0 +1,42 @@
+package com.concertbooking.repository;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns each distinct string a small int code, so a column of repeated values costs
+ * four bytes per row and one copy per value. Codes are never reused. {@code null} is
+ * code -1. Callers synchronize {@link #intern}; lookups need no lock, since a value is
+ * stored before its code is handed out.
+ */
+final class StringDictionary {
+
+    private final ConcurrentMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int size;
+
+    int intern(String value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer code = codes.get(value);
+        if (code == null) {
+            String[] current = size == values.length ? Arrays.copyOf(values, size * 2) : values;
+            current[size] = value;
+            values = current;
+            code = size++;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    int find(String value) {
+        Integer code = value == null ? null : codes.get(value);
+        return code == null ? -1 : code;
+    }
+
+    String get(int code) {
+        return code < 0 ? null : values[code];
+    }
+}
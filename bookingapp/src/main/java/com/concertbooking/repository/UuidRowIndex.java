@@ -0,0 +1,115 @@
+package com.concertbooking.repository;
+
+/**
+ * Open-addressing hash map from a 128-bit id, held as two longs, to a row number. Uses
+ * linear probing with backward-shift deletion, so there are no tombstones and no entry
+ * objects: about 20 bytes per slot. Not thread-safe; callers synchronize.
+ */
+final class UuidRowIndex {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private long[] high;
+    private long[] low;
+    // Row plus one, so that zero marks an empty slot
+    private int[] rows;
+    private int mask;
+    private int size;
+
+    UuidRowIndex() {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Returns the row stored for the id, or -1.
+     */
+    int get(long idHigh, long idLow) {
+        for (int slot = slot(idHigh, idLow); ; slot = (slot + 1) & mask) {
+            if (rows[slot] == 0) {
+                return -1;
+            }
+            if (high[slot] == idHigh && low[slot] == idLow) {
+                return rows[slot] - 1;
+            }
+        }
+    }
+
+    /**
+     * Stores the row for the id unless the id is already present.
+     */
+    boolean put(long idHigh, long idLow, int row) {
+        if ((size + 1) * 4L > rows.length * 3L) {
+            resize(rows.length * 2);
+        }
+        int slot = slot(idHigh, idLow);
+        while (rows[slot] != 0) {
+            if (high[slot] == idHigh && low[slot] == idLow) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        high[slot] = idHigh;
+        low[slot] = idLow;
+        rows[slot] = row + 1;
+        size++;
+        return true;
+    }
+
+    boolean remove(long idHigh, long idLow) {
+        int hole = slot(idHigh, idLow);
+        while (rows[hole] == 0 || high[hole] != idHigh || low[hole] != idLow) {
+            if (rows[hole] == 0) {
+                return false;
+            }
+            hole = (hole + 1) & mask;
+        }
+        // Pull later entries of the probe run back into the hole, unless that would put
+        // them in front of their home slot
+        for (int next = (hole + 1) & mask; rows[next] != 0; next = (next + 1) & mask) {
+            int home = slot(high[next], low[next]);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                high[hole] = high[next];
+                low[hole] = low[next];
+                rows[hole] = rows[next];
+                hole = next;
+            }
+        }
+        rows[hole] = 0;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private int slot(long idHigh, long idLow) {
+        long hash = (idHigh ^ Long.rotateLeft(idLow, 32)) * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+
+    private void allocate(int capacity) {
+        high = new long[capacity];
+        low = new long[capacity];
+        rows = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void resize(int capacity) {
+        long[] oldHigh = high;
+        long[] oldLow = low;
+        int[] oldRows = rows;
+        allocate(capacity);
+        for (int i = 0; i < oldRows.length; i++) {
+            if (oldRows[i] != 0) {
+                int slot = slot(oldHigh[i], oldLow[i]);
+                while (rows[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                high[slot] = oldHigh[i];
+                low[slot] = oldLow[i];
+                rows[slot] = oldRows[i];
+            }
+        }
+    }
+}
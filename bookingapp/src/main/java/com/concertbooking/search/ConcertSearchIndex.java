@@ -0,0 +1,283 @@
+package com.concertbooking.search;
+
+import com.concertbooking.model.Concert;
+import com.concertbooking.service.BookingListener;
+import com.concertbooking.service.BookingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory search over the concert catalog. Each concert gets an ordinal in the order
+ * it was added; name, artist and venue tokens map to sets of ordinals, as do genres,
+ * and a date index lists ordinals by concert time. Concerts are indexed as they are
+ * added, and seat counts are read live from the concerts themselves.
+ */
+@Component
+public class ConcertSearchIndex implements BookingListener {
+
+    private static final Comparator<Concert> BY_DATE_TIME = Comparator.comparing(Concert::getDateTime);
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<Concert> concerts = new ArrayList<>();
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    // Tokens are sorted so that a query token matches every token it is a prefix of
+    private final NavigableMap<String, BitSet> allTokens = new TreeMap<>();
+    private final NavigableMap<String, BitSet> artistTokens = new TreeMap<>();
+    private final NavigableMap<String, BitSet> venueTokens = new TreeMap<>();
+    private final NavigableMap<String, BitSet> genres = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final NavigableMap<LocalDateTime, int[]> byDateTime = new TreeMap<>();
+
+    @Autowired
+    public ConcertSearchIndex(BookingService bookingService) {
+        // Listen first so no concert is missed; one seen twice is only indexed once
+        bookingService.addListener(this);
+        for (Concert concert : bookingService.getAllConcerts()) {
+            add(concert);
+        }
+    }
+
+    @Override
+    public void concertAdded(Concert concert) {
+        add(concert);
+    }
+
+    public List<String> getGenres() {
+        lock.readLock().lock();
+        try {
+            return new ArrayList<>(genres.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the concerts matching every given filter in date order, skipping the
+     * first {@code offset} and returning at most {@code limit}. An offset past the last
+     * match gives an empty page.
+     */
+    public Result search(Query query, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit must not be negative");
+        }
+        lock.readLock().lock();
+        try {
+            NavigableMap<LocalDateTime, int[]> range = byDateTime;
+            if (query.from != null && query.to != null && !query.to.isAfter(query.from)) {
+                return new Result(Collections.<Concert>emptyList(), 0, offset);
+            }
+            if (query.from != null) {
+                range = range.tailMap(query.from, true);
+            }
+            if (query.to != null) {
+                range = range.headMap(query.to, false);
+            }
+            BitSet matches = matchTokens(allTokens, query.text, null);
+            matches = matchTokens(artistTokens, query.artist, matches);
+            matches = matchTokens(venueTokens, query.venue, matches);
+            if (query.genre != null) {
+                matches = intersect(matches, genres.get(query.genre));
+            }
+            // A selective filter is cheaper to sort than walking every date in range
+            if (matches != null && matches.cardinality() * 8L < concerts.size()) {
+                return sorted(matches, query, offset, limit);
+            }
+            return walk(range, matches, offset, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(Concert concert) {
+        lock.writeLock().lock();
+        try {
+            if (ordinals.containsKey(concert.getId())) {
+                return;
+            }
+            int ordinal = concerts.size();
+            concerts.add(concert);
+            ordinals.put(concert.getId(), ordinal);
+            for (String token : tokens(concert.getName())) {
+                index(allTokens, token, ordinal);
+            }
+            for (String token : tokens(concert.getArtist())) {
+                index(allTokens, token, ordinal);
+                index(artistTokens, token, ordinal);
+            }
+            for (String token : tokens(concert.getVenue())) {
+                index(allTokens, token, ordinal);
+                index(venueTokens, token, ordinal);
+            }
+            index(genres, concert.getGenre(), ordinal);
+            int[] atTime = byDateTime.get(concert.getDateTime());
+            if (atTime == null) {
+                atTime = new int[]{ordinal};
+            } else {
+                atTime = Arrays.copyOf(atTime, atTime.length + 1);
+                atTime[atTime.length - 1] = ordinal;
+            }
+            byDateTime.put(concert.getDateTime(), atTime);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void index(Map<String, BitSet> index, String key, int ordinal) {
+        index.computeIfAbsent(key, k -> new BitSet()).set(ordinal);
+    }
+
+    private Result walk(NavigableMap<LocalDateTime, int[]> range, BitSet matches, int offset, int limit) {
+        List<Concert> page = new ArrayList<>(Math.min(limit, concerts.size()));
+        int total = 0;
+        for (int[] ordinalsAtTime : range.values()) {
+            for (int ordinal : ordinalsAtTime) {
+                if (matches == null || matches.get(ordinal)) {
+                    if (total >= offset && page.size() < limit) {
+                        page.add(concerts.get(ordinal));
+                    }
+                    total++;
+                }
+            }
+        }
+        return new Result(page, total, offset);
+    }
+
+    private Result sorted(BitSet matches, Query query, int offset, int limit) {
+        List<Concert> found = new ArrayList<>(matches.cardinality());
+        for (int ordinal = matches.nextSetBit(0); ordinal >= 0; ordinal = matches.nextSetBit(ordinal + 1)) {
+            Concert concert = concerts.get(ordinal);
+            if ((query.from == null || !concert.getDateTime().isBefore(query.from))
+                    && (query.to == null || concert.getDateTime().isBefore(query.to))) {
+                found.add(concert);
+            }
+        }
+        // The sort is stable, so concerts at the same time stay in the order they were added
+        found.sort(BY_DATE_TIME);
+        int from = Math.min(offset, found.size());
+        List<Concert> page = new ArrayList<>(found.subList(from, from + Math.min(limit, found.size() - from)));
+        return new Result(page, found.size(), offset);
+    }
+
+    /**
+     * Intersects {@code matches} with the concerts having, for every token in {@code text},
+     * a token that starts with it. Returns {@code matches} unchanged when there are no tokens.
+     */
+    private static BitSet matchTokens(NavigableMap<String, BitSet> index, String text, BitSet matches) {
+        for (String token : tokens(text)) {
+            BitSet withToken = new BitSet();
+            for (BitSet ordinals : index.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                withToken.or(ordinals);
+            }
+            matches = intersect(matches, withToken);
+        }
+        return matches;
+    }
+
+    // Index sets are shared, so they are copied before being narrowed
+    private static BitSet intersect(BitSet matches, BitSet ordinals) {
+        if (ordinals == null) {
+            return new BitSet();
+        }
+        BitSet result = (BitSet) ordinals.clone();
+        if (matches != null) {
+            result.and(matches);
+        }
+        return result;
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits, with accents removed so
+     * that a query typed without them still matches.
+     */
+    static List<String> tokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        String normalized = text;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7f) {
+                normalized = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+                break;
+            }
+        }
+        normalized = normalized.toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean word = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Search filters; null or blank ones match everything. {@code text} is matched against
+     * name, artist and venue, and the concert must be at or after {@code from} and
+     * before {@code to}.
+     */
+    public static class Query {
+        private final String text;
+        private final String artist;
+        private final String venue;
+        private final String genre;
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+
+        public Query(String text, String artist, String venue, String genre, LocalDateTime from, LocalDateTime to) {
+            this.text = text;
+            this.artist = artist;
+            this.venue = venue;
+            this.genre = genre == null || genre.trim().isEmpty() ? null : genre.trim();
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    public static class Result {
+        private final List<Concert> concerts;
+        private final int total;
+        private final int offset;
+
+        Result(List<Concert> concerts, int total, int offset) {
+            this.concerts = Collections.unmodifiableList(concerts);
+            this.total = total;
+            this.offset = Math.min(offset, total);
+        }
+
+        public List<Concert> getConcerts() {
+            return concerts;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public boolean hasMore() {
+            return offset + concerts.size() < total;
+        }
+    }
+}
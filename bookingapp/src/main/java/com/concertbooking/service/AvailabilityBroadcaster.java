@@ -0,0 +1,403 @@
+package com.concertbooking.service;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes remaining-seat changes to Server-Sent Event subscribers. Bookings only mark
+ * their concert as changed; a single thread publishes the latest state of each changed
+ * concert at most {@code max-updates-per-second} times a second, serializing it once
+ * for all subscribers. Idle connections are held by the servlet container's async
+ * support, not by a thread each.
+ * <p>
+ * Writing to a client can block, so the publisher only puts events into each
+ * subscriber's outbox, which keeps just the latest state per concert, and a small
+ * bounded pool does the writes, one subscriber at a time. A subscriber whose write is
+ * still stuck after {@code send-timeout-ms} is completed and dropped; browsers
+ * reconnect and get the current state again.
+ * <p>
+ * Streams are capped in total and per client address, so one client opening stream
+ * after stream cannot take every slot.
+ */
+@Service
+public class AvailabilityBroadcaster implements BookingListener {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityBroadcaster.class);
+    private static final String EVENT_NAME = "availability";
+
+    private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
+    private final long emitterTimeoutMillis;
+    private final int maxSubscribers;
+    private final int maxSubscribersPerAddress;
+    private final long sendTimeoutNanos;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final Set<Subscriber> allConcertSubscribers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentMap<String, Set<Subscriber>> subscribersByConcert = new ConcurrentHashMap<>();
+    private final Set<String> changedConcerts = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ConcurrentMap<String, Integer> subscribersByAddress = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final ThreadPoolExecutor senders;
+
+    @Autowired
+    public AvailabilityBroadcaster(BookingService bookingService, ObjectMapper objectMapper,
+                                   @Value("${booking.availability.max-updates-per-second:2}") double maxUpdatesPerSecond,
+                                   @Value("${booking.availability.heartbeat-seconds:30}") long heartbeatSeconds,
+                                   @Value("${booking.availability.emitter-timeout-seconds:600}") long emitterTimeoutSeconds,
+                                   @Value("${booking.availability.max-subscribers:20000}") int maxSubscribers,
+                                   @Value("${booking.availability.max-subscribers-per-address:20}")
+                                           int maxSubscribersPerAddress,
+                                   @Value("${booking.availability.sender-threads:4}") int senderThreads,
+                                   @Value("${booking.availability.send-timeout-ms:5000}") long sendTimeoutMillis) {
+        this.bookingService = bookingService;
+        this.objectMapper = objectMapper;
+        this.emitterTimeoutMillis = emitterTimeoutSeconds * 1000;
+        this.maxSubscribers = maxSubscribers;
+        this.maxSubscribersPerAddress = maxSubscribersPerAddress;
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(sendTimeoutMillis, 1));
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "availability-broadcaster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Each subscriber has at most one drain queued or running, so the queue never outgrows the subscribers
+        AtomicInteger senderCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(Math.max(senderThreads, 1), Math.max(senderThreads, 1),
+                0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(Math.max(maxSubscribers, 1)), runnable -> {
+                    Thread thread = new Thread(runnable, "availability-sender-" + senderCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        long flushIntervalMicros = (long) (1_000_000 / Math.max(maxUpdatesPerSecond, 0.01));
+        executor.scheduleAtFixedRate(this::publishChanges, flushIntervalMicros, flushIntervalMicros, TimeUnit.MICROSECONDS);
+        if (heartbeatSeconds > 0) {
+            // Keeps proxies from closing idle streams and finds clients that went away
+            executor.scheduleAtFixedRate(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+        }
+        long checkMillis = Math.max(Math.min(sendTimeoutMillis / 2, 1000), 10);
+        executor.scheduleAtFixedRate(this::dropStuckSubscribers, checkMillis, checkMillis, TimeUnit.MILLISECONDS);
+        bookingService.addListener(this);
+    }
+
+    /**
+     * Opens a stream for the given concerts, or for every concert if none are given. The
+     * current state is sent first. Returns empty when the subscriber limit, overall or for
+     * the client's address, is reached.
+     */
+    public Optional<SseEmitter> subscribe(String address, Collection<String> concertIds) {
+        if (!acquireAddressSlot(address)) {
+            return Optional.empty();
+        }
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            releaseAddressSlot(address);
+            return Optional.empty();
+        }
+        Subscriber subscriber = new Subscriber(new SseEmitter(emitterTimeoutMillis), address,
+                new ArrayList<>(concertIds));
+        subscribers.add(subscriber);
+        if (subscriber.concertIds.isEmpty()) {
+            allConcertSubscribers.add(subscriber);
+        }
+        for (String concertId : subscriber.concertIds) {
+            subscribersByConcert.computeIfAbsent(concertId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        }
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(error -> unsubscribe(subscriber));
+
+        // Queued from the broadcaster thread, so a concurrent update is never overtaken by older state
+        executor.execute(() -> {
+            Collection<Concert> concerts = subscriber.concertIds.isEmpty() ? bookingService.getAllConcerts()
+                    : lookup(subscriber.concertIds);
+            for (Concert concert : concerts) {
+                String payload = toJson(concert);
+                if (payload != null) {
+                    enqueue(subscriber, concert.getId(), payload);
+                }
+            }
+        });
+        return Optional.of(subscriber.emitter);
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @Override
+    public void concertAdded(Concert concert) {
+        changedConcerts.add(concert.getId());
+    }
+
+    @Override
+    public void bookingCreated(Concert concert, Booking booking) {
+        changedConcerts.add(concert.getId());
+    }
+
+    @Override
+    public void bookingCancelled(Concert concert, Booking booking) {
+        changedConcerts.add(concert.getId());
+    }
+
+    @Override
+    public void availabilityReplicated(Concert concert) {
+        changedConcerts.add(concert.getId());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    private void publishChanges() {
+        try {
+            for (String concertId : changedConcerts) {
+                // Remove before reading, so a booking landing meanwhile marks it changed again
+                changedConcerts.remove(concertId);
+                Optional<Concert> concert = bookingService.getConcertById(concertId);
+                String payload = concert.isPresent() ? toJson(concert.get()) : null;
+                if (payload == null) {
+                    continue;
+                }
+                Set<Subscriber> concertSubscribers = subscribersByConcert.get(concertId);
+                if (concertSubscribers != null) {
+                    broadcast(concertSubscribers, concertId, payload);
+                }
+                broadcast(allConcertSubscribers, concertId, payload);
+            }
+        } catch (RuntimeException e) {
+            // An exception would cancel the schedule for good
+            log.error("Availability broadcast failed", e);
+        }
+    }
+
+    private void heartbeat() {
+        try {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.offerHeartbeat()) {
+                    startDrain(subscriber);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Availability heartbeat failed", e);
+        }
+    }
+
+    private void dropStuckSubscribers() {
+        try {
+            long now = System.nanoTime();
+            for (Subscriber subscriber : subscribers) {
+                long since = subscriber.sendingSince;
+                if (since != 0 && now - since > sendTimeoutNanos) {
+                    // Completing here would wait on the emitter's lock behind the stuck write, so the
+                    // sender completes it once the write returns or the container's write timeout fails it
+                    log.debug("Dropping availability subscriber whose write has been blocked for {} ms",
+                            TimeUnit.NANOSECONDS.toMillis(now - since));
+                    subscriber.stuck = true;
+                    unsubscribe(subscriber);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.error("Availability send timeout check failed", e);
+        }
+    }
+
+    private void broadcast(Set<Subscriber> targets, String concertId, String payload) {
+        for (Subscriber subscriber : targets) {
+            enqueue(subscriber, concertId, payload);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, String concertId, String payload) {
+        if (subscriber.offer(concertId, payload)) {
+            startDrain(subscriber);
+        }
+    }
+
+    private void startDrain(Subscriber subscriber) {
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            unsubscribe(subscriber);
+            subscriber.emitter.complete();
+        }
+    }
+
+    // Runs on a sender thread; only one drain per subscriber at a time, so its events stay in order
+    private void drain(Subscriber subscriber) {
+        SseEmitter.SseEventBuilder event;
+        while ((event = subscriber.next()) != null) {
+            subscriber.sendingSince = System.nanoTime();
+            try {
+                subscriber.emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // The client has gone; the container completes the emitter itself
+                unsubscribe(subscriber);
+                return;
+            } finally {
+                subscriber.sendingSince = 0;
+            }
+        }
+        if (subscriber.stuck) {
+            try {
+                subscriber.emitter.complete();
+            } catch (RuntimeException e) {
+                log.debug("Could not complete a dropped availability stream", e);
+            }
+        }
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscriber.close();
+        if (!subscribers.remove(subscriber)) {
+            return;
+        }
+        subscriberCount.decrementAndGet();
+        releaseAddressSlot(subscriber.address);
+        allConcertSubscribers.remove(subscriber);
+        for (String concertId : subscriber.concertIds) {
+            Set<Subscriber> concertSubscribers = subscribersByConcert.get(concertId);
+            if (concertSubscribers != null) {
+                concertSubscribers.remove(subscriber);
+            }
+        }
+    }
+
+    private boolean acquireAddressSlot(String address) {
+        boolean[] acquired = {false};
+        subscribersByAddress.compute(address, (key, count) -> {
+            int current = count != null ? count : 0;
+            if (current >= maxSubscribersPerAddress) {
+                return count;
+            }
+            acquired[0] = true;
+            return current + 1;
+        });
+        return acquired[0];
+    }
+
+    // Entries go when their last stream does, so the map only holds addresses with streams open
+    private void releaseAddressSlot(String address) {
+        subscribersByAddress.computeIfPresent(address, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    private List<Concert> lookup(List<String> concertIds) {
+        List<Concert> concerts = new ArrayList<>(concertIds.size());
+        for (String concertId : concertIds) {
+            bookingService.getConcertById(concertId).ifPresent(concerts::add);
+        }
+        return concerts;
+    }
+
+    private String toJson(Concert concert) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("concertId", concert.getId());
+        body.put("remainingSeats", concert.getRemainingSeats());
+        body.put("soldOut", concert.isSoldOut());
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            log.error("Could not serialize availability for concert {}", concert.getId(), e);
+            return null;
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String address;
+        private final List<String> concertIds;
+        // Latest unsent state per concert, in the order the concerts changed
+        private final Map<String, String> pending = new LinkedHashMap<>();
+        private boolean heartbeatPending;
+        private boolean draining;
+        private boolean closed;
+        private volatile long sendingSince;
+        private volatile boolean stuck;
+
+        Subscriber(SseEmitter emitter, String address, List<String> concertIds) {
+            this.emitter = emitter;
+            this.address = address;
+            this.concertIds = concertIds;
+        }
+
+        /** Returns true if the caller must start a drain. */
+        synchronized boolean offer(String concertId, String payload) {
+            if (closed) {
+                return false;
+            }
+            pending.remove(concertId);
+            pending.put(concertId, payload);
+            return startDraining();
+        }
+
+        synchronized boolean offerHeartbeat() {
+            if (closed) {
+                return false;
+            }
+            heartbeatPending = true;
+            return startDraining();
+        }
+
+        synchronized SseEmitter.SseEventBuilder next() {
+            Iterator<String> payloads = pending.values().iterator();
+            if (!closed && payloads.hasNext()) {
+                String payload = payloads.next();
+                payloads.remove();
+                return SseEmitter.event().name(EVENT_NAME).data(payload);
+            }
+            if (!closed && heartbeatPending) {
+                heartbeatPending = false;
+                return SseEmitter.event().comment("keep-alive");
+            }
+            draining = false;
+            return null;
+        }
+
+        synchronized void close() {
+            closed = true;
+            pending.clear();
+        }
+
+        private boolean startDraining() {
+            if (draining) {
+                return false;
+            }
+            draining = true;
+            return true;
+        }
+    }
+}
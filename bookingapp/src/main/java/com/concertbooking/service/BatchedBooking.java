@@ -0,0 +1,42 @@
+package com.concertbooking.service;
+
+import com.concertbooking.model.Booking;
+
+import java.util.concurrent.CompletableFuture;
+
+final class BatchedBooking {
+    private final String customerName;
+    private final String customerEmail;
+    private final int numberOfSeats;
+    private final CompletableFuture<Booking> result = new CompletableFuture<>();
+
+    BatchedBooking(String customerName, String customerEmail, int numberOfSeats) {
+        this.customerName = customerName;
+        this.customerEmail = customerEmail;
+        this.numberOfSeats = numberOfSeats;
+    }
+
+    String getCustomerName() {
+        return customerName;
+    }
+
+    String getCustomerEmail() {
+        return customerEmail;
+    }
+
+    int getNumberOfSeats() {
+        return numberOfSeats;
+    }
+
+    CompletableFuture<Booking> getResult() {
+        return result;
+    }
+
+    void complete(Booking booking) {
+        result.complete(booking);
+    }
+
+    void fail(RuntimeException failure) {
+        result.completeExceptionally(failure);
+    }
+}
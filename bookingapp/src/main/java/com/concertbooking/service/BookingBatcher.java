@@ -0,0 +1,176 @@
+package com.concertbooking.service;
+
+import com.concertbooking.exception.InsufficientSeatsException;
+import com.concertbooking.exception.PurchaseLimitException;
+import com.concertbooking.exception.SoldOutException;
+import com.concertbooking.model.Booking;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Opt-in booking pipeline for on-sale spikes. Requests are queued per concert and
+ * resolved in micro-batches by {@link BookingService#bookBatch}, so a whole batch
+ * shares one inventory decision and one journal flush. When disabled, bookings go
+ * straight to {@link BookingService#bookTickets}.
+ */
+@Component
+public class BookingBatcher {
+
+    private final BookingService bookingService;
+    private final BookingMetrics metrics;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long lingerMicros;
+    private final long timeoutMillis;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+
+    @Autowired
+    public BookingBatcher(BookingService bookingService, BookingMetrics metrics,
+                          @Value("${booking.pipeline.enabled:false}") boolean enabled,
+                          @Value("${booking.pipeline.batch-size:64}") int batchSize,
+                          @Value("${booking.pipeline.linger-micros:500}") long lingerMicros,
+                          @Value("${booking.pipeline.threads:2}") int threads,
+                          @Value("${booking.pipeline.timeout-ms:10000}") long timeoutMillis) {
+        this.bookingService = bookingService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.lingerMicros = Math.max(lingerMicros, 0);
+        this.timeoutMillis = timeoutMillis;
+        if (enabled) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newScheduledThreadPool(Math.max(threads, 1), runnable -> {
+                Thread thread = new Thread(runnable, "booking-pipeline-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Booking bookTickets(String concertId, String customerName, String customerEmail, int numberOfSeats,
+                               String holdId) {
+        long started = System.nanoTime();
+        BookingMetrics.Outcome outcome = BookingMetrics.Outcome.ERROR;
+        try {
+            Booking booking = submit(concertId, customerName, customerEmail, numberOfSeats, holdId);
+            outcome = BookingMetrics.Outcome.SUCCESS;
+            return booking;
+        } catch (SoldOutException e) {
+            outcome = BookingMetrics.Outcome.SOLD_OUT;
+            throw e;
+        } catch (InsufficientSeatsException | PurchaseLimitException | IllegalArgumentException e) {
+            outcome = BookingMetrics.Outcome.REJECTED;
+            throw e;
+        } finally {
+            metrics.recordBooking(outcome, System.nanoTime() - started);
+        }
+    }
+
+    private Booking submit(String concertId, String customerName, String customerEmail, int numberOfSeats,
+                           String holdId) {
+        // Held seats are already reserved, so there is no inventory contention left to batch away
+        if (!enabled || holdId != null && !holdId.isEmpty()) {
+            return bookingService.bookTickets(concertId, customerName, customerEmail, numberOfSeats, holdId);
+        }
+
+        // Lanes are never removed, so only concerts that exist get one
+        if (!bookingService.getConcertById(concertId).isPresent()) {
+            throw new IllegalArgumentException("Concert not found");
+        }
+        BatchedBooking request = new BatchedBooking(customerName, customerEmail, numberOfSeats);
+        lanes.computeIfAbsent(concertId, Lane::new).submit(request);
+        try {
+            return request.getResult().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Booking failed", e.getCause());
+        } catch (TimeoutException e) {
+            // Too late to withdraw the request; if it still succeeds the booking is recorded as normal
+            throw new IllegalStateException("Booking is taking longer than expected, please check your bookings");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Booking was interrupted");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private class Lane {
+        private final String concertId;
+        private final Queue<BatchedBooking> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Lane(String concertId) {
+            this.concertId = concertId;
+        }
+
+        void submit(BatchedBooking request) {
+            pending.add(request);
+            if (scheduled.compareAndSet(false, true)) {
+                // Linger briefly so requests arriving together share a batch
+                executor.schedule(this::drain, lingerMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<BatchedBooking> batch = new ArrayList<>(batchSize);
+                while (true) {
+                    BatchedBooking request;
+                    while (batch.size() < batchSize && (request = pending.poll()) != null) {
+                        batch.add(request);
+                    }
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    process(batch);
+                    batch.clear();
+                }
+            } finally {
+                scheduled.set(false);
+                // A request may have arrived after the last poll but before the flag was cleared
+                if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) {
+                    executor.execute(this::drain);
+                }
+            }
+        }
+
+        private void process(List<BatchedBooking> batch) {
+            try {
+                bookingService.bookBatch(concertId, batch);
+            } catch (RuntimeException e) {
+                batch.forEach(request -> request.fail(e));
+            }
+        }
+    }
+}
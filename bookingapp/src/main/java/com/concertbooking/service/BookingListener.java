@@ -0,0 +1,39 @@
+package com.concertbooking.service;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+
+import java.util.List;
+
+/**
+ * Callbacks for changes made through {@link BookingService}, fired after the change is
+ * applied and journaled. Listeners run on the booking thread, so they must be quick
+ * and must not throw.
+ */
+public interface BookingListener {
+
+    default void concertAdded(Concert concert) {
+    }
+
+    default void bookingCreated(Concert concert, Booking booking) {
+    }
+
+    default void bookingCancelled(Concert concert, Booking booking) {
+    }
+
+    /**
+     * Bookings loaded in bulk rather than made by customers. By default each is treated
+     * as created; listeners that act on behalf of customers can ignore them.
+     */
+    default void bookingsImported(Concert concert, List<Booking> bookings) {
+        for (Booking booking : bookings) {
+            bookingCreated(concert, booking);
+        }
+    }
+
+    /**
+     * The concert's counters were updated from the node that owns it in scale-out mode.
+     */
+    default void availabilityReplicated(Concert concert) {
+    }
+}
@@ -0,0 +1,200 @@
+package com.concertbooking.service;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking metrics. Meters are registered once per concert and outcome and then held
+ * here, so recording on the booking path is a map lookup and an atomic add rather than
+ * a registry lookup.
+ */
+@Component
+public class BookingMetrics implements BookingListener {
+
+    public enum Outcome {
+        SUCCESS,
+        SOLD_OUT,
+        REJECTED,
+        ERROR
+    }
+
+    private final MeterRegistry registry;
+    private final Map<Outcome, Timer> bookingTimers = new EnumMap<>(Outcome.class);
+    private final Timer concertLookupTimer;
+    private final Timer concertBookingsLookupTimer;
+    private final Timer customerBookingsLookupTimer;
+    private final Counter addressRateLimited;
+    private final Counter customerRateLimited;
+    private final ConcurrentMap<String, ConcertMeters> concertMeters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BookingMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (Outcome outcome : Outcome.values()) {
+            bookingTimers.put(outcome, Timer.builder("booking.latency")
+                    .description("Time to complete a booking request, including any pipeline wait")
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        this.concertLookupTimer = lookupTimer("concert");
+        this.concertBookingsLookupTimer = lookupTimer("bookings_by_concert");
+        this.customerBookingsLookupTimer = lookupTimer("bookings_by_customer");
+        this.addressRateLimited = rateLimited("address");
+        this.customerRateLimited = rateLimited("customer");
+    }
+
+    /**
+     * Metrics that record into a registry with no backends, for use outside Spring.
+     */
+    public static BookingMetrics noop() {
+        return new BookingMetrics(new CompositeMeterRegistry());
+    }
+
+    public void registerConcert(Concert concert) {
+        meters(concert.getId(), concert);
+    }
+
+    public void recordBooking(Outcome outcome, long nanos) {
+        bookingTimers.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void concertAdded(Concert concert) {
+        registerConcert(concert);
+    }
+
+    @Override
+    public void bookingCreated(Concert concert, Booking booking) {
+        ConcertMeters meters = meters(booking.getConcertId(), null);
+        meters.bookings.increment();
+        meters.seats.increment(booking.getNumberOfSeats());
+    }
+
+    @Override
+    public void bookingCancelled(Concert concert, Booking booking) {
+        meters(booking.getConcertId(), null).cancellations.increment();
+    }
+
+    public void bookingRejected(String concertId, SeatInventory.Reservation reason) {
+        if (reason == SeatInventory.Reservation.SOLD_OUT) {
+            meters(concertId, null).soldOutRejections.increment();
+        } else if (reason == SeatInventory.Reservation.INSUFFICIENT_SEATS) {
+            meters(concertId, null).insufficientSeatRejections.increment();
+        }
+    }
+
+    public void purchaseLimitReached(String concertId) {
+        meters(concertId, null).purchaseLimitRejections.increment();
+    }
+
+    public void addressRateLimited() {
+        addressRateLimited.increment();
+    }
+
+    public void customerRateLimited() {
+        customerRateLimited.increment();
+    }
+
+    public Timer getConcertLookupTimer() {
+        return concertLookupTimer;
+    }
+
+    public Timer getConcertBookingsLookupTimer() {
+        return concertBookingsLookupTimer;
+    }
+
+    public Timer getCustomerBookingsLookupTimer() {
+        return customerBookingsLookupTimer;
+    }
+
+    private Timer lookupTimer(String type) {
+        return Timer.builder("booking.lookup")
+                .description("Time to look up concerts and bookings")
+                .tag("type", type)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private Counter rateLimited(String scope) {
+        return Counter.builder("booking.rate_limited")
+                .description("Booking requests turned away by the rate limits")
+                .tag("scope", scope)
+                .register(registry);
+    }
+
+    private ConcertMeters meters(String concertId, Concert concert) {
+        ConcertMeters meters = concertMeters.get(concertId);
+        if (meters == null) {
+            meters = concertMeters.computeIfAbsent(concertId, id -> new ConcertMeters(id, registry));
+        }
+        if (concert != null) {
+            meters.registerGauge(concert, registry);
+        }
+        return meters;
+    }
+
+    private static final class ConcertMeters {
+        private final String concertId;
+        private final Counter bookings;
+        private final Counter seats;
+        private final Counter cancellations;
+        private final Counter soldOutRejections;
+        private final Counter insufficientSeatRejections;
+        private final Counter purchaseLimitRejections;
+        private volatile boolean gaugeRegistered;
+
+        ConcertMeters(String concertId, MeterRegistry registry) {
+            this.concertId = concertId;
+            this.bookings = Counter.builder("booking.created")
+                    .description("Bookings created")
+                    .tag("concert", concertId)
+                    .register(registry);
+            this.seats = Counter.builder("booking.seats.booked")
+                    .description("Seats booked")
+                    .tag("concert", concertId)
+                    .register(registry);
+            this.cancellations = Counter.builder("booking.cancelled")
+                    .description("Bookings cancelled")
+                    .tag("concert", concertId)
+                    .register(registry);
+            this.soldOutRejections = rejections(registry, concertId, "sold_out");
+            this.insufficientSeatRejections = rejections(registry, concertId, "insufficient_seats");
+            this.purchaseLimitRejections = rejections(registry, concertId, "purchase_limit");
+        }
+
+        synchronized void registerGauge(Concert concert, MeterRegistry registry) {
+            if (gaugeRegistered) {
+                return;
+            }
+            // The gauge holds the concert weakly; the repository keeps it alive
+            Gauge.builder("booking.seats.remaining", concert, Concert::getRemainingSeats)
+                    .description("Seats still available")
+                    .tag("concert", concertId)
+                    .register(registry);
+            gaugeRegistered = true;
+        }
+
+        private static Counter rejections(MeterRegistry registry, String concertId, String reason) {
+            return Counter.builder("booking.rejected")
+                    .description("Booking requests turned away for lack of seats or over the purchase limit")
+                    .tag("concert", concertId)
+                    .tag("reason", reason)
+                    .register(registry);
+        }
+    }
+}
@@ -1,32 +1,96 @@
 package com.concertbooking.service;
 
+import com.concertbooking.exception.InsufficientSeatsException;
+import com.concertbooking.exception.PurchaseLimitException;
 import com.concertbooking.exception.SoldOutException;
 import com.concertbooking.model.Booking;
 import com.concertbooking.model.Concert;
+import com.concertbooking.model.SeatMap;
+import com.concertbooking.model.WaitlistEntry;
+import com.concertbooking.persistence.BookingJournal;
+import com.concertbooking.persistence.JournalReplayHandler;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.repository.ConcertRepository;
+import com.concertbooking.repository.Page;
+import com.concertbooking.util.SharedSecret;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 @Service
 public class BookingService {
-    private List<Concert> concerts;
-    private List<Booking> bookings;
+    private static final Logger log = LoggerFactory.getLogger(BookingService.class);
+
+    private final SeatInventory seatInventory;
+    private final ConcertRepository concertRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingJournal journal;
+    private final SeatHoldService seatHoldService;
+    private final BookingMetrics metrics;
+    private final WaitlistService waitlist;
+    private final PurchaseLimits purchaseLimits;
+    private final List<BookingListener> listeners = new CopyOnWriteArrayList<>();
+    // Makes the exists check, journal record and save of a new concert one step
+    private final Object concertLock = new Object();
 
     public BookingService() {
-        this.concerts = new ArrayList<>();
-        this.bookings = new ArrayList<>();
+        this(new SeatInventory(), new ConcertRepository(), new BookingRepository(), BookingJournal.disabled());
+    }
+
+    private BookingService(SeatInventory seatInventory, ConcertRepository concertRepository,
+                           BookingRepository bookingRepository, BookingJournal journal) {
+        this(seatInventory, concertRepository, bookingRepository, journal, SeatHoldService.disabled(seatInventory),
+                BookingMetrics.noop(), WaitlistService.disabled(seatInventory), PurchaseLimits.none());
+    }
+
+    @Autowired
+    public BookingService(SeatInventory seatInventory, ConcertRepository concertRepository,
+                          BookingRepository bookingRepository, BookingJournal journal,
+                          SeatHoldService seatHoldService, BookingMetrics metrics, WaitlistService waitlist,
+                          PurchaseLimits purchaseLimits) {
+        this.seatInventory = seatInventory;
+        this.concertRepository = concertRepository;
+        this.bookingRepository = bookingRepository;
+        this.journal = journal;
+        this.seatHoldService = seatHoldService;
+        this.metrics = metrics;
+        this.waitlist = waitlist;
+        this.purchaseLimits = purchaseLimits;
+        listeners.add(metrics);
+        waitlist.start(this::bookWaitlisted);
+        seatHoldService.releaseTo(this::returnSeats);
     }
 
     @PostConstruct
     public void init() {
-        // Add sample concerts
+        boolean recovered = journal.open(new JournalReplay());
+        if (recovered) {
+            // Restored bookings bypass the inventory, so resync it from the concert counters
+            for (Concert concert : concertRepository.findAll()) {
+                seatInventory.register(concert.getId(), concert.getRemainingSeats());
+                metrics.registerConcert(concert);
+            }
+        } else {
+            addSampleConcerts();
+        }
+        journal.startSnapshots(this::getAllConcerts, bookingRepository::findByConcertId);
+    }
+
+    private void addSampleConcerts() {
         addConcert(new Concert("C1", "Summer Festival", "The Rock Band",
-                LocalDateTime.now().plusDays(30), "Central Stadium", 50.0, 1000));
+                LocalDateTime.now().plusDays(30), "Central Stadium", 50.0,
+                SeatMap.uniform(new String[]{"A", "B"}, 20, 25)));
         addConcert(new Concert("C2", "Jazz Night", "The Jazz Quartet",
                 LocalDateTime.now().plusDays(15), "City Hall", 75.0, 500));
         addConcert(new Concert("C3", "Pop Extravaganza", "Star Pop Group",
@@ -37,28 +101,43 @@ public class BookingService {
         // Add a sold-out concert for testing
         Concert soldOutConcert = new Concert("C5", "Acoustic Unplugged", "Indie Artists Collective",
                 LocalDateTime.now().plusDays(5), "Intimate Theater", 40.0, 100);
+        addConcert(soldOutConcert);
         
         // Simulate this concert being sold out by adding bookings
+        List<Booking> bookings = new ArrayList<>();
         for (int i = 0; i < 100; i++) {
-            soldOutConcert.addBooking(new Booking("C5", "Test Customer " + i,
-                    "customer" + i + "@example.com", 1, 40.0));
+            reserveSeats(soldOutConcert, 1);
+            bookings.add(createBooking(soldOutConcert, "Test Customer " + i, "customer" + i + "@example.com", 1));
         }
-        
-        addConcert(soldOutConcert);
+        journal.recordBookings(bookings);
     }
 
+    /**
+     * Journals the concert before anything can see or book it, so a concert the journal
+     * refuses is rejected outright rather than left bookable but not durable.
+     */
     public void addConcert(Concert concert) {
-        concerts.add(concert);
+        synchronized (concertLock) {
+            if (concertRepository.existsById(concert.getId())) {
+                throw new IllegalArgumentException("Concert already exists: " + concert.getId());
+            }
+            journal.recordConcert(concert);
+            concertRepository.save(concert);
+            seatInventory.register(concert.getId(), concert.getRemainingSeats());
+        }
+        notifyListeners(listener -> listener.concertAdded(concert));
+    }
+
+    public void addListener(BookingListener listener) {
+        listeners.add(listener);
     }
 
     public List<Concert> getAllConcerts() {
-        return new ArrayList<>(concerts);
+        return concertRepository.findAll();
     }
 
     public Optional<Concert> getConcertById(String id) {
-        return concerts.stream()
-                .filter(concert -> concert.getId().equals(id))
-                .findFirst();
+        return metrics.getConcertLookupTimer().record(() -> concertRepository.findById(id));
     }
 
     public boolean isConcertSoldOut(String concertId) {
@@ -67,15 +146,21 @@ public class BookingService {
             return false;
         }
         
-        Concert concert = concertOpt.get();
-        int bookedSeats = concert.getBookings().stream()
-                .mapToInt(Booking::getNumberOfSeats)
-                .sum();
-        
-        return bookedSeats >= concert.getTotalSeats();
+        return concertOpt.get().isSoldOut();
     }
 
     public Booking bookTickets(String concertId, String customerName, String customerEmail, int numberOfSeats) {
+        return bookTickets(concertId, customerName, customerEmail, numberOfSeats, null);
+    }
+
+    /**
+     * Books tickets, taking over the seats of {@code holdId} when it is still active.
+     * Any difference between the held and requested seat count is reserved or released.
+     */
+    public Booking bookTickets(String concertId, String customerName, String customerEmail, int numberOfSeats,
+                               String holdId) {
+        purchaseLimits.checkSeatsPerBooking(numberOfSeats);
+
         Optional<Concert> concertOpt = getConcertById(concertId);
         
         if (!concertOpt.isPresent()) {
@@ -83,32 +168,415 @@ public class BookingService {
         }
 
         Concert concert = concertOpt.get();
-        
-        // Check if the concert is sold out
-        if (isConcertSoldOut(concertId)) {
-            throw new SoldOutException(concertId, concert.getName());
+
+        int held = seatHoldService.claim(holdId, concertId);
+        if (held > numberOfSeats) {
+            returnSeats(concertId, held - numberOfSeats);
+        } else if (held < numberOfSeats) {
+            try {
+                reserveSeats(concert, numberOfSeats - held);
+            } catch (RuntimeException e) {
+                returnSeats(concertId, held);
+                throw e;
+            }
         }
-        
-        if (!concert.isAvailable(numberOfSeats)) {
-            throw new IllegalStateException("Not enough seats available");
+
+        Booking booking = createBooking(concert, customerName, customerEmail, numberOfSeats);
+
+        try {
+            journal.recordBooking(booking);
+        } catch (IllegalStateException e) {
+            // Never confirm a booking that would be lost on restart, nor let one come back that was refused
+            journal.recordDiscarded(Collections.singletonList(booking));
+            discardBooking(concert, booking);
+            throw new IllegalStateException("Booking could not be saved, please try again", e);
         }
 
-        Booking booking = new Booking(concertId, customerName, customerEmail, numberOfSeats, concert.getPrice());
-        concert.addBooking(booking);
-        bookings.add(booking);
-        
+        notifyListeners(listener -> listener.bookingCreated(concert, booking));
+        return booking;
+    }
+
+    /**
+     * Books a batch of requests for one concert with a single inventory reservation when
+     * the whole batch fits, and a single journal flush. Each request's future completes
+     * with its own booking or failure, in the same order a one-by-one run would give.
+     */
+    void bookBatch(String concertId, List<BatchedBooking> batch) {
+        Optional<Concert> concertOpt = getConcertById(concertId);
+        if (!concertOpt.isPresent()) {
+            batch.forEach(request -> request.fail(new IllegalArgumentException("Concert not found")));
+            return;
+        }
+        Concert concert = concertOpt.get();
+
+        List<BatchedBooking> valid = new ArrayList<>(batch.size());
+        // Summed as a long: with no per-booking cap a few large requests would wrap an int
+        long totalSeats = 0;
+        for (BatchedBooking request : batch) {
+            try {
+                purchaseLimits.checkSeatsPerBooking(request.getNumberOfSeats());
+            } catch (IllegalArgumentException e) {
+                request.fail(e);
+                continue;
+            }
+            valid.add(request);
+            totalSeats += request.getNumberOfSeats();
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<BatchedBooking> reserved;
+        if (totalSeats <= seatInventory.getRemainingSeats(concertId)
+                && seatInventory.tryReserve(concertId, (int) totalSeats) == SeatInventory.Reservation.RESERVED) {
+            reserved = valid;
+        } else {
+            // Not everyone fits; fall back to first-come-first-served within the batch
+            reserved = new ArrayList<>(valid.size());
+            for (BatchedBooking request : valid) {
+                switch (seatInventory.tryReserve(concertId, request.getNumberOfSeats())) {
+                    case RESERVED:
+                        reserved.add(request);
+                        break;
+                    case SOLD_OUT:
+                        metrics.bookingRejected(concertId, SeatInventory.Reservation.SOLD_OUT);
+                        request.fail(new SoldOutException(concertId, concert.getName()));
+                        break;
+                    case INSUFFICIENT_SEATS:
+                        metrics.bookingRejected(concertId, SeatInventory.Reservation.INSUFFICIENT_SEATS);
+                        request.fail(new InsufficientSeatsException(concertId));
+                        break;
+                    default:
+                        request.fail(new IllegalArgumentException("Concert not found"));
+                }
+            }
+        }
+
+        List<BatchedBooking> accepted = new ArrayList<>(reserved.size());
+        List<Booking> bookings = new ArrayList<>(reserved.size());
+        for (BatchedBooking request : reserved) {
+            try {
+                bookings.add(createBooking(concert, request.getCustomerName(), request.getCustomerEmail(),
+                        request.getNumberOfSeats()));
+                accepted.add(request);
+            } catch (IllegalStateException e) {
+                request.fail(e);
+            }
+        }
+
+        try {
+            journal.recordBookings(bookings);
+        } catch (IllegalStateException e) {
+            journal.recordDiscarded(bookings);
+            bookings.forEach(booking -> discardBooking(concert, booking));
+            IllegalStateException failure = new IllegalStateException("Booking could not be saved, please try again", e);
+            accepted.forEach(request -> request.fail(failure));
+            return;
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            Booking booking = bookings.get(i);
+            notifyListeners(listener -> listener.bookingCreated(concert, booking));
+            accepted.get(i).complete(booking);
+        }
+    }
+
+    /**
+     * Adds bookings loaded in bulk for one concert, keeping their ids and booking times.
+     * Seats are reserved as for any booking, but the purchase limits do not apply. A
+     * booking whose id is already present is rejected, so an import can be re-run after
+     * a partial failure. One journal flush covers the batch. Returns the bookings added;
+     * each one that is not is passed to {@code rejected} with the reason.
+     */
+    public List<Booking> importBookings(String concertId, List<Booking> bookings,
+                                        BiConsumer<Booking, RuntimeException> rejected) {
+        Optional<Concert> concertOpt = getConcertById(concertId);
+        if (!concertOpt.isPresent()) {
+            bookings.forEach(booking -> rejected.accept(booking, new IllegalArgumentException("Concert not found")));
+            return Collections.emptyList();
+        }
+        Concert concert = concertOpt.get();
+
+        List<Booking> added = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            SeatInventory.Reservation reservation = seatInventory.tryReserve(concertId, booking.getNumberOfSeats());
+            if (reservation != SeatInventory.Reservation.RESERVED) {
+                rejected.accept(booking, reservation == SeatInventory.Reservation.SOLD_OUT
+                        ? new SoldOutException(concertId, concert.getName()) : new InsufficientSeatsException(concertId));
+                continue;
+            }
+            Booking imported = booking;
+            if (concert.hasSeatMap()) {
+                List<String> seatIds = concert.getSeatMap().allocateBestAvailable(booking.getNumberOfSeats());
+                if (seatIds.isEmpty()) {
+                    seatInventory.release(concertId, booking.getNumberOfSeats());
+                    rejected.accept(booking, new InsufficientSeatsException(concertId));
+                    continue;
+                }
+                imported = new Booking(booking.getId(), concertId, booking.getCustomerName(), booking.getCustomerEmail(),
+                        booking.getNumberOfSeats(), booking.getBookingTime(), booking.getTotalPrice(), seatIds,
+                        booking.getCancelCode());
+            }
+            if (!bookingRepository.save(imported)) {
+                releaseSeats(concert, imported);
+                rejected.accept(booking, new IllegalArgumentException("Booking already exists: " + booking.getId()));
+                continue;
+            }
+            concert.addBooking(imported);
+            added.add(imported);
+        }
+
+        try {
+            journal.recordImportedBookings(added);
+        } catch (IllegalStateException e) {
+            journal.recordDiscarded(added);
+            added.forEach(booking -> discardBooking(concert, booking));
+            IllegalStateException failure = new IllegalStateException("Bookings could not be saved", e);
+            added.forEach(booking -> rejected.accept(booking, failure));
+            return Collections.emptyList();
+        }
+        notifyListeners(listener -> listener.bookingsImported(concert, added));
+        return added;
+    }
+
+    /**
+     * Cancels a booking given the cancel code its customer was shown when booking. The
+     * freed seats go to the concert's waitlist if anyone is waiting, and back on sale
+     * otherwise.
+     */
+    public Booking cancelBooking(String bookingId, String cancelCode) {
+        Booking booking = bookingRepository.findById(bookingId)
+                .filter(found -> new SharedSecret(found.getCancelCode()).matches(cancelCode))
+                .orElseThrow(() -> new IllegalArgumentException("Booking not found"));
+        Concert concert = getConcertById(booking.getConcertId())
+                .orElseThrow(() -> new IllegalArgumentException("Concert not found"));
+
+        // Removing the booking is the claim, so concurrent cancellations release its seats only once
+        if (!bookingRepository.remove(booking)) {
+            throw new IllegalArgumentException("Booking not found");
+        }
+        try {
+            journal.recordCancellation(booking);
+        } catch (IllegalStateException e) {
+            journal.recordReinstated(booking);
+            bookingRepository.save(booking);
+            throw new IllegalStateException("Cancellation could not be saved, please try again", e);
+        }
+
+        concert.removeBooking(booking);
+        if (concert.hasSeatMap()) {
+            concert.getSeatMap().release(booking.getSeatIds());
+        }
+        returnSeats(concert.getId(), booking.getNumberOfSeats());
+        notifyListeners(listener -> listener.bookingCancelled(concert, booking));
         return booking;
     }
 
+    /**
+     * Books waitlist entries whose seats the waitlist has already taken out of the
+     * inventory, with a single journal flush for the batch.
+     */
+    private void bookWaitlisted(String concertId, List<WaitlistEntry> entries) {
+        Optional<Concert> concertOpt = getConcertById(concertId);
+        if (!concertOpt.isPresent()) {
+            entries.forEach(entry -> seatInventory.release(concertId, entry.getNumberOfSeats()));
+            return;
+        }
+        Concert concert = concertOpt.get();
+
+        List<WaitlistEntry> accepted = new ArrayList<>(entries.size());
+        List<Booking> bookings = new ArrayList<>(entries.size());
+        for (WaitlistEntry entry : entries) {
+            try {
+                bookings.add(createBooking(concert, entry.getCustomerName(), entry.getCustomerEmail(),
+                        entry.getNumberOfSeats()));
+                accepted.add(entry);
+            } catch (PurchaseLimitException e) {
+                entry.reject(e.getMessage());
+            } catch (IllegalStateException e) {
+                log.warn("Could not book waitlist entry {} for concert {}: {}", entry.getId(), concertId, e.getMessage());
+            }
+        }
+
+        try {
+            journal.recordBookings(bookings);
+        } catch (IllegalStateException e) {
+            log.error("Could not save waitlist bookings for concert {}", concertId, e);
+            journal.recordDiscarded(bookings);
+            bookings.forEach(booking -> discardBooking(concert, booking));
+            return;
+        }
+        for (int i = 0; i < accepted.size(); i++) {
+            Booking booking = bookings.get(i);
+            accepted.get(i).setBooking(booking);
+            notifyListeners(listener -> listener.bookingCreated(concert, booking));
+        }
+    }
+
+    /**
+     * Replaces a concert's counters with those reported by the node that owns it, for
+     * concerts this node serves read-only and never books itself.
+     */
+    public void applyReplicatedAvailability(String concertId, int bookedSeats, long revenueCents) {
+        Optional<Concert> concertOpt = concertRepository.findById(concertId);
+        if (concertOpt.isPresent() && concertOpt.get().replaceCounters(bookedSeats, revenueCents)) {
+            Concert concert = concertOpt.get();
+            notifyListeners(listener -> listener.availabilityReplicated(concert));
+        }
+    }
+
     public List<Booking> getBookingsByConcertId(String concertId) {
-        return bookings.stream()
-                .filter(booking -> booking.getConcertId().equals(concertId))
-                .collect(Collectors.toList());
+        return metrics.getConcertBookingsLookupTimer().record(() -> bookingRepository.findByConcertId(concertId));
     }
 
     public List<Booking> getBookingsByCustomerEmail(String customerEmail) {
-        return bookings.stream()
-                .filter(booking -> booking.getCustomerEmail().equals(customerEmail))
-                .collect(Collectors.toList());
+        return metrics.getCustomerBookingsLookupTimer().record(() -> bookingRepository.findByCustomerEmail(customerEmail));
+    }
+
+    public Optional<Booking> getBookingById(String bookingId) {
+        return bookingRepository.findById(bookingId);
+    }
+
+    public Page<Concert> getConcerts(long cursor, int limit) {
+        return concertRepository.findAll(cursor, limit);
+    }
+
+    public Page<Booking> getBookingsByConcertId(String concertId, long cursor, int limit) {
+        return metrics.getConcertBookingsLookupTimer()
+                .record(() -> bookingRepository.findByConcertId(concertId, cursor, limit));
+    }
+
+    public List<Booking> getLatestBookingsByConcertId(String concertId, int limit) {
+        return metrics.getConcertBookingsLookupTimer()
+                .record(() -> bookingRepository.findLatestByConcertId(concertId, limit));
+    }
+
+    public Page<Booking> getBookingsByCustomerEmail(String customerEmail, long cursor, int limit) {
+        return metrics.getCustomerBookingsLookupTimer()
+                .record(() -> bookingRepository.findByCustomerEmail(customerEmail, cursor, limit));
+    }
+
+    private void notifyListeners(Consumer<BookingListener> event) {
+        for (BookingListener listener : listeners) {
+            try {
+                event.accept(listener);
+            } catch (RuntimeException e) {
+                // The change is already committed; a broken listener must not fail it
+                log.error("Booking listener {} failed", listener.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    // Reserve atomically so concurrent requests can never oversell the concert
+    private void reserveSeats(Concert concert, int numberOfSeats) {
+        SeatInventory.Reservation reservation = seatInventory.tryReserve(concert.getId(), numberOfSeats);
+        metrics.bookingRejected(concert.getId(), reservation);
+        switch (reservation) {
+            case RESERVED:
+                break;
+            case SOLD_OUT:
+                throw new SoldOutException(concert.getId(), concert.getName());
+            case INSUFFICIENT_SEATS:
+                throw new InsufficientSeatsException(concert.getId());
+            default:
+                throw new IllegalArgumentException("Concert not found");
+        }
+    }
+
+    /**
+     * Expects the seats to be reserved in the inventory already, and releases them if the
+     * booking cannot be made. The customer's seats for the concert are counted and the
+     * booking saved under the customer's lock, so concurrent requests from one customer
+     * cannot together pass the purchase limit.
+     */
+    private Booking createBooking(Concert concert, String customerName, String customerEmail, int numberOfSeats) {
+        int limit = purchaseLimits.getMaxSeatsPerCustomer(concert.getId());
+        if (limit <= 0) {
+            return addBooking(concert, customerName, customerEmail, numberOfSeats);
+        }
+        synchronized (purchaseLimits.lockFor(customerEmail)) {
+            int booked = bookingRepository.countSeats(concert.getId(), customerEmail);
+            if (booked + numberOfSeats > limit) {
+                seatInventory.release(concert.getId(), numberOfSeats);
+                metrics.purchaseLimitReached(concert.getId());
+                throw new PurchaseLimitException(concert.getId(), limit, booked);
+            }
+            return addBooking(concert, customerName, customerEmail, numberOfSeats);
+        }
+    }
+
+    private Booking addBooking(Concert concert, String customerName, String customerEmail, int numberOfSeats) {
+        List<String> seatIds = Collections.emptyList();
+        if (concert.hasSeatMap()) {
+            seatIds = concert.getSeatMap().allocateBestAvailable(numberOfSeats);
+            if (seatIds.isEmpty()) {
+                seatInventory.release(concert.getId(), numberOfSeats);
+                throw new InsufficientSeatsException(concert.getId());
+            }
+        }
+
+        Booking booking = new Booking(concert.getId(), customerName, customerEmail, numberOfSeats, concert.getPrice(),
+                seatIds);
+        concert.addBooking(booking);
+        bookingRepository.save(booking);
+        return booking;
+    }
+
+    /**
+     * Gives back seats that were out of the inventory, from a cancellation or a hold: to
+     * the concert's waitlist if anyone is waiting, and back on sale otherwise. Seats of a
+     * booking that fails part-way go straight back on sale, and so do the waitlist's own,
+     * or a failing allocation would be handed the same seats again and again.
+     */
+    private void returnSeats(String concertId, int seats) {
+        int waitlisted = waitlist.claimReleasedSeats(concertId, seats);
+        seatInventory.release(concertId, seats - waitlisted);
+    }
+
+    private void discardBooking(Concert concert, Booking booking) {
+        if (bookingRepository.remove(booking)) {
+            concert.removeBooking(booking);
+            releaseSeats(concert, booking);
+        }
+    }
+
+    private void releaseSeats(Concert concert, Booking booking) {
+        if (concert.hasSeatMap()) {
+            concert.getSeatMap().release(booking.getSeatIds());
+        }
+        seatInventory.release(concert.getId(), booking.getNumberOfSeats());
+    }
+
+    // Applies recovered journal state; records can repeat what the snapshot already restored
+    private class JournalReplay implements JournalReplayHandler {
+
+        @Override
+        public void concertRestored(Concert concert) {
+            concertRepository.save(concert);
+        }
+
+        @Override
+        public void bookingRestored(Booking booking) {
+            Optional<Concert> concertOpt = getConcertById(booking.getConcertId());
+            if (!concertOpt.isPresent() || !bookingRepository.save(booking)) {
+                return;
+            }
+            Concert concert = concertOpt.get();
+            concert.addBooking(booking);
+            if (concert.hasSeatMap() && !booking.getSeatIds().isEmpty()) {
+                concert.getSeatMap().reserve(booking.getSeatIds());
+            }
+        }
+
+        @Override
+        public void bookingCancelled(String concertId, String bookingId) {
+            bookingRepository.findById(bookingId).filter(bookingRepository::remove).ifPresent(booking -> {
+                getConcertById(concertId).ifPresent(concert -> {
+                    concert.removeBooking(booking);
+                    if (concert.hasSeatMap()) {
+                        concert.getSeatMap().release(booking.getSeatIds());
+                    }
+                });
+            });
+        }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,110 @@
+package com.concertbooking.service;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cached concert listing and event calendar. The list and its per-date grouping are
+ * rebuilt only when a concert is added; seat counts are read live from the concerts, so
+ * bookings just advance the version that validators are derived from. Repeat clients
+ * can then be answered with 304 Not Modified until availability changes.
+ */
+@Component
+public class ConcertListingCache implements BookingListener {
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    private final BookingService bookingService;
+    // Distinguishes versions across restarts, which start counting from zero again
+    private final String epoch = Long.toHexString(System.currentTimeMillis());
+    private final AtomicLong catalogVersion = new AtomicLong();
+    private final AtomicLong version = new AtomicLong();
+    private volatile long lastModified = System.currentTimeMillis();
+    private volatile Listing listing;
+
+    @Autowired
+    public ConcertListingCache(BookingService bookingService) {
+        this.bookingService = bookingService;
+        bookingService.addListener(this);
+    }
+
+    public Listing getListing() {
+        Listing current = listing;
+        long catalog = catalogVersion.get();
+        if (current == null || current.catalogVersion != catalog) {
+            // Racing rebuilds produce equal listings, so whichever is stored last is fine
+            current = new Listing(catalog, bookingService.getAllConcerts());
+            listing = current;
+        }
+        return current;
+    }
+
+    public String getETag() {
+        return "\"" + epoch + "-" + version.get() + "\"";
+    }
+
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    @Override
+    public void concertAdded(Concert concert) {
+        catalogVersion.incrementAndGet();
+        changed();
+    }
+
+    @Override
+    public void bookingCreated(Concert concert, Booking booking) {
+        changed();
+    }
+
+    @Override
+    public void bookingCancelled(Concert concert, Booking booking) {
+        changed();
+    }
+
+    @Override
+    public void availabilityReplicated(Concert concert) {
+        changed();
+    }
+
+    private void changed() {
+        version.incrementAndGet();
+        lastModified = System.currentTimeMillis();
+    }
+
+    public static class Listing {
+        private final long catalogVersion;
+        private final List<Concert> concerts;
+        private final Map<String, List<Concert>> concertsByDate;
+
+        Listing(long catalogVersion, List<Concert> concerts) {
+            this.catalogVersion = catalogVersion;
+            this.concerts = Collections.unmodifiableList(new ArrayList<>(concerts));
+            Map<String, List<Concert>> byDate = new TreeMap<>();
+            for (Concert concert : concerts) {
+                byDate.computeIfAbsent(concert.getDateTime().format(DATE_FORMATTER), date -> new ArrayList<>())
+                        .add(concert);
+            }
+            this.concertsByDate = Collections.unmodifiableMap(byDate);
+        }
+
+        public List<Concert> getConcerts() {
+            return concerts;
+        }
+
+        public Map<String, List<Concert>> getConcertsByDate() {
+            return concertsByDate;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.concertbooking.service;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.util.ExpiringCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes booking submissions idempotent. The first submission with a key books as usual;
+ * repeats within the TTL, including ones that arrive while the first is still running,
+ * get the same booking back without touching the inventory. A failed submission is
+ * forgotten so it can be retried. Reusing a key for a different booking is rejected.
+ */
+@Service
+public class IdempotentBookings {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final boolean enabled;
+    private final long waitMillis;
+    private final ExpiringCache<String, Submission> submissions;
+
+    @Autowired
+    public IdempotentBookings(@Value("${booking.idempotency.enabled:true}") boolean enabled,
+                              @Value("${booking.idempotency.ttl-seconds:600}") long ttlSeconds,
+                              @Value("${booking.idempotency.max-entries:100000}") int maxEntries,
+                              @Value("${booking.pipeline.timeout-ms:10000}") long waitMillis) {
+        this.enabled = enabled;
+        this.waitMillis = waitMillis;
+        this.submissions = new ExpiringCache<>(maxEntries, ttlSeconds, TimeUnit.SECONDS,
+                Runtime.getRuntime().availableProcessors() * 4);
+    }
+
+    public static IdempotentBookings disabled() {
+        return new IdempotentBookings(false, 1, 1, 0);
+    }
+
+    /**
+     * Runs {@code booking} unless a submission with the same key was already made, in
+     * which case its booking is returned. Without a key the booking always runs.
+     */
+    public Booking book(String idempotencyKey, String concertId, String customerEmail, int numberOfSeats,
+                        Supplier<Booking> booking) {
+        if (!enabled || idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return booking.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key is too long");
+        }
+
+        Submission submission = new Submission(concertId, BookingRepository.normalizeEmail(customerEmail), numberOfSeats);
+        Submission existing = submissions.putIfAbsent(idempotencyKey, submission);
+        if (existing != null) {
+            if (!existing.matches(submission)) {
+                throw new IllegalArgumentException("Idempotency key was already used for a different booking");
+            }
+            return await(existing);
+        }
+
+        try {
+            Booking result = booking.get();
+            submission.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            submissions.remove(idempotencyKey, submission);
+            submission.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Booking await(Submission submission) {
+        try {
+            return submission.result.get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Booking failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("This booking is still being processed, please check your bookings");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Booking was interrupted");
+        }
+    }
+
+    private static final class Submission {
+        private final String concertId;
+        private final String customerEmail;
+        private final int numberOfSeats;
+        private final CompletableFuture<Booking> result = new CompletableFuture<>();
+
+        Submission(String concertId, String customerEmail, int numberOfSeats) {
+            this.concertId = concertId;
+            this.customerEmail = customerEmail;
+            this.numberOfSeats = numberOfSeats;
+        }
+
+        boolean matches(Submission other) {
+            return concertId.equals(other.concertId) && customerEmail.equals(other.customerEmail)
+                    && numberOfSeats == other.numberOfSeats;
+        }
+    }
+}
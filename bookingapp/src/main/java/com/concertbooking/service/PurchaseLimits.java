@@ -0,0 +1,88 @@
+package com.concertbooking.service;
+
+import com.concertbooking.repository.BookingRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How many seats one booking may take, and how many seats one customer may hold for a
+ * concert in total, with per-concert overrides of the latter. A limit of 0 means no
+ * limit. Checking a customer's total and adding a booking must happen as one step, so
+ * customers are spread over a fixed set of locks; customers on different locks never
+ * wait for each other.
+ */
+@Component
+public class PurchaseLimits {
+
+    private static final int LOCK_STRIPES = 256;
+
+    private final int maxSeatsPerBooking;
+    private final int maxSeatsPerCustomer;
+    private final Map<String, Integer> concertLimits;
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    @Autowired
+    public PurchaseLimits(@Value("${booking.limits.max-seats-per-booking:10}") int maxSeatsPerBooking,
+                          @Value("${booking.limits.max-seats-per-customer:20}") int maxSeatsPerCustomer,
+                          @Value("${booking.limits.per-concert:}") String concertLimits) {
+        this.maxSeatsPerBooking = Math.max(maxSeatsPerBooking, 0);
+        this.maxSeatsPerCustomer = Math.max(maxSeatsPerCustomer, 0);
+        this.concertLimits = parseConcertLimits(concertLimits);
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    public static PurchaseLimits none() {
+        return new PurchaseLimits(0, 0, "");
+    }
+
+    public int getMaxSeatsPerBooking() {
+        return maxSeatsPerBooking;
+    }
+
+    /**
+     * Rejects a seat count no single booking may have, before any other work is done.
+     */
+    public void checkSeatsPerBooking(int numberOfSeats) {
+        if (numberOfSeats <= 0) {
+            throw new IllegalArgumentException("Number of seats must be at least 1");
+        }
+        if (maxSeatsPerBooking > 0 && numberOfSeats > maxSeatsPerBooking) {
+            throw new IllegalArgumentException("You can book at most " + maxSeatsPerBooking + " seats at a time");
+        }
+    }
+
+    public int getMaxSeatsPerCustomer(String concertId) {
+        Integer limit = concertLimits.get(concertId);
+        return limit != null ? limit : maxSeatsPerCustomer;
+    }
+
+    // The same customer always maps to the same lock, whatever the case of the email
+    Object lockFor(String customerEmail) {
+        int hash = BookingRepository.normalizeEmail(customerEmail).hashCode();
+        return locks[(hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1)];
+    }
+
+    // "C1=4,C2=6": concert id to the most seats one customer may hold for it
+    private static Map<String, Integer> parseConcertLimits(String limits) {
+        Map<String, Integer> parsed = new HashMap<>();
+        for (String limit : limits.split(",")) {
+            if (limit.trim().isEmpty()) {
+                continue;
+            }
+            int separator = limit.indexOf('=');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Concert purchase limit must be concertId=seats: " + limit.trim());
+            }
+            parsed.put(limit.substring(0, separator).trim(),
+                    Math.max(Integer.parseInt(limit.substring(separator + 1).trim()), 0));
+        }
+        return parsed.isEmpty() ? Collections.<String, Integer>emptyMap() : parsed;
+    }
+}
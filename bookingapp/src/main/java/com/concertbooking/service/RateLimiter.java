@@ -0,0 +1,106 @@
+package com.concertbooking.service;
+
+import com.concertbooking.exception.RateLimitedException;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.util.ExpiringCache;
+import com.concertbooking.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token buckets limiting how often one client address and one customer email may try
+ * to book. Buckets live in bounded expiring caches, so a flood of new addresses or
+ * emails evicts the oldest buckets rather than growing without limit; a client whose
+ * bucket was evicted or expired simply starts again with a full one. The idle time
+ * should be well above the time a bucket takes to refill, or a client kept at the limit
+ * would be given a fresh burst each time its bucket expires.
+ */
+@Service
+public class RateLimiter {
+
+    private final boolean enabled;
+    private final BookingMetrics metrics;
+    private final Limit addressLimit;
+    private final Limit customerLimit;
+
+    @Autowired
+    public RateLimiter(BookingMetrics metrics,
+                       @Value("${booking.rate-limit.enabled:true}") boolean enabled,
+                       @Value("${booking.rate-limit.address.per-minute:60}") int addressPerMinute,
+                       @Value("${booking.rate-limit.address.burst:20}") int addressBurst,
+                       @Value("${booking.rate-limit.customer.per-minute:10}") int customerPerMinute,
+                       @Value("${booking.rate-limit.customer.burst:5}") int customerBurst,
+                       @Value("${booking.rate-limit.max-entries:100000}") int maxEntries,
+                       @Value("${booking.rate-limit.idle-seconds:600}") long idleSeconds) {
+        this.enabled = enabled;
+        this.metrics = metrics;
+        this.addressLimit = enabled ? new Limit(addressPerMinute, addressBurst, maxEntries, idleSeconds) : null;
+        this.customerLimit = enabled ? new Limit(customerPerMinute, customerBurst, maxEntries, idleSeconds) : null;
+    }
+
+    public static RateLimiter disabled() {
+        return new RateLimiter(BookingMetrics.noop(), false, 0, 0, 0, 0, 0, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Takes a token from the client address's bucket, or throws if it is empty.
+     */
+    public void checkAddress(String address) {
+        if (enabled && address != null) {
+            long wait = addressLimit.tryAcquire(address);
+            if (wait > 0) {
+                metrics.addressRateLimited();
+                throw new RateLimitedException(toRetryAfterSeconds(wait));
+            }
+        }
+    }
+
+    /**
+     * Takes a token from the customer's bucket, or throws if it is empty. Emails are
+     * normalized so changing their case does not give a new bucket.
+     */
+    public void checkCustomer(String customerEmail) {
+        if (enabled && customerEmail != null) {
+            long wait = customerLimit.tryAcquire(BookingRepository.normalizeEmail(customerEmail));
+            if (wait > 0) {
+                metrics.customerRateLimited();
+                throw new RateLimitedException(toRetryAfterSeconds(wait));
+            }
+        }
+    }
+
+    private static long toRetryAfterSeconds(long nanos) {
+        return Math.max(TimeUnit.NANOSECONDS.toSeconds(nanos + 999_999_999L), 1);
+    }
+
+    private static final class Limit {
+        private final int burst;
+        private final double perSecond;
+        private final ExpiringCache<String, TokenBucket> buckets;
+
+        Limit(int perMinute, int burst, int maxEntries, long idleSeconds) {
+            this.burst = Math.max(burst, 1);
+            this.perSecond = Math.max(perMinute, 0) / 60d;
+            this.buckets = new ExpiringCache<>(Math.max(maxEntries, 1), Math.max(idleSeconds, 1), TimeUnit.SECONDS,
+                    Runtime.getRuntime().availableProcessors() * 4);
+        }
+
+        long tryAcquire(String key) {
+            long now = System.nanoTime();
+            TokenBucket bucket = buckets.get(key);
+            if (bucket == null) {
+                TokenBucket created = new TokenBucket(burst, perSecond, now);
+                TokenBucket existing = buckets.putIfAbsent(key, created);
+                bucket = existing != null ? existing : created;
+            }
+            return bucket.tryAcquire(now);
+        }
+    }
+}
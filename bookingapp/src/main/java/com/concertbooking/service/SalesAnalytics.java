@@ -0,0 +1,395 @@
+package com.concertbooking.service;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Live sales figures fed by booking events. Each concert with sales gets a ring of
+ * time buckets covering the last {@code window-seconds}, with running totals that
+ * buckets falling out of the window are subtracted from, so memory per concert is
+ * fixed and reading the rates never touches the bookings. Bookings count in the
+ * bucket of their booking time, so imported history does not show up as live sales.
+ * Cancellations take their seats and revenue back out of that same bucket, never
+ * below zero, so cancelling a sale older than the window leaves the rates alone.
+ */
+@Component
+public class SalesAnalytics implements BookingListener {
+
+    private static final Comparator<Totals> BY_SALES =
+            Comparator.<Totals>comparingInt(totals -> totals.seats).thenComparingLong(totals -> totals.cents);
+
+    private final BookingService bookingService;
+    private final int buckets;
+    private final long bucketMillis;
+    private final int topCount;
+    private final long refreshMillis;
+    private final long startedMillis = toMillis(LocalDateTime.now());
+    private final ConcurrentMap<String, Window> windows = new ConcurrentHashMap<>();
+    private volatile Dashboard dashboard;
+
+    @Autowired
+    public SalesAnalytics(BookingService bookingService,
+                          @Value("${booking.analytics.window-seconds:300}") int windowSeconds,
+                          @Value("${booking.analytics.buckets:60}") int buckets,
+                          @Value("${booking.analytics.top:10}") int topCount,
+                          @Value("${booking.analytics.refresh-ms:1000}") long refreshMillis) {
+        this.bookingService = bookingService;
+        this.buckets = Math.max(buckets, 1);
+        this.bucketMillis = Math.max(windowSeconds * 1000L / this.buckets, 1);
+        this.topCount = Math.max(topCount, 1);
+        this.refreshMillis = refreshMillis;
+        bookingService.addListener(this);
+    }
+
+    @Override
+    public void bookingCreated(Concert concert, Booking booking) {
+        record(concert, 1, booking.getNumberOfSeats(), Math.round(booking.getTotalPrice() * 100),
+                toMillis(booking.getBookingTime()));
+    }
+
+    @Override
+    public void bookingCancelled(Concert concert, Booking booking) {
+        Window window = windows.get(concert.getId());
+        if (window != null) {
+            window.subtract(toMillis(booking.getBookingTime()) / bucketMillis, booking.getNumberOfSeats(),
+                    Math.round(booking.getTotalPrice() * 100));
+        }
+    }
+
+    /**
+     * Totals over all concerts and the top concerts by seats sold in the window. Built at
+     * most once per {@code refresh-ms}, however often it is polled.
+     */
+    public Dashboard getDashboard() {
+        Dashboard current = dashboard;
+        long now = System.currentTimeMillis();
+        if (current == null || now - current.builtAtMillis >= refreshMillis) {
+            // Pollers that race here build the same figures, so either result can be kept
+            current = buildDashboard(now);
+            dashboard = current;
+        }
+        return current;
+    }
+
+    public Optional<ConcertSales> getConcertSales(String concertId) {
+        Optional<Concert> concert = bookingService.getConcertById(concertId);
+        if (!concert.isPresent()) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long nowMillis = toMillis(now);
+        Window window = windows.get(concertId);
+        Totals totals = window != null ? window.totals(nowMillis / bucketMillis) : new Totals(concert.get(), 0, 0, 0);
+        return Optional.of(new ConcertSales(totals, windowMinutes(nowMillis), now));
+    }
+
+    private void record(Concert concert, int bookings, int seats, long cents, long millis) {
+        Window window = windows.get(concert.getId());
+        if (window == null) {
+            window = windows.computeIfAbsent(concert.getId(), id -> new Window(concert, buckets));
+        }
+        window.add(millis / bucketMillis, bookings, seats, cents);
+    }
+
+    private Dashboard buildDashboard(long builtAtMillis) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long nowMillis = toMillis(now);
+        long bucket = nowMillis / bucketMillis;
+        double minutes = windowMinutes(nowMillis);
+        long bookings = 0;
+        long seats = 0;
+        long cents = 0;
+        int activeConcerts = 0;
+        PriorityQueue<Totals> top = new PriorityQueue<>(topCount + 1, BY_SALES);
+        for (Window window : windows.values()) {
+            Totals totals = window.totals(bucket);
+            if (totals.bookings == 0 && totals.seats == 0 && totals.cents == 0) {
+                continue;
+            }
+            activeConcerts++;
+            bookings += totals.bookings;
+            seats += totals.seats;
+            cents += totals.cents;
+            top.add(totals);
+            if (top.size() > topCount) {
+                top.poll();
+            }
+        }
+        List<ConcertSales> topConcerts = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            topConcerts.add(new ConcertSales(top.poll(), minutes, now));
+        }
+        Collections.reverse(topConcerts);
+        return new Dashboard(builtAtMillis, now, Math.round(minutes * 60), activeConcerts, bookings / minutes,
+                seats / minutes, cents / 100.0 / minutes, topConcerts);
+    }
+
+    // Until the application has run a whole window, rates are taken over the time it has run
+    private double windowMinutes(long nowMillis) {
+        long windowMillis = bucketMillis * buckets;
+        long elapsed = Math.min(windowMillis, Math.max(nowMillis - startedMillis, bucketMillis));
+        return elapsed / 60_000.0;
+    }
+
+    // Booking times are local, so both sides of every comparison are read as if they were UTC
+    private static long toMillis(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1000 + dateTime.getNano() / 1_000_000;
+    }
+
+    private static final class Window {
+        private final Concert concert;
+        private final int[] bookings;
+        private final int[] seats;
+        private final long[] cents;
+        private long lastBucket = Long.MIN_VALUE;
+        private int windowBookings;
+        private int windowSeats;
+        private long windowCents;
+
+        Window(Concert concert, int buckets) {
+            this.concert = concert;
+            this.bookings = new int[buckets];
+            this.seats = new int[buckets];
+            this.cents = new long[buckets];
+        }
+
+        synchronized void add(long bucket, int bookingCount, int seatCount, long centCount) {
+            advance(bucket);
+            if (bucket <= lastBucket - bookings.length) {
+                return;
+            }
+            int slot = (int) Math.floorMod(bucket, (long) bookings.length);
+            bookings[slot] += bookingCount;
+            seats[slot] += seatCount;
+            cents[slot] += centCount;
+            windowBookings += bookingCount;
+            windowSeats += seatCount;
+            windowCents += centCount;
+        }
+
+        // Sales made before this ran, or already out of the window, were never counted here
+        synchronized void subtract(long bucket, int seatCount, long centCount) {
+            if (bucket > lastBucket || bucket <= lastBucket - bookings.length) {
+                return;
+            }
+            int slot = (int) Math.floorMod(bucket, (long) bookings.length);
+            int seatsTaken = Math.min(seatCount, seats[slot]);
+            long centsTaken = Math.min(centCount, cents[slot]);
+            seats[slot] -= seatsTaken;
+            cents[slot] -= centsTaken;
+            windowSeats -= seatsTaken;
+            windowCents -= centsTaken;
+        }
+
+        synchronized Totals totals(long bucket) {
+            advance(bucket);
+            return new Totals(concert, windowBookings, windowSeats, windowCents);
+        }
+
+        private void advance(long bucket) {
+            if (bucket <= lastBucket) {
+                return;
+            }
+            if (lastBucket == Long.MIN_VALUE || bucket - lastBucket >= bookings.length) {
+                Arrays.fill(bookings, 0);
+                Arrays.fill(seats, 0);
+                Arrays.fill(cents, 0);
+                windowBookings = 0;
+                windowSeats = 0;
+                windowCents = 0;
+            } else {
+                for (long expired = lastBucket + 1; expired <= bucket; expired++) {
+                    int slot = (int) Math.floorMod(expired, (long) bookings.length);
+                    windowBookings -= bookings[slot];
+                    windowSeats -= seats[slot];
+                    windowCents -= cents[slot];
+                    bookings[slot] = 0;
+                    seats[slot] = 0;
+                    cents[slot] = 0;
+                }
+            }
+            lastBucket = bucket;
+        }
+    }
+
+    private static final class Totals {
+        private final Concert concert;
+        private final int bookings;
+        private final int seats;
+        private final long cents;
+
+        Totals(Concert concert, int bookings, int seats, long cents) {
+            this.concert = concert;
+            this.bookings = bookings;
+            this.seats = seats;
+            this.cents = cents;
+        }
+    }
+
+    public static class Dashboard {
+        private final long builtAtMillis;
+        private final String generatedAt;
+        private final long windowSeconds;
+        private final int activeConcerts;
+        private final double bookingsPerMinute;
+        private final double seatsPerMinute;
+        private final double revenuePerMinute;
+        private final List<ConcertSales> topConcerts;
+
+        Dashboard(long builtAtMillis, LocalDateTime generatedAt, long windowSeconds, int activeConcerts,
+                  double bookingsPerMinute, double seatsPerMinute, double revenuePerMinute,
+                  List<ConcertSales> topConcerts) {
+            this.builtAtMillis = builtAtMillis;
+            this.generatedAt = generatedAt.toString();
+            this.windowSeconds = windowSeconds;
+            this.activeConcerts = activeConcerts;
+            this.bookingsPerMinute = bookingsPerMinute;
+            this.seatsPerMinute = seatsPerMinute;
+            this.revenuePerMinute = revenuePerMinute;
+            this.topConcerts = Collections.unmodifiableList(topConcerts);
+        }
+
+        public String getGeneratedAt() {
+            return generatedAt;
+        }
+
+        public long getWindowSeconds() {
+            return windowSeconds;
+        }
+
+        public int getActiveConcerts() {
+            return activeConcerts;
+        }
+
+        public double getBookingsPerMinute() {
+            return bookingsPerMinute;
+        }
+
+        public double getSeatsPerMinute() {
+            return seatsPerMinute;
+        }
+
+        public double getRevenuePerMinute() {
+            return revenuePerMinute;
+        }
+
+        public List<ConcertSales> getTopConcerts() {
+            return topConcerts;
+        }
+    }
+
+    /**
+     * One concert's rates over the window, how much of it has sold, and when it sells out
+     * at the current rate of seats sold.
+     */
+    public static class ConcertSales {
+        private final String concertId;
+        private final String concertName;
+        private final double bookingsPerMinute;
+        private final double seatsPerMinute;
+        private final double revenuePerMinute;
+        private final double windowRevenue;
+        private final int bookedSeats;
+        private final int totalSeats;
+        private final double sellThrough;
+        private final Long secondsToSellOut;
+        private final String projectedSellOut;
+        private final Boolean sellsOutBeforeShow;
+
+        ConcertSales(Totals totals, double minutes, LocalDateTime now) {
+            Concert concert = totals.concert;
+            this.concertId = concert.getId();
+            this.concertName = concert.getName();
+            this.bookingsPerMinute = totals.bookings / minutes;
+            this.seatsPerMinute = totals.seats / minutes;
+            this.revenuePerMinute = totals.cents / 100.0 / minutes;
+            this.windowRevenue = totals.cents / 100.0;
+            this.bookedSeats = concert.getBookedSeats();
+            this.totalSeats = concert.getTotalSeats();
+            this.sellThrough = totalSeats > 0 ? Math.min((double) bookedSeats / totalSeats, 1.0) : 1.0;
+            int remaining = concert.getRemainingSeats();
+            if (remaining == 0) {
+                this.secondsToSellOut = 0L;
+                this.projectedSellOut = null;
+                this.sellsOutBeforeShow = null;
+            } else if (seatsPerMinute > 0) {
+                this.secondsToSellOut = (long) Math.ceil(remaining / seatsPerMinute * 60);
+                LocalDateTime projected = now.plusSeconds(secondsToSellOut);
+                this.projectedSellOut = projected.toString();
+                this.sellsOutBeforeShow = projected.isBefore(concert.getDateTime());
+            } else {
+                this.secondsToSellOut = null;
+                this.projectedSellOut = null;
+                this.sellsOutBeforeShow = null;
+            }
+        }
+
+        public String getConcertId() {
+            return concertId;
+        }
+
+        public String getConcertName() {
+            return concertName;
+        }
+
+        public double getBookingsPerMinute() {
+            return bookingsPerMinute;
+        }
+
+        public double getSeatsPerMinute() {
+            return seatsPerMinute;
+        }
+
+        public double getRevenuePerMinute() {
+            return revenuePerMinute;
+        }
+
+        public double getWindowRevenue() {
+            return windowRevenue;
+        }
+
+        public int getBookedSeats() {
+            return bookedSeats;
+        }
+
+        public int getTotalSeats() {
+            return totalSeats;
+        }
+
+        public double getSellThrough() {
+            return sellThrough;
+        }
+
+        /**
+         * Seconds until the remaining seats sell at the current rate: 0 when sold out,
+         * null when nothing sold in the window.
+         */
+        public Long getSecondsToSellOut() {
+            return secondsToSellOut;
+        }
+
+        public String getProjectedSellOut() {
+            return projectedSellOut;
+        }
+
+        public Boolean getSellsOutBeforeShow() {
+            return sellsOutBeforeShow;
+        }
+    }
+}
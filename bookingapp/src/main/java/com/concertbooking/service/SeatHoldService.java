@@ -0,0 +1,154 @@
+package com.concertbooking.service;
+
+import com.concertbooking.exception.InsufficientSeatsException;
+import com.concertbooking.model.SeatHold;
+import com.concertbooking.util.HierarchicalTimerWheel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Temporary seat holds taken while a customer fills in the booking form. A hold takes
+ * its seats out of the {@link SeatInventory} straight away and gives them back if it is
+ * not claimed before its TTL runs out. Expiry runs on a single timer wheel, so each
+ * outstanding hold costs one map entry and one wheel entry.
+ */
+@Service
+public class SeatHoldService {
+
+    /**
+     * Takes back the seats of a hold that was released or ran out.
+     */
+    interface Releaser {
+        void release(String concertId, int seats);
+    }
+
+    private final SeatInventory seatInventory;
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final HierarchicalTimerWheel wheel;
+    private final ConcurrentMap<String, ActiveHold> holds = new ConcurrentHashMap<>();
+    private volatile Releaser releaser;
+
+    @Autowired
+    public SeatHoldService(SeatInventory seatInventory,
+                           @Value("${booking.hold.enabled:true}") boolean enabled,
+                           @Value("${booking.hold.ttl-seconds:300}") long ttlSeconds,
+                           @Value("${booking.hold.tick-millis:100}") long tickMillis) {
+        this.seatInventory = seatInventory;
+        this.releaser = seatInventory::release;
+        this.enabled = enabled && ttlSeconds > 0;
+        this.ttlMillis = ttlSeconds * 1000;
+        // 512 buckets per level: about 51 s on level 0 at the default tick, years across four levels
+        this.wheel = new HierarchicalTimerWheel(tickMillis, TimeUnit.MILLISECONDS, 512, 4, "seat-hold-expiry");
+    }
+
+    public static SeatHoldService disabled(SeatInventory seatInventory) {
+        return new SeatHoldService(seatInventory, false, 0, 100);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Freed seats go straight back on sale unless the booking service offers them to a waitlist first
+    void releaseTo(Releaser releaser) {
+        this.releaser = releaser;
+    }
+
+    /**
+     * Holds seats for a customer, reusing their previous hold when it is still active
+     * for the same concert and size, and releasing it otherwise. Throws
+     * IllegalStateException if the seats cannot be held.
+     */
+    public SeatHold hold(String concertId, int numberOfSeats, String previousHoldId) {
+        if (!enabled) {
+            throw new IllegalStateException("Seat holds are disabled");
+        }
+        ActiveHold previous = previousHoldId != null ? holds.get(previousHoldId) : null;
+        if (previous != null && previous.hold.getConcertId().equals(concertId)
+                && previous.hold.getNumberOfSeats() == numberOfSeats) {
+            return previous.hold;
+        }
+        if (previous != null) {
+            release(previousHoldId);
+        }
+
+        switch (seatInventory.tryReserve(concertId, numberOfSeats)) {
+            case RESERVED:
+                break;
+            case SOLD_OUT:
+                throw new IllegalStateException("All remaining seats are currently held, please try again in a few minutes");
+            case INSUFFICIENT_SEATS:
+                throw new InsufficientSeatsException(concertId);
+            default:
+                throw new IllegalArgumentException("Concert not found");
+        }
+
+        SeatHold hold = new SeatHold(UUID.randomUUID().toString(), concertId, numberOfSeats,
+                LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(ttlMillis)));
+        ActiveHold active = new ActiveHold(hold);
+        holds.put(hold.getId(), active);
+        active.timeout = wheel.schedule(() -> expire(active), ttlMillis, TimeUnit.MILLISECONDS);
+        return hold;
+    }
+
+    public Optional<SeatHold> getHold(String holdId) {
+        ActiveHold active = holdId != null ? holds.get(holdId) : null;
+        return active != null ? Optional.of(active.hold) : Optional.empty();
+    }
+
+    /**
+     * Takes over a hold's seats for a booking. Returns the number of seats now owned by
+     * the caller, or 0 if the hold is unknown, expired or for another concert.
+     */
+    public int claim(String holdId, String concertId) {
+        ActiveHold active = holdId != null ? holds.get(holdId) : null;
+        if (active == null || !active.hold.getConcertId().equals(concertId) || !holds.remove(holdId, active)) {
+            return 0;
+        }
+        active.timeout.cancel();
+        return active.hold.getNumberOfSeats();
+    }
+
+    public void release(String holdId) {
+        ActiveHold active = holdId != null ? holds.get(holdId) : null;
+        if (active != null && holds.remove(holdId, active)) {
+            active.timeout.cancel();
+            releaser.release(active.hold.getConcertId(), active.hold.getNumberOfSeats());
+        }
+    }
+
+    public int getActiveHoldCount() {
+        return holds.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        wheel.stop();
+    }
+
+    // Whoever removes the map entry first owns the seats, so expiry and claim never both act
+    private void expire(ActiveHold active) {
+        if (holds.remove(active.hold.getId(), active)) {
+            releaser.release(active.hold.getConcertId(), active.hold.getNumberOfSeats());
+        }
+    }
+
+    private static final class ActiveHold {
+        private final SeatHold hold;
+        private volatile HierarchicalTimerWheel.Timeout timeout;
+
+        ActiveHold(SeatHold hold) {
+            this.hold = hold;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.concertbooking.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-concert remaining-seat counters. Reservations are a compare-and-set on the
+ * concert's own counter, so concurrent bookings never oversell and bookings for
+ * different concerts never contend with each other.
+ */
+@Component
+public class SeatInventory {
+
+    public enum Reservation {
+        RESERVED,
+        SOLD_OUT,
+        INSUFFICIENT_SEATS,
+        UNKNOWN_CONCERT
+    }
+
+    private final ConcurrentMap<String, AtomicInteger> remainingSeats = new ConcurrentHashMap<>();
+
+    public void register(String concertId, int availableSeats) {
+        remainingSeats.put(concertId, new AtomicInteger(Math.max(availableSeats, 0)));
+    }
+
+    public Reservation tryReserve(String concertId, int seats) {
+        if (seats <= 0) {
+            throw new IllegalArgumentException("Number of seats must be at least 1");
+        }
+        AtomicInteger remaining = remainingSeats.get(concertId);
+        if (remaining == null) {
+            return Reservation.UNKNOWN_CONCERT;
+        }
+        while (true) {
+            int current = remaining.get();
+            if (current <= 0) {
+                return Reservation.SOLD_OUT;
+            }
+            if (current < seats) {
+                return Reservation.INSUFFICIENT_SEATS;
+            }
+            if (remaining.compareAndSet(current, current - seats)) {
+                return Reservation.RESERVED;
+            }
+        }
+    }
+
+    public void release(String concertId, int seats) {
+        AtomicInteger remaining = remainingSeats.get(concertId);
+        if (remaining != null && seats > 0) {
+            remaining.addAndGet(seats);
+        }
+    }
+
+    public int getRemainingSeats(String concertId) {
+        AtomicInteger remaining = remainingSeats.get(concertId);
+        return remaining != null ? remaining.get() : 0;
+    }
+}
@@ -0,0 +1,251 @@
+package com.concertbooking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Virtual waiting room for hot on-sales. Visitors take a numbered ticket from a
+ * per-concert FIFO queue and are admitted at a fixed rate; admission is a signed,
+ * expiring token naming the ticket it was issued for. Tickets are signed too, so a
+ * client cannot jump the queue by editing its number.
+ * <p>
+ * An admission is good for one booking: the booking request claims it, and once the
+ * booking succeeds neither the token nor its ticket admits anyone again, so a shared
+ * or replayed token books at most once. Used admissions are tracked per instance, so
+ * replicas sharing a secret need sticky sessions for this to hold across them.
+ */
+@Service
+public class WaitingRoomService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final boolean enabled;
+    private final double admitRatePerSecond;
+    private final int burst;
+    private final long tokenTtlMillis;
+    private final byte[] secret;
+    private final ThreadLocal<Mac> macs;
+    private final ConcurrentMap<String, TicketQueue> queues = new ConcurrentHashMap<>();
+
+    @Autowired
+    public WaitingRoomService(@Value("${booking.waiting-room.enabled:false}") boolean enabled,
+                              @Value("${booking.waiting-room.admit-rate-per-second:20}") double admitRatePerSecond,
+                              @Value("${booking.waiting-room.burst:50}") int burst,
+                              @Value("${booking.waiting-room.token-ttl-seconds:900}") long tokenTtlSeconds,
+                              @Value("${booking.waiting-room.secret:}") String secret) {
+        this.enabled = enabled;
+        this.admitRatePerSecond = Math.max(admitRatePerSecond, 0.001);
+        this.burst = Math.max(burst, 0);
+        this.tokenTtlMillis = tokenTtlSeconds * 1000;
+        // Replicas must share a configured secret; otherwise each instance signs with its own
+        this.secret = secret.isEmpty() ? randomSecret() : secret.getBytes(StandardCharsets.UTF_8);
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long joinQueue(String concertId) {
+        return queue(concertId).join(System.nanoTime());
+    }
+
+    public Status getStatus(String concertId, long ticket) {
+        long position = queue(concertId).positionOf(ticket, System.nanoTime());
+        if (position <= 0) {
+            return new Status(true, 0, 0);
+        }
+        return new Status(false, position, (long) Math.ceil(position / admitRatePerSecond));
+    }
+
+    public String signTicket(String concertId, long ticket) {
+        return ticket + "." + sign(concertId + "|ticket|" + ticket);
+    }
+
+    /**
+     * Returns the ticket number from a signed ticket, or -1 if it is missing, forged or
+     * its admission is taken, in which case the visitor queues again.
+     */
+    public long verifyTicket(String concertId, String signedTicket) {
+        int dot = signedTicket == null ? -1 : signedTicket.indexOf('.');
+        if (dot <= 0) {
+            return -1;
+        }
+        try {
+            long ticket = Long.parseLong(signedTicket.substring(0, dot));
+            boolean valid = matches(signedTicket.substring(dot + 1), concertId + "|ticket|" + ticket);
+            return valid && !queue(concertId).isTaken(ticket) ? ticket : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public String issueAdmissionToken(String concertId, long ticket) {
+        long expiresAt = System.currentTimeMillis() + tokenTtlMillis;
+        return ticket + "." + expiresAt + "." + sign(concertId + "|admit|" + ticket + "|" + expiresAt);
+    }
+
+    /**
+     * True if the token is genuine, unexpired and its admission neither used nor claimed.
+     */
+    public boolean isAdmitted(String concertId, String token) {
+        long ticket = admittedTicket(concertId, token);
+        return ticket > 0 && !queue(concertId).isTaken(ticket);
+    }
+
+    /**
+     * Claims the token's admission for one booking request. Returns false if it is not
+     * admitted, including while another request holds the claim.
+     */
+    public boolean claimAdmission(String concertId, String token) {
+        long ticket = admittedTicket(concertId, token);
+        return ticket > 0 && queue(concertId).claim(ticket);
+    }
+
+    /**
+     * Ends a claim: if the request booked, the admission is used up; otherwise the token
+     * may be used again.
+     */
+    public void completeAdmission(String concertId, String token, boolean booked) {
+        long ticket = admittedTicket(concertId, token);
+        if (ticket > 0) {
+            queue(concertId).complete(ticket, booked);
+        }
+    }
+
+    private TicketQueue queue(String concertId) {
+        return queues.computeIfAbsent(concertId, id -> new TicketQueue());
+    }
+
+    // The ticket a genuine, unexpired admission token was issued for, or -1
+    private long admittedTicket(String concertId, String token) {
+        int first = token == null ? -1 : token.indexOf('.');
+        int second = first <= 0 ? -1 : token.indexOf('.', first + 1);
+        if (second <= first + 1) {
+            return -1;
+        }
+        try {
+            long ticket = Long.parseLong(token.substring(0, first));
+            long expiresAt = Long.parseLong(token.substring(first + 1, second));
+            boolean valid = expiresAt > System.currentTimeMillis()
+                    && matches(token.substring(second + 1), concertId + "|admit|" + ticket + "|" + expiresAt);
+            return valid ? ticket : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    public int getTokenTtlSeconds() {
+        return (int) (tokenTtlMillis / 1000);
+    }
+
+    private String sign(String value) {
+        return ENCODER.encodeToString(macs.get().doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private boolean matches(String signature, String value) {
+        return MessageDigest.isEqual(signature.getBytes(StandardCharsets.US_ASCII),
+                sign(value).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC not available", e);
+        }
+    }
+
+    private static byte[] randomSecret() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        return bytes;
+    }
+
+    public static class Status {
+        private final boolean admitted;
+        private final long position;
+        private final long estimatedWaitSeconds;
+
+        Status(boolean admitted, long position, long estimatedWaitSeconds) {
+            this.admitted = admitted;
+            this.position = position;
+            this.estimatedWaitSeconds = estimatedWaitSeconds;
+        }
+
+        public boolean isAdmitted() {
+            return admitted;
+        }
+
+        public long getPosition() {
+            return position;
+        }
+
+        public long getEstimatedWaitSeconds() {
+            return estimatedWaitSeconds;
+        }
+    }
+
+    // The admitted watermark advances lazily from elapsed time, so no timer thread is needed
+    private class TicketQueue {
+        private long lastTicket;
+        private double admittedThrough;
+        private long lastAdvanceNanos;
+        // Tickets are numbered from 1, so used admissions cost a bit each and are never dropped
+        private final BitSet usedTickets = new BitSet();
+        private final Set<Long> claimedTickets = new HashSet<>();
+
+        TicketQueue() {
+            this.admittedThrough = burst;
+            this.lastAdvanceNanos = System.nanoTime();
+        }
+
+        synchronized long join(long now) {
+            advance(now);
+            return ++lastTicket;
+        }
+
+        synchronized long positionOf(long ticket, long now) {
+            advance(now);
+            return ticket - (long) admittedThrough;
+        }
+
+        synchronized boolean isTaken(long ticket) {
+            return ticket > Integer.MAX_VALUE || usedTickets.get((int) ticket) || claimedTickets.contains(ticket);
+        }
+
+        synchronized boolean claim(long ticket) {
+            return !isTaken(ticket) && claimedTickets.add(ticket);
+        }
+
+        synchronized void complete(long ticket, boolean booked) {
+            if (claimedTickets.remove(ticket) && booked) {
+                usedTickets.set((int) ticket);
+            }
+        }
+
+        private void advance(long now) {
+            double credits = (now - lastAdvanceNanos) / 1e9 * admitRatePerSecond;
+            lastAdvanceNanos = now;
+            // Idle time may only bank up to a burst's worth of admissions ahead of the queue
+            admittedThrough = Math.min(admittedThrough + credits, Math.max(admittedThrough, lastTicket + burst));
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.concertbooking.service;
+
+import com.concertbooking.exception.PurchaseLimitException;
+import com.concertbooking.model.WaitlistEntry;
+import com.concertbooking.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-concert FIFO waitlists for sold-out concerts. Seats freed by a cancellation, or by
+ * a seat hold that is released, runs out or was larger than its booking, are handed to
+ * the concert's waitlist before they go back on sale, and are turned into
+ * bookings on a background thread in batches, so a wave of cancellations costs the
+ * request threads nothing more than the cancellations themselves. An entry too large
+ * for the freed seats keeps its place while smaller ones behind it are served; seats
+ * no entry can use go back on sale. An entry that can no longer be booked at all, such
+ * as one that would take its customer over the purchase limit, is dropped. Booked and
+ * rejected entries can still be looked up for {@code booking.waitlist.retention-seconds}
+ * after they finish, and are then forgotten.
+ */
+@Service
+public class WaitlistService {
+
+    private static final Logger log = LoggerFactory.getLogger(WaitlistService.class);
+
+    /**
+     * Books waitlist entries whose seats are already taken out of the inventory,
+     * setting the booking id of each entry it books and rejecting each entry that can
+     * never be booked. Seats of the entries it does not book must be released.
+     */
+    interface Allocator {
+        void allocate(String concertId, List<WaitlistEntry> entries);
+    }
+
+    private final SeatInventory seatInventory;
+    private final PurchaseLimits purchaseLimits;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxPerConcert;
+    private final long retentionNanos;
+    private final ConcurrentMap<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, WaitlistEntry> entries = new ConcurrentHashMap<>();
+    // Booked and rejected entries in the order they finished, so the oldest are forgotten first
+    private final Queue<Finished> finished = new ConcurrentLinkedQueue<>();
+    private final ExecutorService executor;
+    private volatile Allocator allocator;
+
+    @Autowired
+    public WaitlistService(SeatInventory seatInventory, PurchaseLimits purchaseLimits,
+                           @Value("${booking.waitlist.enabled:true}") boolean enabled,
+                           @Value("${booking.waitlist.batch-size:256}") int batchSize,
+                           @Value("${booking.waitlist.max-per-concert:10000}") int maxPerConcert,
+                           @Value("${booking.waitlist.threads:1}") int threads,
+                           @Value("${booking.waitlist.retention-seconds:3600}") long retentionSeconds) {
+        this.seatInventory = seatInventory;
+        this.purchaseLimits = purchaseLimits;
+        this.enabled = enabled;
+        this.batchSize = Math.max(batchSize, 1);
+        this.maxPerConcert = maxPerConcert;
+        this.retentionNanos = TimeUnit.SECONDS.toNanos(Math.max(retentionSeconds, 0));
+        if (enabled) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(Math.max(threads, 1), runnable -> {
+                Thread thread = new Thread(runnable, "waitlist-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null;
+        }
+    }
+
+    public static WaitlistService disabled(SeatInventory seatInventory) {
+        return new WaitlistService(seatInventory, PurchaseLimits.none(), false, 1, 0, 1, 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void start(Allocator allocator) {
+        this.allocator = allocator;
+    }
+
+    /**
+     * Adds a customer to the end of the concert's waitlist. Only allowed while the
+     * requested seats are not available to book directly.
+     */
+    public WaitlistEntry join(String concertId, String customerName, String customerEmail, int numberOfSeats) {
+        if (!enabled) {
+            throw new IllegalStateException("The waitlist is not available");
+        }
+        forgetFinished(System.nanoTime());
+        purchaseLimits.checkSeatsPerBooking(numberOfSeats);
+        int customerLimit = purchaseLimits.getMaxSeatsPerCustomer(concertId);
+        if (customerLimit > 0 && numberOfSeats > customerLimit) {
+            throw new PurchaseLimitException(concertId, customerLimit, 0);
+        }
+        if (seatInventory.getRemainingSeats(concertId) >= numberOfSeats) {
+            throw new IllegalArgumentException("Seats are still available, please book them directly");
+        }
+        WaitlistEntry entry = new WaitlistEntry(UUID.randomUUID().toString(), concertId, customerName, customerEmail,
+                numberOfSeats, LocalDateTime.now());
+        Lane lane = lanes.computeIfAbsent(concertId, Lane::new);
+        if (!lane.add(entry)) {
+            throw new IllegalStateException("The waitlist for this concert is full");
+        }
+        entries.put(entry.getId(), entry);
+        // Seats may have been freed between the check above and joining
+        lane.schedule();
+        return entry;
+    }
+
+    /**
+     * Removes a waiting entry made with the given email. Returns false if there is no
+     * such entry or it has already been booked.
+     */
+    public boolean leave(String entryId, String customerEmail) {
+        WaitlistEntry entry = findById(entryId).orElse(null);
+        if (entry == null || !BookingRepository.normalizeEmail(entry.getCustomerEmail())
+                .equals(BookingRepository.normalizeEmail(customerEmail))) {
+            return false;
+        }
+        Lane lane = lanes.get(entry.getConcertId());
+        if (lane == null || !lane.remove(entry)) {
+            return false;
+        }
+        entries.remove(entryId);
+        return true;
+    }
+
+    public Optional<WaitlistEntry> findById(String entryId) {
+        return entryId == null ? Optional.empty() : Optional.ofNullable(entries.get(entryId));
+    }
+
+    /**
+     * Number of entries ahead of this one, or -1 once it is no longer waiting.
+     */
+    public int getPosition(WaitlistEntry entry) {
+        Lane lane = lanes.get(entry.getConcertId());
+        return lane != null ? lane.position(entry) : -1;
+    }
+
+    public int getWaitingCount(String concertId) {
+        Lane lane = lanes.get(concertId);
+        return lane != null ? lane.size() : 0;
+    }
+
+    /**
+     * Takes freed seats for the concert's waitlist if anyone is waiting. Returns how
+     * many seats were taken; the caller puts the rest back on sale.
+     */
+    int claimReleasedSeats(String concertId, int seats) {
+        Lane lane = enabled ? lanes.get(concertId) : null;
+        if (lane == null || !lane.claim(seats)) {
+            return 0;
+        }
+        lane.schedule();
+        return seats;
+    }
+
+    private void finish(WaitlistEntry entry, long now) {
+        finished.add(new Finished(entry.getId(), now + retentionNanos));
+    }
+
+    // Runs on every join and allocation, so the map needs no timer of its own
+    private void forgetFinished(long now) {
+        Finished oldest;
+        while ((oldest = finished.peek()) != null && now - oldest.forgetAt >= 0) {
+            if (finished.remove(oldest)) {
+                entries.remove(oldest.entryId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private class Lane {
+        private final String concertId;
+        private final Deque<WaitlistEntry> waiting = new ArrayDeque<>();
+        // Seats handed over by cancellations and holds and not yet allocated to an entry
+        private int freeSeats;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Lane(String concertId) {
+            this.concertId = concertId;
+        }
+
+        synchronized boolean add(WaitlistEntry entry) {
+            if (waiting.size() >= maxPerConcert) {
+                return false;
+            }
+            waiting.addLast(entry);
+            return true;
+        }
+
+        synchronized boolean remove(WaitlistEntry entry) {
+            return waiting.remove(entry);
+        }
+
+        synchronized boolean claim(int seats) {
+            if (waiting.isEmpty()) {
+                return false;
+            }
+            freeSeats += seats;
+            return true;
+        }
+
+        synchronized int position(WaitlistEntry entry) {
+            int position = 0;
+            for (WaitlistEntry waitingEntry : waiting) {
+                if (waitingEntry == entry) {
+                    return position;
+                }
+                position++;
+            }
+            return -1;
+        }
+
+        synchronized int size() {
+            return waiting.size();
+        }
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                List<WaitlistEntry> batch;
+                while (!(batch = takeBatch()).isEmpty()) {
+                    if (!allocate(batch)) {
+                        // Leave the rest for the next release rather than spin on a failing journal
+                        break;
+                    }
+                }
+            } finally {
+                scheduled.set(false);
+                // Seats may have been handed over after the last batch was taken
+                if (hasFreeSeats() && scheduled.compareAndSet(false, true)) {
+                    executor.execute(this::drain);
+                }
+            }
+        }
+
+        private synchronized boolean hasFreeSeats() {
+            return freeSeats > 0;
+        }
+
+        /**
+         * Takes entries in FIFO order while there are seats for them, first from the
+         * handed-over seats and then from the inventory. When nothing fits any more the
+         * unused handed-over seats go back on sale.
+         */
+        private synchronized List<WaitlistEntry> takeBatch() {
+            List<WaitlistEntry> batch = new ArrayList<>(Math.min(batchSize, waiting.size()));
+            Iterator<WaitlistEntry> it = waiting.iterator();
+            while (it.hasNext() && batch.size() < batchSize) {
+                WaitlistEntry entry = it.next();
+                int seats = entry.getNumberOfSeats();
+                if (freeSeats >= seats) {
+                    freeSeats -= seats;
+                } else {
+                    SeatInventory.Reservation reservation = seatInventory.tryReserve(concertId, seats - freeSeats);
+                    if (reservation == SeatInventory.Reservation.RESERVED) {
+                        freeSeats = 0;
+                    } else if (freeSeats == 0 && reservation != SeatInventory.Reservation.INSUFFICIENT_SEATS) {
+                        break;
+                    } else {
+                        continue;
+                    }
+                }
+                it.remove();
+                batch.add(entry);
+            }
+            if (batch.isEmpty() && freeSeats > 0) {
+                seatInventory.release(concertId, freeSeats);
+                freeSeats = 0;
+            }
+            return batch;
+        }
+
+        // Entries that could not be booked go back to the front, in their original order,
+        // unless they were rejected
+        private boolean allocate(List<WaitlistEntry> batch) {
+            try {
+                allocator.allocate(concertId, batch);
+            } catch (RuntimeException e) {
+                log.error("Waitlist allocation for concert {} failed", concertId, e);
+            }
+            List<WaitlistEntry> unbooked = new ArrayList<>();
+            long now = System.nanoTime();
+            for (WaitlistEntry entry : batch) {
+                if (entry.isBooked() || entry.isRejected()) {
+                    finish(entry, now);
+                } else {
+                    unbooked.add(entry);
+                }
+            }
+            forgetFinished(now);
+            synchronized (this) {
+                for (int i = unbooked.size() - 1; i >= 0; i--) {
+                    waiting.addFirst(unbooked.get(i));
+                }
+            }
+            return unbooked.isEmpty();
+        }
+    }
+
+    private static final class Finished {
+        private final String entryId;
+        private final long forgetAt;
+
+        Finished(String entryId, long forgetAt) {
+            this.entryId = entryId;
+            this.forgetAt = forgetAt;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.concertbooking.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded concurrent cache whose entries expire a fixed time after they are added. Keys
+ * are spread over independently locked stripes, each an insertion-ordered map, so
+ * threads only contend when their keys share a stripe. Because every entry lives for
+ * the same time, the oldest entry in a stripe is always the next to expire: expiry and
+ * eviction only ever look at the head, and no background thread is needed. Each entry
+ * costs one map node and one small holder.
+ */
+public final class ExpiringCache<K, V> {
+
+    private final Stripe<K, V>[] stripes;
+    private final int stripeMask;
+    private final long ttlNanos;
+
+    @SuppressWarnings("unchecked")
+    public ExpiringCache(int maxEntries, long ttl, TimeUnit unit, int concurrency) {
+        int stripeCount = Integer.highestOneBit(Math.max(Math.min(concurrency, maxEntries), 1) * 2 - 1);
+        this.stripes = (Stripe<K, V>[]) new Stripe<?, ?>[stripeCount];
+        int perStripe = Math.max(maxEntries / stripeCount, 1);
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe<>(perStripe);
+        }
+        this.stripeMask = stripeCount - 1;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    /**
+     * Returns the live value for the key, or null.
+     */
+    public V get(K key) {
+        Stripe<K, V> stripe = stripeFor(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            stripe.expire(now);
+            Timed<V> entry = stripe.get(key);
+            return entry != null ? entry.value : null;
+        }
+    }
+
+    /**
+     * Adds the value unless the key already has a live one, which is returned instead.
+     * Returns null if the value was added.
+     */
+    public V putIfAbsent(K key, V value) {
+        Stripe<K, V> stripe = stripeFor(key);
+        long now = System.nanoTime();
+        synchronized (stripe) {
+            stripe.expire(now);
+            Timed<V> existing = stripe.get(key);
+            if (existing != null) {
+                return existing.value;
+            }
+            stripe.put(key, new Timed<>(value, now + ttlNanos));
+            return null;
+        }
+    }
+
+    /**
+     * Removes the key only if it is still mapped to the given value.
+     */
+    public boolean remove(K key, V value) {
+        Stripe<K, V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            Timed<V> entry = stripe.get(key);
+            if (entry == null || entry.value != value) {
+                return false;
+            }
+            stripe.remove(key);
+            return true;
+        }
+    }
+
+    /**
+     * Approximate number of entries, possibly including some that have expired.
+     */
+    public int size() {
+        int size = 0;
+        for (Stripe<K, V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<K, V> stripeFor(K key) {
+        int hash = key.hashCode();
+        // Spread the high bits down, as the stripe index only uses the low ones
+        return stripes[(hash ^ (hash >>> 16)) & stripeMask];
+    }
+
+    private static final class Timed<V> {
+        private final V value;
+        private final long expiresAt;
+
+        Timed(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class Stripe<K, V> extends LinkedHashMap<K, Timed<V>> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, false);
+            this.capacity = capacity;
+        }
+
+        void expire(long now) {
+            Iterator<Timed<V>> it = values().iterator();
+            while (it.hasNext() && it.next().expiresAt - now <= 0) {
+                it.remove();
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Timed<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.concertbooking.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hierarchical timer wheel for large numbers of short-lived timeouts. Level 0 has one
+ * bucket per tick; each higher level covers a whole rotation of the level below, and its
+ * buckets are cascaded down as time reaches them. Scheduling and cancelling are O(1) and
+ * lock-free for callers; a single daemon thread does all bucket maintenance and runs
+ * expired tasks, so tasks must be short.
+ */
+public class HierarchicalTimerWheel {
+
+    private static final Logger log = LoggerFactory.getLogger(HierarchicalTimerWheel.class);
+
+    public interface Timeout {
+        /**
+         * Returns true if the task was cancelled before it ran.
+         */
+        boolean cancel();
+    }
+
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final Bucket[][] levels;
+    private final String threadName;
+
+    private final Queue<Entry> scheduled = new ConcurrentLinkedQueue<>();
+    private final Queue<Entry> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile boolean stopped;
+    // Fixed before the wheel is shared, so a schedule racing the thread start never sees it unset
+    private final long startNanos;
+    private long currentTick;
+
+    /**
+     * @param tick       resolution of the wheel
+     * @param wheelSize  buckets per level, rounded up to a power of two
+     * @param levelCount number of levels; the horizon is {@code tick * wheelSize^levelCount}
+     */
+    public HierarchicalTimerWheel(long tick, TimeUnit unit, int wheelSize, int levelCount, String threadName) {
+        this.tickNanos = Math.max(unit.toNanos(tick), 1);
+        this.bits = 32 - Integer.numberOfLeadingZeros(Math.max(wheelSize, 2) - 1);
+        this.mask = (1 << bits) - 1;
+        this.levels = new Bucket[Math.max(levelCount, 1)][1 << bits];
+        for (Bucket[] level : levels) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Bucket();
+            }
+        }
+        this.threadName = threadName;
+        this.startNanos = System.nanoTime();
+    }
+
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        if (stopped) {
+            throw new IllegalStateException("Timer wheel is stopped");
+        }
+        start();
+        long deadline = (System.nanoTime() - startNanos + unit.toNanos(Math.max(delay, 0)) + tickNanos - 1) / tickNanos;
+        Entry entry = new Entry(this, task, deadline);
+        pending.incrementAndGet();
+        scheduled.add(entry);
+        return entry;
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public void stop() {
+        stopped = true;
+    }
+
+    private void start() {
+        if (started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, threadName);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void run() {
+        while (!stopped) {
+            long targetTick = (System.nanoTime() - startNanos) / tickNanos;
+            while (currentTick < targetTick) {
+                transferScheduled();
+                unlinkCancelled();
+                advance(currentTick + 1);
+            }
+            transferScheduled();
+            unlinkCancelled();
+            long nextTickAt = startNanos + (currentTick + 1) * tickNanos;
+            LockSupport.parkNanos(Math.max(nextTickAt - System.nanoTime(), 0));
+        }
+    }
+
+    private void advance(long tick) {
+        currentTick = tick;
+        // Cascade from the highest level whose boundary was crossed, so entries can fall more than one level
+        int top = 0;
+        while (top + 1 < levels.length && ((tick >>> (bits * (top + 1))) << (bits * (top + 1))) == tick) {
+            top++;
+        }
+        for (int level = top; level >= 1; level--) {
+            Bucket bucket = levels[level][(int) ((tick >>> (bits * level)) & mask)];
+            Entry entry = bucket.clear();
+            while (entry != null) {
+                Entry next = entry.next;
+                entry.next = null;
+                entry.prev = null;
+                place(entry);
+                entry = next;
+            }
+        }
+        Entry entry = levels[0][(int) (tick & mask)].clear();
+        while (entry != null) {
+            Entry next = entry.next;
+            entry.next = null;
+            entry.prev = null;
+            entry.bucket = null;
+            entry.expire();
+            entry = next;
+        }
+    }
+
+    private void transferScheduled() {
+        Entry entry;
+        while ((entry = scheduled.poll()) != null) {
+            if (entry.state == Entry.PENDING) {
+                place(entry);
+            }
+        }
+    }
+
+    private void unlinkCancelled() {
+        Entry entry;
+        while ((entry = cancelled.poll()) != null) {
+            if (entry.bucket != null) {
+                entry.bucket.remove(entry);
+            }
+        }
+    }
+
+    private void place(Entry entry) {
+        long deadline = Math.max(entry.deadline, currentTick + 1);
+        int top = levels.length - 1;
+        for (int level = 0; level < top; level++) {
+            int shift = bits * (level + 1);
+            if ((deadline >>> shift) == (currentTick >>> shift)) {
+                levels[level][(int) ((deadline >>> (bits * level)) & mask)].add(entry);
+                return;
+            }
+        }
+        // Beyond the horizon: park in the last bucket before wrap-around and re-place when it cascades
+        long index = Math.min(deadline >>> (bits * top), (currentTick >>> (bits * top)) + mask);
+        levels[top][(int) (index & mask)].add(entry);
+    }
+
+    private static final class Bucket {
+        private Entry head;
+
+        void add(Entry entry) {
+            entry.bucket = this;
+            entry.next = head;
+            if (head != null) {
+                head.prev = entry;
+            }
+            head = entry;
+        }
+
+        void remove(Entry entry) {
+            if (entry.prev != null) {
+                entry.prev.next = entry.next;
+            } else {
+                head = entry.next;
+            }
+            if (entry.next != null) {
+                entry.next.prev = entry.prev;
+            }
+            entry.prev = null;
+            entry.next = null;
+            entry.bucket = null;
+        }
+
+        Entry clear() {
+            Entry first = head;
+            head = null;
+            return first;
+        }
+    }
+
+    private static final class Entry implements Timeout {
+        static final int PENDING = 0;
+        static final int CANCELLED = 1;
+        static final int EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Entry> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Entry.class, "state");
+
+        private final HierarchicalTimerWheel wheel;
+        private final Runnable task;
+        private final long deadline;
+        private volatile int state;
+        // Links are only touched by the wheel thread
+        private Entry prev;
+        private Entry next;
+        private Bucket bucket;
+
+        Entry(HierarchicalTimerWheel wheel, Runnable task, long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                return false;
+            }
+            wheel.pending.decrementAndGet();
+            wheel.cancelled.add(this);
+            return true;
+        }
+
+        void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) {
+                return;
+            }
+            wheel.pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                // A failing task must not stop the wheel thread
+                log.error("Timer task failed", e);
+            }
+        }
+    }
+}
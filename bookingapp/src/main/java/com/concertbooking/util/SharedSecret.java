@@ -0,0 +1,23 @@
+package com.concertbooking.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * A secret that callers present with a request, such as a configured header secret or
+ * a booking's cancel code. An empty secret matches nothing.
+ */
+public final class SharedSecret {
+
+    private final byte[] value;
+
+    public SharedSecret(String value) {
+        this.value = value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    // Compared in constant time so the secret cannot be guessed from response timings
+    public boolean matches(String provided) {
+        return value.length > 0 && provided != null
+                && MessageDigest.isEqual(value, provided.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,36 @@
+package com.concertbooking.util;
+
+/**
+ * A token bucket refilled lazily from the clock on each call, so idle buckets cost
+ * nothing. Starts full.
+ */
+public final class TokenBucket {
+
+    private final double capacity;
+    private final double tokensPerNano;
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(int capacity, double tokensPerSecond, long now) {
+        this.capacity = Math.max(capacity, 1);
+        this.tokensPerNano = tokensPerSecond / 1_000_000_000d;
+        this.tokens = this.capacity;
+        this.refilledAt = now;
+    }
+
+    /**
+     * Takes a token if there is one and returns 0, or returns how many nanoseconds
+     * until the next token without taking anything.
+     */
+    public synchronized long tryAcquire(long now) {
+        if (now - refilledAt > 0) {
+            tokens = Math.min(capacity, tokens + (now - refilledAt) * tokensPerNano);
+            refilledAt = now;
+        }
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        return tokensPerNano > 0 ? (long) Math.ceil((1 - tokens) / tokensPerNano) : Long.MAX_VALUE;
+    }
+}
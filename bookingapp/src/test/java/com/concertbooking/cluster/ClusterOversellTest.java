@@ -0,0 +1,183 @@
+package com.concertbooking.cluster;
+
+import com.concertbooking.exception.InsufficientSeatsException;
+import com.concertbooking.exception.SoldOutException;
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.persistence.BookingJournal;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.repository.ConcertRepository;
+import com.concertbooking.service.BookingBatcher;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.IdempotentBookings;
+import com.concertbooking.service.PurchaseLimits;
+import com.concertbooking.service.SeatHoldService;
+import com.concertbooking.service.SeatInventory;
+import com.concertbooking.service.WaitlistService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Sells out every concert through randomly chosen entry nodes of an in-process cluster:
+ * every concert must sell exactly its seats, each concert's bookings must live only on
+ * its owner, and once replicated every node must show the owner's counters. A retry
+ * that reaches a different entry node must not book again.
+ */
+class ClusterOversellTest {
+
+    private static final int NODES = 4;
+    private static final int CONCERTS = 16;
+    private static final int SEATS = 200;
+    private static final int THREADS = 8;
+
+    private final List<BookingService> services = new ArrayList<>();
+    private final List<BookingBatcher> batchers = new ArrayList<>();
+    private final List<ClusterService> nodes = new ArrayList<>();
+
+    @BeforeEach
+    void startCluster() {
+        StringBuilder nodeList = new StringBuilder();
+        for (int i = 0; i < NODES; i++) {
+            nodeList.append(i == 0 ? "" : ",").append(nodeId(i)).append("=local:").append(i);
+        }
+        LocalClusterTransport transport = new LocalClusterTransport();
+        for (int i = 0; i < NODES; i++) {
+            SeatInventory inventory = new SeatInventory();
+            BookingService service = new BookingService(inventory, new ConcertRepository(), new BookingRepository(),
+                    BookingJournal.disabled(), SeatHoldService.disabled(inventory), BookingMetrics.noop(),
+                    WaitlistService.disabled(inventory), PurchaseLimits.none());
+            // Every node has the whole catalog; only the owner sells each concert
+            for (int c = 0; c < CONCERTS; c++) {
+                service.addConcert(new Concert(concertId(c), "Concert " + c, "Artist", LocalDateTime.now().plusDays(1),
+                        "Venue", 50.0, SEATS));
+            }
+            BookingBatcher batcher = new BookingBatcher(service, BookingMetrics.noop(), false, 64, 500, 1, 10000);
+            // Replication is driven by the test, so no timer
+            // Each node keeps its own idempotency keys, as separate processes would
+            ClusterService node = new ClusterService(service, batcher, new IdempotentBookings(true, 600, 10000, 10000),
+                    transport, true, nodeId(i), nodeList.toString(), 128, 0);
+            transport.register(node);
+            services.add(service);
+            batchers.add(batcher);
+            nodes.add(node);
+        }
+    }
+
+    @AfterEach
+    void stopCluster() {
+        batchers.forEach(BookingBatcher::shutdown);
+    }
+
+    @Test
+    void bookingsThroughAnyNodeNeverOversell() throws Exception {
+        AtomicIntegerArray confirmed = sellOut();
+        nodes.forEach(ClusterService::replicate);
+
+        for (int c = 0; c < CONCERTS; c++) {
+            String concertId = concertId(c);
+            String owner = nodes.get(0).getOwner(concertId).getId();
+            int ownerBooked = -1;
+            int storedSeats = 0;
+            for (int n = 0; n < NODES; n++) {
+                List<Booking> bookings = services.get(n).getBookingsByConcertId(concertId);
+                if (!nodeId(n).equals(owner)) {
+                    assertEquals(0, bookings.size(), concertId + " bookings on non-owner " + nodeId(n));
+                } else {
+                    ownerBooked = services.get(n).getConcertById(concertId).get().getBookedSeats();
+                }
+                for (Booking booking : bookings) {
+                    storedSeats += booking.getNumberOfSeats();
+                }
+            }
+            assertTrue(storedSeats <= SEATS, concertId + " oversold: " + storedSeats + " seats stored");
+            assertEquals(SEATS, storedSeats, concertId + " not sold out");
+            assertEquals(confirmed.get(c), storedSeats, concertId + " confirmed vs stored seats");
+            assertEquals(ownerBooked, storedSeats, concertId + " owner's count vs stored seats");
+            for (int n = 0; n < NODES; n++) {
+                Concert view = services.get(n).getConcertById(concertId).get();
+                assertEquals(ownerBooked, view.getBookedSeats(), concertId + " booked seats on " + nodeId(n));
+            }
+        }
+    }
+
+    @Test
+    void retryThroughAnotherNodeReturnsTheOriginalBooking() {
+        String concertId = concertId(0);
+        String owner = nodes.get(0).getOwner(concertId).getId();
+        List<ClusterService> entryNodes = new ArrayList<>();
+        for (int n = 0; n < NODES; n++) {
+            if (!nodeId(n).equals(owner)) {
+                entryNodes.add(nodes.get(n));
+            }
+        }
+
+        Booking first = entryNodes.get(0).bookTickets(concertId, "Retry", "retry@example.com", 2, null, "key-1");
+        Booking retried = entryNodes.get(1).bookTickets(concertId, "Retry", "retry@example.com", 2, null, "key-1");
+
+        assertEquals(first.getId(), retried.getId(), "booking returned for the retry");
+        int ownerIndex = Integer.parseInt(owner.substring("node-".length()));
+        assertEquals(1, services.get(ownerIndex).getBookingsByConcertId(concertId).size(), "bookings on the owner");
+        assertEquals(2, services.get(ownerIndex).getConcertById(concertId).get().getBookedSeats(), "booked seats");
+    }
+
+    /**
+     * Books 1 to 4 seats at a time through random nodes until there have been twice as
+     * many attempts as seats. Returns the confirmed seats per concert.
+     */
+    private AtomicIntegerArray sellOut() throws Exception {
+        int attempts = CONCERTS * SEATS * 2;
+        AtomicInteger next = new AtomicInteger();
+        AtomicIntegerArray confirmed = new AtomicIntegerArray(CONCERTS);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int i;
+                    while ((i = next.getAndIncrement()) < attempts) {
+                        int concert = random.nextInt(CONCERTS);
+                        try {
+                            Booking booking = nodes.get(random.nextInt(NODES)).bookTickets(concertId(concert),
+                                    "Customer " + i, "customer" + i + "@example.com", 1 + random.nextInt(4), null);
+                            confirmed.addAndGet(concert, booking.getNumberOfSeats());
+                        } catch (SoldOutException | InsufficientSeatsException e) {
+                            // Expected once concerts fill up; anything else fails the test
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return confirmed;
+    }
+
+    private static String nodeId(int index) {
+        return "node-" + index;
+    }
+
+    private static String concertId(int index) {
+        return "C" + index;
+    }
+}
@@ -0,0 +1,345 @@
+package com.concertbooking.persistence;
+
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.repository.ConcertRepository;
+import com.concertbooking.service.BookingMetrics;
+import com.concertbooking.service.BookingService;
+import com.concertbooking.service.PurchaseLimits;
+import com.concertbooking.service.SeatHoldService;
+import com.concertbooking.service.SeatInventory;
+import com.concertbooking.service.WaitlistService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Writes bookings through a journaled service, stops it, damages or extends what is on
+ * disk the way a crash or a failed write would, and checks what a restart recovers.
+ */
+class BookingJournalRecoveryTest {
+
+    private Path directory;
+    private BookingJournal journal;
+    private BookingRepository bookingRepository;
+    private SeatInventory inventory;
+    private BookingService service;
+    private int customers;
+
+    @BeforeEach
+    void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("booking-journal");
+    }
+
+    @AfterEach
+    void deleteDirectory() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    void corruptLastRecordIsDroppedAndLaterRecordsSurvive() throws IOException {
+        start();
+        addConcert();
+        Booking first = book(2);
+        Booking second = book(2);
+        Booking torn = book(2);
+        restartAfter(() -> flipByte(lastRecordOffset() + 12));
+
+        assertEquals(ids(first, second), bookingIds(), "bookings after the corrupt record");
+        assertEquals(4, bookedSeats(), "booked seats");
+        assertEquals(96, inventory.getRemainingSeats("REC"), "inventory");
+        assertFalse(bookingRepository.findById(torn.getId()).isPresent(), "corrupt booking restored");
+
+        // The log must carry on from the last intact record, not after the corrupt one
+        Booking after = book(3);
+        restartAfter(() -> { });
+        assertEquals(ids(first, second, after), bookingIds(), "bookings after a second restart");
+        assertEquals(7, bookedSeats(), "booked seats after a second restart");
+    }
+
+    @Test
+    void recordCutShortIsDropped() throws IOException {
+        start();
+        addConcert();
+        Booking kept = book(1);
+        book(1);
+        restartAfter(() -> truncate(lastRecordOffset() + 11));
+
+        assertEquals(ids(kept), bookingIds(), "bookings after the cut-short record");
+        assertEquals(99, inventory.getRemainingSeats("REC"), "inventory");
+    }
+
+    @Test
+    void snapshotPlusLogRestoresTheSameState() throws IOException {
+        start();
+        addConcert();
+        Booking beforeSnapshot = book(2);
+        book(3);
+        journal.snapshot(service::getAllConcerts, bookingRepository::findByConcertId);
+        Booking afterSnapshot = book(4);
+        book(1);
+        service.cancelBooking(beforeSnapshot.getId(), beforeSnapshot.getCancelCode());
+        service.cancelBooking(afterSnapshot.getId(), afterSnapshot.getCancelCode());
+        Map<String, String> expected = state();
+
+        restartAfter(() -> { });
+
+        assertEquals(expected, state(), "state after snapshot and log replay");
+    }
+
+    @Test
+    void replayOverlappingTheSnapshotCountsNothingTwice() throws IOException {
+        start();
+        addConcert();
+        Booking cancelled = book(2);
+        book(3);
+        book(4);
+        service.cancelBooking(cancelled.getId(), cancelled.getCancelCode());
+        Map<String, String> expected = state();
+
+        // A snapshot at position 0 holds the final state, and the whole log is replayed over it
+        restartAfter(() -> new SnapshotStore(directory).write(0, service.getAllConcerts(),
+                bookingRepository::findByConcertId, journal.getPendingNotifications()));
+
+        assertEquals(expected, state(), "state after replaying the log over the snapshot");
+    }
+
+    @Test
+    void failedWriteLeavesNothingToRecover() throws IOException {
+        start();
+        addConcert();
+        Booking kept = book(2);
+        Map<String, String> expected = state();
+
+        // writeUTF cannot encode a name this long, so the record fails and the journal stops
+        char[] name = new char[70_000];
+        Arrays.fill(name, 'x');
+        assertThrows(IllegalStateException.class, () -> service.addConcert(new Concert("HUGE", new String(name),
+                "Artist", LocalDateTime.now().plusDays(1), "Venue", 10.0, 10)));
+        assertFalse(service.getConcertById("HUGE").isPresent(), "concert the journal refused");
+        assertThrows(IllegalStateException.class, () -> book(3));
+        assertThrows(IllegalStateException.class, () -> service.cancelBooking(kept.getId(), kept.getCancelCode()));
+        assertEquals(expected, state(), "state after the refused changes");
+
+        restartAfter(() -> { });
+
+        assertEquals(expected, state(), "state after restart");
+        assertFalse(service.getConcertById("HUGE").isPresent(), "concert the journal refused, after restart");
+    }
+
+    @Test
+    void compensatingRecordsUndoRecordsThatReachedDisk() throws IOException {
+        start();
+        addConcert();
+        Booking kept = book(2);
+        Booking reinstated = book(3);
+        Map<String, String> expected = state();
+
+        // What a caller whose flush failed appends: the record reached disk, then its undoing
+        Booking discarded = new Booking("REC", "Discarded", "discarded@example.com", 4, 10.0);
+        journal.recordBooking(discarded);
+        journal.recordDiscarded(Collections.singletonList(discarded));
+        journal.recordCancellation(reinstated);
+        journal.recordReinstated(reinstated);
+
+        restartAfter(() -> { });
+
+        assertEquals(expected, state(), "state after replaying the compensating records");
+        assertTrue(bookingRepository.findById(kept.getId()).isPresent(), "kept booking");
+    }
+
+    @Test
+    void cancelCodeSurvivesARestartAndIsRequiredToCancel() throws IOException {
+        start();
+        addConcert();
+        Booking inSnapshot = book(2);
+        journal.snapshot(service::getAllConcerts, bookingRepository::findByConcertId);
+        Booking inLog = book(3);
+
+        restartAfter(() -> { });
+
+        for (Booking booking : Arrays.asList(inSnapshot, inLog)) {
+            assertEquals(booking.getCancelCode(), bookingRepository.findById(booking.getId()).get().getCancelCode(),
+                    "restored cancel code");
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.cancelBooking(booking.getId(), booking.getCustomerEmail()));
+            assertThrows(IllegalArgumentException.class, () -> service.cancelBooking(booking.getId(), ""));
+            service.cancelBooking(booking.getId(), booking.getCancelCode());
+        }
+        assertEquals(0, bookedSeats(), "booked seats after cancelling with the codes");
+    }
+
+    @Test
+    void notificationsNotMarkedDeliveredAreOwedAfterARestart() throws IOException {
+        start();
+        journal.enableNotifications();
+        addConcert();
+        Booking delivered = book(1);
+        Booking beforeSnapshot = book(2);
+        journal.snapshot(service::getAllConcerts, bookingRepository::findByConcertId);
+        journal.recordNotified(delivered, false);
+        Booking cancelled = book(3);
+        service.cancelBooking(cancelled.getId(), cancelled.getCancelCode());
+        journal.recordNotified(cancelled, false);
+        // A booking whose record failed is discarded, and so is its confirmation
+        Booking discarded = new Booking("REC", "Discarded", "discarded@example.com", 4, 10.0);
+        journal.recordBooking(discarded);
+        journal.recordDiscarded(Collections.singletonList(discarded));
+        service.importBookings("REC", Collections.singletonList(
+                new Booking("REC", "Imported", "imported@example.com", 1, 10.0)), (booking, e) -> { });
+
+        restartAfter(() -> { });
+
+        Set<String> owed = new TreeSet<>(Arrays.asList(beforeSnapshot.getId() + "/confirmed",
+                cancelled.getId() + "/cancelled"));
+        assertEquals(owed, pendingNotifications(), "notifications owed after the restart");
+        journal.recordNotified(beforeSnapshot, false);
+        restartAfter(() -> { });
+        assertEquals(Collections.singleton(cancelled.getId() + "/cancelled"), pendingNotifications(),
+                "notifications owed after a second restart");
+    }
+
+    private void start() {
+        journal = new BookingJournal(true, directory.toString(), 1, true, 0);
+        bookingRepository = new BookingRepository();
+        inventory = new SeatInventory();
+        service = new BookingService(inventory, new ConcertRepository(), bookingRepository, journal,
+                SeatHoldService.disabled(inventory), BookingMetrics.noop(), WaitlistService.disabled(inventory),
+                PurchaseLimits.none());
+        service.init();
+    }
+
+    private void restartAfter(DiskChange change) throws IOException {
+        journal.close();
+        change.apply();
+        start();
+    }
+
+    private void addConcert() {
+        service.addConcert(new Concert("REC", "Recovery", "Artist", LocalDateTime.now().plusDays(1), "Venue",
+                10.0, 100));
+    }
+
+    private Booking book(int seats) {
+        int n = ++customers;
+        return service.bookTickets("REC", "Customer " + n, "customer" + n + "@example.com", seats);
+    }
+
+    private int bookedSeats() {
+        return service.getConcertById("REC").get().getBookedSeats();
+    }
+
+    private List<String> bookingIds() {
+        List<String> ids = new ArrayList<>();
+        for (Booking booking : bookingRepository.findByConcertId("REC")) {
+            ids.add(booking.getId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static List<String> ids(Booking... bookings) {
+        List<String> ids = new ArrayList<>();
+        for (Booking booking : bookings) {
+            ids.add(booking.getId());
+        }
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private Set<String> pendingNotifications() {
+        Set<String> keys = new TreeSet<>();
+        for (PendingNotification notification : journal.getPendingNotifications()) {
+            keys.add(notification.key());
+        }
+        return keys;
+    }
+
+    // Every concert's counters, inventory and booking ids, comparable across restarts
+    private Map<String, String> state() {
+        Map<String, String> state = new TreeMap<>();
+        for (Concert concert : service.getAllConcerts()) {
+            List<String> ids = new ArrayList<>();
+            for (Booking booking : bookingRepository.findByConcertId(concert.getId())) {
+                ids.add(booking.getId() + "x" + booking.getNumberOfSeats());
+            }
+            Collections.sort(ids);
+            state.put(concert.getId(), "booked=" + concert.getBookedSeats()
+                    + " remaining=" + inventory.getRemainingSeats(concert.getId()) + " bookings=" + ids);
+        }
+        return state;
+    }
+
+    private Path lastSegment() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "wal-*.log")) {
+            files.forEach(segments::add);
+        }
+        Collections.sort(segments);
+        return segments.get(segments.size() - 1);
+    }
+
+    // Walks the length-prefixed records to the start of the last one
+    private long lastRecordOffset() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(lastSegment().toFile(), "r")) {
+            long offset = 0;
+            long last = -1;
+            while (offset + 8 <= file.length()) {
+                file.seek(offset);
+                int length = file.readInt();
+                if (length == 0) {
+                    break;
+                }
+                last = offset;
+                offset += 8 + length;
+            }
+            assertTrue(last >= 0, "no records in the log");
+            return last;
+        }
+    }
+
+    private void flipByte(long offset) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(lastSegment().toFile(), "rw")) {
+            file.seek(offset);
+            int value = file.read();
+            file.seek(offset);
+            file.write(value ^ 0xFF);
+        }
+    }
+
+    private void truncate(long length) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(lastSegment().toFile(), "rw")) {
+            file.setLength(length);
+        }
+    }
+
+    private interface DiskChange {
+        void apply() throws IOException;
+    }
+}
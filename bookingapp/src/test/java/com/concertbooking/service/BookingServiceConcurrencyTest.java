@@ -0,0 +1,151 @@
+package com.concertbooking.service;
+
+import com.concertbooking.exception.InsufficientSeatsException;
+import com.concertbooking.exception.SoldOutException;
+import com.concertbooking.model.Booking;
+import com.concertbooking.model.Concert;
+import com.concertbooking.model.SeatMap;
+import com.concertbooking.persistence.BookingJournal;
+import com.concertbooking.repository.BookingRepository;
+import com.concertbooking.repository.ConcertRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Many buyers racing for fewer seats than they ask for in total must sell the concert
+ * out exactly: every seat sold once, none twice and the counters never negative.
+ */
+class BookingServiceConcurrencyTest {
+
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+
+    private final SeatInventory inventory = new SeatInventory();
+    private final BookingService bookingService = new BookingService(inventory, new ConcertRepository(),
+            new BookingRepository(), BookingJournal.disabled(), SeatHoldService.disabled(inventory),
+            BookingMetrics.noop(), WaitlistService.disabled(inventory), PurchaseLimits.none());
+
+    @Test
+    void concurrentBookingsSellExactlyTheCapacity() throws Exception {
+        int capacity = 500;
+        bookingService.addConcert(new Concert("RACE", "Race", "Artist", LocalDateTime.now().plusDays(1),
+                "Venue", 10.0, capacity));
+
+        int confirmed = race("RACE");
+
+        Concert concert = bookingService.getConcertById("RACE").get();
+        assertEquals(capacity, confirmed, "confirmed seats");
+        assertEquals(capacity, concert.getBookedSeats(), "booked seats");
+        assertEquals(0, concert.getRemainingSeats(), "remaining seats");
+        assertEquals(0, inventory.getRemainingSeats("RACE"), "inventory");
+        assertEquals(capacity, seatsOf(bookingService.getBookingsByConcertId("RACE")), "seats in bookings");
+    }
+
+    @Test
+    void concurrentBookingsNeverAssignASeatTwice() throws Exception {
+        SeatMap seatMap = SeatMap.uniform(new String[]{"A", "B"}, 10, 20);
+        int capacity = seatMap.getCapacity();
+        bookingService.addConcert(new Concert("SEATED", "Seated", "Artist", LocalDateTime.now().plusDays(1),
+                "Venue", 10.0, seatMap));
+
+        int confirmed = race("SEATED");
+
+        List<Booking> bookings = bookingService.getBookingsByConcertId("SEATED");
+        Set<String> seatIds = new HashSet<>();
+        for (Booking booking : bookings) {
+            assertEquals(booking.getNumberOfSeats(), booking.getSeatIds().size(), "seats assigned to " + booking.getId());
+            for (String seatId : booking.getSeatIds()) {
+                assertTrue(seatIds.add(seatId), "seat sold twice: " + seatId);
+            }
+        }
+        assertEquals(capacity, confirmed, "confirmed seats");
+        assertEquals(capacity, seatIds.size(), "distinct seats sold");
+        assertEquals(0, seatMap.getFreeSeats(), "free seats");
+        assertEquals(0, inventory.getRemainingSeats("SEATED"), "inventory");
+    }
+
+    @Test
+    void batchWhoseSeatsOverflowAnIntBooksOnlyWhatFits() {
+        bookingService.addConcert(new Concert("BATCH", "Batch", "Artist", LocalDateTime.now().plusDays(1),
+                "Venue", 10.0, 3));
+        // With no per-booking cap these add up to 1 in int arithmetic
+        List<BatchedBooking> batch = new ArrayList<>();
+        batch.add(new BatchedBooking("Huge", "huge1@example.com", Integer.MAX_VALUE));
+        batch.add(new BatchedBooking("Huge", "huge2@example.com", Integer.MAX_VALUE));
+        batch.add(new BatchedBooking("Fits", "fits@example.com", 3));
+
+        bookingService.bookBatch("BATCH", batch);
+
+        assertTrue(batch.get(0).getResult().isCompletedExceptionally(), "first huge request booked");
+        assertTrue(batch.get(1).getResult().isCompletedExceptionally(), "second huge request booked");
+        assertEquals(3, batch.get(2).getResult().join().getNumberOfSeats(), "seats booked");
+        assertEquals(0, inventory.getRemainingSeats("BATCH"), "inventory");
+        assertEquals(3, seatsOf(bookingService.getBookingsByConcertId("BATCH")), "seats in bookings");
+    }
+
+    /**
+     * Every thread books 1 to 4 seats at a time from the same start signal until the
+     * concert sells out, falling back to single seats once its request no longer fits.
+     * Returns the seats of all confirmed bookings.
+     */
+    private int race(String concertId) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger confirmed = new AtomicInteger();
+        AtomicInteger soldOut = new AtomicInteger();
+        List<Future<?>> buyers = new ArrayList<>();
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                int thread = t;
+                buyers.add(executor.submit(() -> {
+                    start.await();
+                    int seats = 1 + thread % 4;
+                    for (int attempt = 0; attempt < ATTEMPTS_PER_THREAD; attempt++) {
+                        try {
+                            Booking booking = bookingService.bookTickets(concertId, "Buyer " + thread,
+                                    "buyer" + thread + "-" + attempt + "@example.com", seats);
+                            confirmed.addAndGet(booking.getNumberOfSeats());
+                        } catch (InsufficientSeatsException e) {
+                            seats = 1;
+                        } catch (SoldOutException e) {
+                            soldOut.incrementAndGet();
+                            break;
+                        }
+                        assertTrue(inventory.getRemainingSeats(concertId) >= 0, "inventory went negative");
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> buyer : buyers) {
+                buyer.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertTrue(soldOut.get() > 0, "the buyers ask for more seats than there are");
+        return confirmed.get();
+    }
+
+    private static int seatsOf(List<Booking> bookings) {
+        int seats = 0;
+        for (Booking booking : bookings) {
+            seats += booking.getNumberOfSeats();
+        }
+        return seats;
+    }
+}